@@ -1,7 +1,6 @@
 package com.cyclonex.trust_care.aspect;
 
-import com.cyclonex.trust_care.entity.User;
-import com.cyclonex.trust_care.repository.UserRepository;
+import com.cyclonex.trust_care.security.RequestPrincipal;
 import com.cyclonex.trust_care.service.AuditLogService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.aspectj.lang.JoinPoint;
@@ -11,8 +10,6 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -23,12 +20,12 @@ public class AuditLoggingAspect {
 
     private static final Logger log = LoggerFactory.getLogger(AuditLoggingAspect.class);
     private final AuditLogService auditLogService;
-    private final UserRepository userRepository;
+    private final RequestPrincipal requestPrincipal;
 
     @Autowired
-    public AuditLoggingAspect(AuditLogService auditLogService, UserRepository userRepository) {
+    public AuditLoggingAspect(AuditLogService auditLogService, RequestPrincipal requestPrincipal) {
         this.auditLogService = auditLogService;
-        this.userRepository = userRepository;
+        this.requestPrincipal = requestPrincipal;
     }
 
     // Pointcut for all controller POST methods (CREATE operations)
@@ -63,31 +60,20 @@ public class AuditLoggingAspect {
 
     private void logAuditEvent(String action, JoinPoint joinPoint) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            
-            if (authentication == null || !authentication.isAuthenticated() || "anonymousUser".equals(authentication.getPrincipal())) {
+            // Only requests whose caller was resolved by the JWT filter are audited
+            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+            if (attributes == null || !requestPrincipal.isResolved()) {
                 return; // Skip logging for unauthenticated requests
             }
 
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email);
-            
-            if (user == null) {
-                return;
-            }
-
             // Get the controller and method name to determine the resource
             String className = joinPoint.getSignature().getDeclaringTypeName();
             String methodName = joinPoint.getSignature().getName();
             String resource = extractResourceName(className, methodName);
 
             // Get request ID from current HTTP request
-            String requestId = null;
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes != null) {
-                HttpServletRequest request = attributes.getRequest();
-                requestId = (String) request.getAttribute("requestId");
-            }
+            HttpServletRequest request = attributes.getRequest();
+            String requestId = (String) request.getAttribute("requestId");
 
             // Log the action with request ID
             auditLogService.logAction(action, resource, requestId);
@@ -0,0 +1,121 @@
+package com.cyclonex.trust_care.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Named executors for @Async and background work.
+ * Each one has a bounded queue and a configurable saturation policy under
+ * async.executors.<name>.*, and reports its queue depth, active count and task latency
+ * through {@link AsyncExecutorMetrics}.
+ */
+@Configuration
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+    public static final String AUDIT_EXECUTOR = "auditExecutor";
+    public static final String BACKGROUND_EXECUTOR = "backgroundExecutor";
+    public static final String EXPORT_EXECUTOR = "exportExecutor";
+    public static final String HASH_EXECUTOR = "hashExecutor";
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncConfig.class);
+
+    private final Environment environment;
+    private final AsyncExecutorMetrics asyncExecutorMetrics;
+
+    @Autowired
+    public AsyncConfig(Environment environment, AsyncExecutorMetrics asyncExecutorMetrics) {
+        this.environment = environment;
+        this.asyncExecutorMetrics = asyncExecutorMetrics;
+    }
+
+    // Outbox dispatch; a rejected request is left to the next scheduled poll by the dispatcher
+    @Bean(name = MAIL_EXECUTOR)
+    public AsyncTaskExecutor mailExecutor() {
+        return buildExecutor("mail", 1, 2, 100, "abort");
+    }
+
+    // Early flushes of the request log write buffer; never drops a flush
+    @Bean(name = AUDIT_EXECUTOR)
+    public AsyncTaskExecutor auditExecutor() {
+        return buildExecutor("audit", 2, 8, 2000, "caller-runs");
+    }
+
+    // Long-running jobs and unqualified @Async methods
+    @Bean(name = BACKGROUND_EXECUTOR)
+    public AsyncTaskExecutor backgroundExecutor() {
+        return buildExecutor("background", 2, 4, 100, "abort");
+    }
+
+    // Streaming response bodies (log exports); each task holds a database cursor, so concurrency is capped
+    @Bean(name = EXPORT_EXECUTOR)
+    public AsyncTaskExecutor exportExecutor() {
+        return buildExecutor("export", 1, 4, 8, "abort");
+    }
+
+    // Password hashing for bulk onboarding: one thread per core by default, apart from the decryption pool
+    // so list decryption keeps its own threads; when it is saturated the caller hashes on its own thread
+    @Bean(name = HASH_EXECUTOR)
+    public AsyncTaskExecutor hashExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return buildExecutor("hash", cores, cores, 5000, "caller-runs");
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return backgroundExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> {
+            String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            asyncExecutorMetrics.recordUncaughtFailure(name);
+            log.error("Uncaught exception in async method {}", name, ex);
+        };
+    }
+
+    private AsyncTaskExecutor buildExecutor(String name, int defaultCoreSize, int defaultMaxSize,
+                                            int defaultQueueCapacity, String defaultPolicy) {
+        String prefix = "async.executors." + name + ".";
+        int coreSize = environment.getProperty(prefix + "core-size", Integer.class, defaultCoreSize);
+        int maxSize = environment.getProperty(prefix + "max-size", Integer.class, defaultMaxSize);
+        int queueCapacity = environment.getProperty(prefix + "queue-capacity", Integer.class, defaultQueueCapacity);
+        String policy = environment.getProperty(prefix + "saturation-policy", defaultPolicy);
+        boolean virtualThreads = environment.getProperty(prefix + "virtual-threads", Boolean.class, false);
+
+        if (virtualThreads) {
+            // Requires JDK 21+; concurrency is bounded by max-size and submitters wait when it is reached
+            ExecutorMetrics metrics = asyncExecutorMetrics.register(name, true, 0);
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(name + "-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxSize);
+            executor.setTaskDecorator(metrics.decorator());
+            return executor;
+        }
+
+        ExecutorMetrics metrics = asyncExecutorMetrics.register(name, false, queueCapacity);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(metrics.countingRejections(ExecutorMetrics.policy(policy)));
+        executor.setTaskDecorator(metrics.decorator());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        metrics.setQueueDepthSupplier(() -> executor.getQueueSize());
+        return executor;
+    }
+}
@@ -0,0 +1,42 @@
+package com.cyclonex.trust_care.config;
+
+import com.cyclonex.trust_care.dto.ExecutorStats;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the named async executors, plus failures of @Async methods that nobody observed
+ */
+@Component
+public class AsyncExecutorMetrics {
+
+    private final Map<String, ExecutorMetrics> executors = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> uncaughtFailures = new ConcurrentHashMap<>();
+
+    ExecutorMetrics register(String name, boolean virtualThreads, int queueCapacity) {
+        ExecutorMetrics metrics = new ExecutorMetrics(name, virtualThreads, queueCapacity);
+        executors.put(name, metrics);
+        return metrics;
+    }
+
+    void recordUncaughtFailure(String method) {
+        uncaughtFailures.computeIfAbsent(method, key -> new LongAdder()).increment();
+    }
+
+    public List<ExecutorStats> getExecutorStats() {
+        return executors.values().stream()
+                .map(ExecutorMetrics::snapshot)
+                .toList();
+    }
+
+    public Map<String, Long> getUncaughtFailures() {
+        Map<String, Long> failures = new ConcurrentSkipListMap<>();
+        uncaughtFailures.forEach((method, count) -> failures.put(method, count.sum()));
+        return failures;
+    }
+}
@@ -0,0 +1,106 @@
+package com.cyclonex.trust_care.config;
+
+import com.cyclonex.trust_care.dto.ExecutorStats;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters for one named executor. Tasks are wrapped by {@link #decorator()} at submit time,
+ * so queue wait and run time are measured for every task whatever the backing executor is.
+ */
+public class ExecutorMetrics {
+
+    private final String name;
+    private final boolean virtualThreads;
+    private final int queueCapacity;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final LongAccumulator maxRunNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicInteger running = new AtomicInteger();
+
+    private IntSupplier queueDepthSupplier = () -> 0;
+
+    public ExecutorMetrics(String name, boolean virtualThreads, int queueCapacity) {
+        this.name = name;
+        this.virtualThreads = virtualThreads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    void setQueueDepthSupplier(IntSupplier queueDepthSupplier) {
+        this.queueDepthSupplier = queueDepthSupplier;
+    }
+
+    public TaskDecorator decorator() {
+        return task -> {
+            long submittedAt = System.nanoTime();
+            submitted.increment();
+            return () -> {
+                long startedAt = System.nanoTime();
+                totalWaitNanos.add(startedAt - submittedAt);
+                running.incrementAndGet();
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    failed.increment();
+                    throw e;
+                } finally {
+                    long runNanos = System.nanoTime() - startedAt;
+                    running.decrementAndGet();
+                    totalRunNanos.add(runNanos);
+                    maxRunNanos.accumulate(runNanos);
+                    completed.increment();
+                }
+            };
+        };
+    }
+
+    /**
+     * Wrap a saturation policy so rejections are counted
+     */
+    public RejectedExecutionHandler countingRejections(RejectedExecutionHandler delegate) {
+        return (runnable, executor) -> {
+            rejected.increment();
+            delegate.rejectedExecution(runnable, executor);
+        };
+    }
+
+    public ExecutorStats snapshot() {
+        long done = completed.sum();
+        long started = done + running.get();
+        return new ExecutorStats(
+                name,
+                virtualThreads,
+                running.get(),
+                queueDepthSupplier.getAsInt(),
+                queueCapacity,
+                submitted.sum(),
+                done,
+                failed.sum(),
+                rejected.sum(),
+                started == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / started,
+                done == 0 ? 0.0 : totalRunNanos.sum() / 1_000_000.0 / done,
+                maxRunNanos.get() / 1_000_000.0
+        );
+    }
+
+    static RejectedExecutionHandler policy(String name) {
+        return switch (name) {
+            case "abort" -> new ThreadPoolExecutor.AbortPolicy();
+            case "discard" -> new ThreadPoolExecutor.DiscardPolicy();
+            case "discard-oldest" -> new ThreadPoolExecutor.DiscardOldestPolicy();
+            case "caller-runs" -> new ThreadPoolExecutor.CallerRunsPolicy();
+            default -> throw new IllegalArgumentException("Unknown saturation policy: " + name);
+        };
+    }
+}
@@ -2,7 +2,11 @@ package com.cyclonex.trust_care.config;
 
 import com.cyclonex.trust_care.interceptor.RequestLoggingInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -10,10 +14,17 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private final RequestLoggingInterceptor requestLoggingInterceptor;
+    private final AsyncTaskExecutor exportExecutor;
+
+    // Streaming exports can run for a long time; -1 disables the timeout
+    @Value("${export.timeout-ms:1800000}")
+    private long exportTimeoutMs;
 
     @Autowired
-    public WebMvcConfig(RequestLoggingInterceptor requestLoggingInterceptor) {
+    public WebMvcConfig(RequestLoggingInterceptor requestLoggingInterceptor,
+                        @Qualifier(AsyncConfig.EXPORT_EXECUTOR) AsyncTaskExecutor exportExecutor) {
         this.requestLoggingInterceptor = requestLoggingInterceptor;
+        this.exportExecutor = exportExecutor;
     }
 
     @Override
@@ -22,4 +33,11 @@ public class WebMvcConfig implements WebMvcConfigurer {
                 .addPathPatterns("/**")
                 .excludePathPatterns("/auth/login", "/auth/register");
     }
+
+    // StreamingResponseBody results are written on the export executor
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportExecutor);
+        configurer.setDefaultTimeout(exportTimeoutMs);
+    }
 }
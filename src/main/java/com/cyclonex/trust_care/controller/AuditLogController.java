@@ -1,14 +1,18 @@
 package com.cyclonex.trust_care.controller;
 
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.AuditLogView;
 import com.cyclonex.trust_care.entity.AuditLog;
+import com.cyclonex.trust_care.service.LogExportService;
 import com.cyclonex.trust_care.service.AuditLogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @RestController
 @RequestMapping("/audit_log")
@@ -16,42 +20,69 @@ import java.util.List;
 public class AuditLogController {
 
     private final AuditLogService auditLogService;
+    private final LogExportService logExportService;
 
     @Autowired
-    public AuditLogController(AuditLogService auditLogService) {
+    public AuditLogController(AuditLogService auditLogService, LogExportService logExportService) {
         this.auditLogService = auditLogService;
+        this.logExportService = logExportService;
     }
 
     @GetMapping
-    public List<AuditLog> getAllAuditLogs() {
-        return auditLogService.getAllAuditLogs();
+    public CursorPage<AuditLogView> getAllAuditLogs(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return auditLogService.getAllAuditLogs(cursor, size);
     }
 
     @GetMapping("/{id}")
-    public AuditLog getAuditLogById(@PathVariable int id) {
+    public AuditLogView getAuditLogById(@PathVariable int id) {
         return auditLogService.getAuditLogById(id);
     }
 
     @GetMapping("/user/{userId}")
-    public List<AuditLog> getAuditLogsByUserId(@PathVariable Integer userId) {
-        return auditLogService.getAuditLogsByUserId(userId);
+    public CursorPage<AuditLogView> getAuditLogsByUserId(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return auditLogService.getAuditLogsByUserId(userId, cursor, size);
     }
 
     @GetMapping("/action/{action}")
-    public List<AuditLog> getAuditLogsByAction(@PathVariable String action) {
-        return auditLogService.getAuditLogsByAction(action);
+    public CursorPage<AuditLogView> getAuditLogsByAction(
+            @PathVariable String action,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return auditLogService.getAuditLogsByAction(action, cursor, size);
     }
 
     @GetMapping("/resource/{resource}")
-    public List<AuditLog> getAuditLogsByResource(@PathVariable String resource) {
-        return auditLogService.getAuditLogsByResource(resource);
+    public CursorPage<AuditLogView> getAuditLogsByResource(
+            @PathVariable String resource,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return auditLogService.getAuditLogsByResource(resource, cursor, size);
     }
 
     @GetMapping("/date-range")
-    public List<AuditLog> getAuditLogsByDateRange(
+    public CursorPage<AuditLogView> getAuditLogsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
-        return auditLogService.getAuditLogsByDateRange(start, end);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return auditLogService.getAuditLogsByDateRange(start, end, cursor, size);
+    }
+
+    /**
+     * Stream every entry in the range, oldest first, as NDJSON or CSV (format=ndjson|csv), optionally gzipped
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return logExportService.exportAuditLogs(start, end, format, gzip);
     }
 
     @PostMapping
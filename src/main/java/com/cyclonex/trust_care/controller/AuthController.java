@@ -6,6 +6,7 @@ import com.cyclonex.trust_care.repository.*;
 import com.cyclonex.trust_care.security.JwtTokenProvider;
 import com.cyclonex.trust_care.service.EmailService;
 import com.cyclonex.trust_care.service.OtpService;
+import com.cyclonex.trust_care.service.PermissionVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,6 +14,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
@@ -50,6 +52,12 @@ public class AuthController {
     @Autowired
     private PatientRepository patientRepository;
 
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private PermissionVersionService permissionVersionService;
+
     /**
      * Step 1: Initiate login - Verify credentials and send OTP to email
      */
@@ -92,6 +100,8 @@ public class AuthController {
                     emailService.maskEmail(user.getEmail())
             ));
 
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body("Too many pending logins. Please try again shortly.");
         } catch (Exception e) {
             return ResponseEntity.status(401).body("Invalid email or password");
         }
@@ -116,16 +126,25 @@ public class AuthController {
                 return ResponseEntity.status(401).body("User not found");
             }
 
-            // Generate JWT token
-            UserDetails userDetails = org.springframework.security.core.userdetails.User
-                    .withUsername(user.getEmail())
-                    .password(user.getPasswordHash())
-                    .authorities("ROLE_" + (user.getRole() != null ? user.getRole().getRoleName() : "USER"))
-                    .build();
-
-            String token = jwtTokenProvider.generateToken(userDetails);
             String roleName = user.getRole() != null ? user.getRole().getRoleName() : "USER";
 
+            // Generate JWT token
+            String token;
+            if (user.getRole() != null) {
+                // Read the version before the authorities, so a concurrent RBAC edit leaves the token stale rather than wrong
+                int permissionsVersion = permissionVersionService.getCurrentVersion(user.getRole().getId());
+                UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
+                token = jwtTokenProvider.generateToken(userDetails, user.getId(), user.getRole().getId(), roleName,
+                        permissionsVersion, user.getTokenVersion());
+            } else {
+                UserDetails userDetails = org.springframework.security.core.userdetails.User
+                        .withUsername(user.getEmail())
+                        .password(user.getPasswordHash())
+                        .authorities("ROLE_" + roleName)
+                        .build();
+                token = jwtTokenProvider.generateToken(userDetails);
+            }
+
             return ResponseEntity.ok(new AuthResponse(token, user.getUsername(), roleName));
 
         } catch (Exception e) {
@@ -164,6 +183,8 @@ public class AuthController {
                     emailService.maskEmail(user.getEmail())
             ));
 
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body("Too many pending logins. Please try again shortly.");
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error occurred while resending OTP: " + e.getMessage());
         }
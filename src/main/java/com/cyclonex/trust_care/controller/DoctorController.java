@@ -1,13 +1,13 @@
 package com.cyclonex.trust_care.controller;
 
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.DoctorView;
 import com.cyclonex.trust_care.entity.Doctor;
 import com.cyclonex.trust_care.service.DoctorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/doctor")
 public class DoctorController {
@@ -21,31 +21,36 @@ public class DoctorController {
 
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasAuthority('VIEW_DOCTOR') or hasRole('ADMIN') or hasRole('DOCTOR')")
-    public Doctor getDoctorByUserId(@PathVariable int userId) {
+    public DoctorView getDoctorByUserId(@PathVariable int userId) {
         return doctorService.getDoctorByUserId(userId);
     }
 
     @GetMapping("/license/{licenseNumber}")
     @PreAuthorize("hasAuthority('VIEW_DOCTOR') or hasRole('ADMIN')")
-    public Doctor getDoctorByLicenseNumber(@PathVariable String licenseNumber) {
+    public DoctorView getDoctorByLicenseNumber(@PathVariable String licenseNumber) {
         return doctorService.getDoctorByLicenseNumber(licenseNumber);
     }
 
     @GetMapping("/specialization/{specialization}")
     @PreAuthorize("hasAuthority('VIEW_DOCTOR') or hasRole('ADMIN') or hasRole('PATIENT')")
-    public List<Doctor> getDoctorsBySpecialization(@PathVariable String specialization) {
-        return doctorService.getDoctorsBySpecialization(specialization);
+    public CursorPage<DoctorView> getDoctorsBySpecialization(
+            @PathVariable String specialization,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return doctorService.getDoctorsBySpecialization(specialization, cursor, size);
     }
 
     @GetMapping
     @PreAuthorize("hasAuthority('VIEW_DOCTOR') or hasRole('ADMIN') or hasRole('PATIENT')")
-    public List<Doctor> getAllDoctors() {
-        return doctorService.getAllDoctors();
+    public CursorPage<DoctorView> getAllDoctors(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return doctorService.getAllDoctors(cursor, size);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAuthority('VIEW_DOCTOR') or hasRole('ADMIN') or hasRole('DOCTOR') or hasRole('PATIENT')")
-    public Doctor getDoctorById(@PathVariable int id) {
+    public DoctorView getDoctorById(@PathVariable int id) {
         return doctorService.getDoctorById(id);
     }
 
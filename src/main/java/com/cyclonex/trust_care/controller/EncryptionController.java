@@ -0,0 +1,80 @@
+package com.cyclonex.trust_care.controller;
+
+import com.cyclonex.trust_care.entity.ReencryptionCheckpoint;
+import com.cyclonex.trust_care.service.CiphertextStorageMigrationService;
+import com.cyclonex.trust_care.service.PatientDataKeyService;
+import com.cyclonex.trust_care.service.ReencryptionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/encryption")
+@PreAuthorize("hasRole('ADMIN')")
+public class EncryptionController {
+
+    private final ReencryptionService reencryptionService;
+    private final PatientDataKeyService patientDataKeyService;
+    private final CiphertextStorageMigrationService storageMigrationService;
+
+    @Autowired
+    public EncryptionController(ReencryptionService reencryptionService, PatientDataKeyService patientDataKeyService,
+                                CiphertextStorageMigrationService storageMigrationService) {
+        this.reencryptionService = reencryptionService;
+        this.patientDataKeyService = patientDataKeyService;
+        this.storageMigrationService = storageMigrationService;
+    }
+
+    @PostMapping("/reencryption")
+    public ResponseEntity<Void> startReencryption() {
+        if (!reencryptionService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/reencryption")
+    public List<ReencryptionCheckpoint> getReencryptionStatus() {
+        return reencryptionService.getStatus();
+    }
+
+    @DeleteMapping("/reencryption")
+    public ResponseEntity<Void> stopReencryption() {
+        reencryptionService.stop();
+        return ResponseEntity.accepted().build();
+    }
+
+    // After a master key rotation only the wrapped data keys need rewriting
+    @PostMapping("/data_keys/rewrap")
+    public Map<String, Integer> rewrapDataKeys() {
+        return Map.of("rewrapped", patientDataKeyService.rewrapAll());
+    }
+
+    @PostMapping("/storage_migration")
+    public ResponseEntity<String> startStorageMigration() {
+        try {
+            if (!storageMigrationService.start()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/storage_migration")
+    public Map<String, Long> getStorageMigrationStatus() {
+        return storageMigrationService.getMigratedCounts();
+    }
+
+    @DeleteMapping("/storage_migration")
+    public ResponseEntity<Void> stopStorageMigration() {
+        storageMigrationService.stop();
+        return ResponseEntity.accepted().build();
+    }
+}
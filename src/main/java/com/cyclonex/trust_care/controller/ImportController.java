@@ -0,0 +1,48 @@
+package com.cyclonex.trust_care.controller;
+
+import com.cyclonex.trust_care.dto.ImportJobStatus;
+import com.cyclonex.trust_care.service.ClinicalImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/import")
+@PreAuthorize("hasRole('ADMIN')")
+public class ImportController {
+
+    private final ClinicalImportService clinicalImportService;
+
+    @Autowired
+    public ImportController(ClinicalImportService clinicalImportService) {
+        this.clinicalImportService = clinicalImportService;
+    }
+
+    // The request body is the file itself (NDJSON or CSV with a header row), optionally gzip-compressed
+    @PostMapping("/{type}")
+    public ResponseEntity<ImportJobStatus> startImport(
+            @PathVariable String type,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletRequest request) throws IOException {
+        String requestId = (String) request.getAttribute("requestId");
+        ImportJobStatus status = clinicalImportService.start(type, format, gzip, request.getInputStream(), requestId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportJobStatus> getImportStatus(@PathVariable String jobId) {
+        ImportJobStatus status = clinicalImportService.getStatus(jobId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Void> cancelImport(@PathVariable String jobId) {
+        return clinicalImportService.cancel(jobId) ? ResponseEntity.accepted().build() : ResponseEntity.notFound().build();
+    }
+}
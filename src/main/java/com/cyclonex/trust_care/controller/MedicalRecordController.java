@@ -1,5 +1,7 @@
 package com.cyclonex.trust_care.controller;
 
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.MedicalRecordView;
 import com.cyclonex.trust_care.entity.MedicalRecord;
 import com.cyclonex.trust_care.service.MedicalRecordService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,8 +9,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/medical_record")
 public class MedicalRecordController {
@@ -29,14 +29,20 @@ public class MedicalRecordController {
 
     @GetMapping
     @PreAuthorize("hasAuthority('VIEW_MEDICAL_RECORD') or hasRole('ADMIN') or hasRole('DOCTOR')")
-    public ResponseEntity<List<MedicalRecord>> getAllMedicalRecords() {
-        return ResponseEntity.ok(medicalRecordService.getAllMedicalRecords());
+    public ResponseEntity<CursorPage<MedicalRecordView>> getAllMedicalRecords(
+            @RequestParam(required = false) String diagnosis,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        if (diagnosis != null) {
+            return ResponseEntity.ok(medicalRecordService.getMedicalRecordsByDiagnosis(diagnosis, cursor, size));
+        }
+        return ResponseEntity.ok(medicalRecordService.getAllMedicalRecords(cursor, size));
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAuthority('VIEW_MEDICAL_RECORD') or hasRole('ADMIN') or hasRole('DOCTOR') or hasRole('PATIENT')")
-    public ResponseEntity<MedicalRecord> getMedicalRecordById(@PathVariable int id) {
-        MedicalRecord record = medicalRecordService.getMedicalRecordById(id);
+    public ResponseEntity<MedicalRecordView> getMedicalRecordById(@PathVariable int id) {
+        MedicalRecordView record = medicalRecordService.getMedicalRecordById(id);
         if (record != null) {
             return ResponseEntity.ok(record);
         }
@@ -45,8 +51,11 @@ public class MedicalRecordController {
 
     @GetMapping("/patient/{patientId}")
     @PreAuthorize("hasAuthority('VIEW_MEDICAL_RECORD') or hasRole('ADMIN') or hasRole('DOCTOR') or hasRole('PATIENT')")
-    public ResponseEntity<List<MedicalRecord>> getMedicalRecordsByPatient(@PathVariable int patientId) {
-        return ResponseEntity.ok(medicalRecordService.getMedicalRecordsByPatientId(patientId));
+    public ResponseEntity<CursorPage<MedicalRecordView>> getMedicalRecordsByPatient(
+            @PathVariable int patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(medicalRecordService.getMedicalRecordsByPatientId(patientId, cursor, size));
     }
 
     @PutMapping("/{id}")
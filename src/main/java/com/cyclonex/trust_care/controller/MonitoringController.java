@@ -0,0 +1,78 @@
+package com.cyclonex.trust_care.controller;
+
+import com.cyclonex.trust_care.config.AsyncExecutorMetrics;
+import com.cyclonex.trust_care.dto.DecryptionStats;
+import com.cyclonex.trust_care.dto.ExecutorStats;
+import com.cyclonex.trust_care.dto.LogPartitionStats;
+import com.cyclonex.trust_care.dto.RoleAuthorityCacheStats;
+import com.cyclonex.trust_care.security.RoleAuthorityCache;
+import com.cyclonex.trust_care.service.BulkDecryptionService;
+import com.cyclonex.trust_care.service.LogPartitionService;
+import com.cyclonex.trust_care.service.LogWriteBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/monitoring")
+@PreAuthorize("hasRole('ADMIN')")
+public class MonitoringController {
+
+    private final RoleAuthorityCache roleAuthorityCache;
+    private final AsyncExecutorMetrics asyncExecutorMetrics;
+    private final LogWriteBuffer logWriteBuffer;
+    private final LogPartitionService logPartitionService;
+    private final BulkDecryptionService bulkDecryptionService;
+
+    @Autowired
+    public MonitoringController(RoleAuthorityCache roleAuthorityCache, AsyncExecutorMetrics asyncExecutorMetrics,
+                                LogWriteBuffer logWriteBuffer, LogPartitionService logPartitionService,
+                                BulkDecryptionService bulkDecryptionService) {
+        this.roleAuthorityCache = roleAuthorityCache;
+        this.asyncExecutorMetrics = asyncExecutorMetrics;
+        this.logWriteBuffer = logWriteBuffer;
+        this.logPartitionService = logPartitionService;
+        this.bulkDecryptionService = bulkDecryptionService;
+    }
+
+    @GetMapping("/authority_cache")
+    public List<RoleAuthorityCacheStats> getAuthorityCacheStats() {
+        return roleAuthorityCache.getStats();
+    }
+
+    @DeleteMapping("/authority_cache")
+    public void clearAuthorityCache() {
+        roleAuthorityCache.evictAll();
+    }
+
+    @GetMapping("/executors")
+    public List<ExecutorStats> getExecutorStats() {
+        return asyncExecutorMetrics.getExecutorStats();
+    }
+
+    // Time spent decrypting list results, per kind of row and serial or parallel
+    @GetMapping("/decryption")
+    public List<DecryptionStats> getDecryptionStats() {
+        return bulkDecryptionService.getStats();
+    }
+
+    @GetMapping("/async_failures")
+    public Map<String, Long> getAsyncFailures() {
+        return asyncExecutorMetrics.getUncaughtFailures();
+    }
+
+    // Request log entries waiting to be inserted, and entries dropped after failing to insert
+    @GetMapping("/log_buffer")
+    public Map<String, Long> getLogBufferStats() {
+        return Map.of("pending", (long) logWriteBuffer.getPendingEntries(), "failed", logWriteBuffer.getFailedEntries());
+    }
+
+    // Alert when monthsAhead drops below 1 or the DEFAULT partition holds rows: partition maintenance is failing
+    @GetMapping("/log_partitions")
+    public List<LogPartitionStats> getLogPartitionStats() {
+        return logPartitionService.getStats();
+    }
+}
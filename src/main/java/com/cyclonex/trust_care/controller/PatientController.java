@@ -1,13 +1,13 @@
 package com.cyclonex.trust_care.controller;
 
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.PatientView;
 import com.cyclonex.trust_care.entity.Patient;
 import com.cyclonex.trust_care.service.PatientService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/patient")
 public class PatientController {
@@ -21,19 +21,21 @@ public class PatientController {
 
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasAuthority('VIEW_PATIENT') or hasRole('ADMIN') or hasRole('DOCTOR') or hasRole('PATIENT')")
-    public Patient getPatientByUserId(@PathVariable int userId) {
+    public PatientView getPatientByUserId(@PathVariable int userId) {
         return patientService.getPatientByUserId(userId);
     }
 
     @GetMapping
     @PreAuthorize("hasAuthority('VIEW_PATIENT') or hasRole('ADMIN') or hasRole('DOCTOR')")
-    public List<Patient> getAllPatients() {
-        return patientService.getAllPatients();
+    public CursorPage<PatientView> getAllPatients(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return patientService.getAllPatients(cursor, size);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAuthority('VIEW_PATIENT') or hasRole('ADMIN') or hasRole('DOCTOR')")
-    public Patient getPatientById(@PathVariable int id) {
+    public PatientView getPatientById(@PathVariable int id) {
         return patientService.getPatientById(id);
     }
 
@@ -1,5 +1,7 @@
 package com.cyclonex.trust_care.controller;
 
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.PrescriptionView;
 import com.cyclonex.trust_care.entity.Prescription;
 import com.cyclonex.trust_care.service.PrescriptionService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,8 +10,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/prescriptions")
 public class PrescriptionController {
@@ -30,15 +30,20 @@ public class PrescriptionController {
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('VIEW_PRESCRIPTION') or hasAnyRole('ADMIN', 'DOCTOR')")
-    public ResponseEntity<List<Prescription>> getAllPrescriptions() {
-        List<Prescription> prescriptions = prescriptionService.getAllPrescriptions();
+    public ResponseEntity<CursorPage<PrescriptionView>> getAllPrescriptions(
+            @RequestParam(required = false) String medication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<PrescriptionView> prescriptions = medication != null
+                ? prescriptionService.getPrescriptionsByMedication(medication, cursor, size)
+                : prescriptionService.getAllPrescriptions(cursor, size);
         return ResponseEntity.ok(prescriptions);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('VIEW_PRESCRIPTION') or hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
-    public ResponseEntity<Prescription> getPrescriptionById(@PathVariable int id) {
-        Prescription prescription = prescriptionService.getPrescriptionById(id);
+    public ResponseEntity<PrescriptionView> getPrescriptionById(@PathVariable int id) {
+        PrescriptionView prescription = prescriptionService.getPrescriptionById(id);
         if (prescription != null) {
             return ResponseEntity.ok(prescription);
         }
@@ -47,23 +52,28 @@ public class PrescriptionController {
 
     @GetMapping("/patient/{patientId}")
     @PreAuthorize("hasAnyAuthority('VIEW_PRESCRIPTION') or hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
-    public ResponseEntity<List<Prescription>> getPrescriptionsByPatientId(@PathVariable int patientId) {
-        List<Prescription> prescriptions = prescriptionService.getPrescriptionsByPatientId(patientId);
+    public ResponseEntity<CursorPage<PrescriptionView>> getPrescriptionsByPatientId(
+            @PathVariable int patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<PrescriptionView> prescriptions = prescriptionService.getPrescriptionsByPatientId(patientId, cursor, size);
         return ResponseEntity.ok(prescriptions);
     }
 
     @GetMapping("/doctor/{doctorId}")
     @PreAuthorize("hasAnyAuthority('VIEW_PRESCRIPTION') or hasAnyRole('ADMIN', 'DOCTOR')")
-    public ResponseEntity<List<Prescription>> getPrescriptionsByDoctorId(@PathVariable int doctorId) {
-        List<Prescription> prescriptions = prescriptionService.getPrescriptionsByDoctorId(doctorId);
+    public ResponseEntity<CursorPage<PrescriptionView>> getPrescriptionsByDoctorId(
+            @PathVariable int doctorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<PrescriptionView> prescriptions = prescriptionService.getPrescriptionsByDoctorId(doctorId, cursor, size);
         return ResponseEntity.ok(prescriptions);
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('UPDATE_PRESCRIPTION') or hasRole('DOCTOR')")
     public ResponseEntity<Prescription> updatePrescription(@PathVariable int id, @RequestBody Prescription prescription) {
-        Prescription existingPrescription = prescriptionService.getPrescriptionById(id);
-        if (existingPrescription != null) {
+        if (prescriptionService.prescriptionExists(id)) {
             prescription.setId(id);
             Prescription updatedPrescription = prescriptionService.savePrescription(prescription);
             return ResponseEntity.ok(updatedPrescription);
@@ -74,8 +84,7 @@ public class PrescriptionController {
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('DELETE_PRESCRIPTION') or hasRole('ADMIN')")
     public ResponseEntity<Void> deletePrescription(@PathVariable int id) {
-        Prescription existingPrescription = prescriptionService.getPrescriptionById(id);
-        if (existingPrescription != null) {
+        if (prescriptionService.prescriptionExists(id)) {
             prescriptionService.deletePrescription(id);
             return ResponseEntity.noContent().build();
         }
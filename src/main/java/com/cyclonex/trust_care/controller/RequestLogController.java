@@ -1,14 +1,18 @@
 package com.cyclonex.trust_care.controller;
 
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.RequestLogView;
 import com.cyclonex.trust_care.entity.RequestLog;
+import com.cyclonex.trust_care.service.LogExportService;
 import com.cyclonex.trust_care.service.RequestLogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @RestController
 @RequestMapping("/request_log")
@@ -16,47 +20,74 @@ import java.util.List;
 public class RequestLogController {
 
     private final RequestLogService requestLogService;
+    private final LogExportService logExportService;
 
     @Autowired
-    public RequestLogController(RequestLogService requestLogService) {
+    public RequestLogController(RequestLogService requestLogService, LogExportService logExportService) {
         this.requestLogService = requestLogService;
+        this.logExportService = logExportService;
     }
 
     @GetMapping
-    public List<RequestLog> getAllRequestLogs() {
-        return requestLogService.getAllRequestLogs();
+    public CursorPage<RequestLogView> getAllRequestLogs(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return requestLogService.getAllRequestLogs(cursor, size);
     }
 
     @GetMapping("/{id}")
-    public RequestLog getRequestLogById(@PathVariable int id) {
+    public RequestLogView getRequestLogById(@PathVariable int id) {
         return requestLogService.getRequestLogById(id);
     }
 
     @GetMapping("/request-id/{requestId}")
-    public RequestLog getRequestLogByRequestId(@PathVariable String requestId) {
+    public RequestLogView getRequestLogByRequestId(@PathVariable String requestId) {
         return requestLogService.getRequestLogByRequestId(requestId);
     }
 
     @GetMapping("/user/{userId}")
-    public List<RequestLog> getRequestLogsByUserId(@PathVariable Integer userId) {
-        return requestLogService.getRequestLogsByUserId(userId);
+    public CursorPage<RequestLogView> getRequestLogsByUserId(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return requestLogService.getRequestLogsByUserId(userId, cursor, size);
     }
 
     @GetMapping("/operation/{operation}")
-    public List<RequestLog> getRequestLogsByOperation(@PathVariable String operation) {
-        return requestLogService.getRequestLogsByOperation(operation);
+    public CursorPage<RequestLogView> getRequestLogsByOperation(
+            @PathVariable String operation,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return requestLogService.getRequestLogsByOperation(operation, cursor, size);
     }
 
     @GetMapping("/outcome/{outcome}")
-    public List<RequestLog> getRequestLogsByOutcome(@PathVariable String outcome) {
-        return requestLogService.getRequestLogsByOutcome(outcome);
+    public CursorPage<RequestLogView> getRequestLogsByOutcome(
+            @PathVariable String outcome,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return requestLogService.getRequestLogsByOutcome(outcome, cursor, size);
     }
 
     @GetMapping("/date-range")
-    public List<RequestLog> getRequestLogsByDateRange(
+    public CursorPage<RequestLogView> getRequestLogsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
-        return requestLogService.getRequestLogsByDateRange(start, end);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return requestLogService.getRequestLogsByDateRange(start, end, cursor, size);
+    }
+
+    /**
+     * Stream every entry in the range, oldest first, as NDJSON or CSV (format=ndjson|csv), optionally gzipped
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRequestLogs(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return logExportService.exportRequestLogs(start, end, format, gzip);
     }
 
     @PostMapping
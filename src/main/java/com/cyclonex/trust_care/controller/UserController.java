@@ -1,8 +1,14 @@
 package com.cyclonex.trust_care.controller;
 
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.OnboardingResult;
+import com.cyclonex.trust_care.dto.RegisterRequest;
+import com.cyclonex.trust_care.dto.UserView;
 import com.cyclonex.trust_care.entity.User;
+import com.cyclonex.trust_care.service.UserOnboardingService;
 import com.cyclonex.trust_care.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -12,24 +18,28 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final UserOnboardingService userOnboardingService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserOnboardingService userOnboardingService) {
         this.userService = userService;
+        this.userOnboardingService = userOnboardingService;
     }
 
     @GetMapping("/{username}")
-    public User getUserByUsername(@PathVariable String username) {
+    public UserView getUserByUsername(@PathVariable String username) {
         return userService.getUserByUsername(username);
     }
 
     @GetMapping
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    public CursorPage<UserView> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return userService.getAllUsers(cursor, size);
     }
 
     @GetMapping("/id/{id}")
-    public User getUserById(@PathVariable int id) {
+    public UserView getUserById(@PathVariable int id) {
         return userService.getUserById(id);
     }
 
@@ -38,6 +48,13 @@ public class UserController {
         return userService.saveUser(user);
     }
 
+    // Staff rosters: same fields as /auth/register, one entry per user; failures are reported per entry
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public OnboardingResult onboardUsers(@RequestBody List<RegisterRequest> requests) {
+        return userOnboardingService.onboard(requests);
+    }
+
     @PutMapping("/{id}")
     public User updateUser(@PathVariable int id, @RequestBody User user) {
         user.setId(id);
@@ -0,0 +1,13 @@
+package com.cyclonex.trust_care.dto;
+
+import java.time.LocalDateTime;
+
+public record AuditLogExportRow(
+        int id,
+        LocalDateTime timestamp,
+        Integer userId,
+        String action,
+        String resource,
+        String requestId
+) {
+}
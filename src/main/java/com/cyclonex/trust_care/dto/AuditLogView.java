@@ -0,0 +1,14 @@
+package com.cyclonex.trust_care.dto;
+
+import java.time.LocalDateTime;
+
+public record AuditLogView(
+        int id,
+        LocalDateTime timestamp,
+        Integer userId,
+        String username,
+        String action,
+        String resource,
+        String requestId
+) {
+}
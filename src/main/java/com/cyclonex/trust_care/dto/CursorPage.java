@@ -0,0 +1,12 @@
+package com.cyclonex.trust_care.dto;
+
+import java.util.List;
+
+/**
+ * One page of a list endpoint; pass nextCursor back as ?cursor= for the next page (null on the last page)
+ */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
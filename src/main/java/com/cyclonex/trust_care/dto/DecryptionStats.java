@@ -0,0 +1,12 @@
+package com.cyclonex.trust_care.dto;
+
+public record DecryptionStats(
+        String label,
+        boolean parallel,
+        long calls,
+        long rows,
+        double averageMs,
+        double maxMs,
+        double averageRowMicros
+) {
+}
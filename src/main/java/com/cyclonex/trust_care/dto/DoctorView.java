@@ -0,0 +1,10 @@
+package com.cyclonex.trust_care.dto;
+
+public record DoctorView(
+        int id,
+        Integer userId,
+        String name,
+        String specialization,
+        String licenseNumber
+) {
+}
@@ -0,0 +1,17 @@
+package com.cyclonex.trust_care.dto;
+
+public record ExecutorStats(
+        String name,
+        boolean virtualThreads,
+        int activeCount,
+        int queueDepth,
+        int queueCapacity,
+        long submitted,
+        long completed,
+        long failed,
+        long rejected,
+        double averageWaitMs,
+        double averageRunMs,
+        double maxRunMs
+) {
+}
@@ -0,0 +1,18 @@
+package com.cyclonex.trust_care.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ImportJobStatus(
+        String id,
+        String type,
+        String status,
+        long rowsRead,
+        long rowsImported,
+        long rowsFailed,
+        List<ImportRowError> errors,
+        String error,
+        LocalDateTime createdAt,
+        LocalDateTime finishedAt
+) {
+}
@@ -0,0 +1,10 @@
+package com.cyclonex.trust_care.dto;
+
+/**
+ * A row of an import file that was not imported, by the line it starts on
+ */
+public record ImportRowError(
+        long line,
+        String message
+) {
+}
@@ -0,0 +1,9 @@
+package com.cyclonex.trust_care.dto;
+
+public record LogPartitionStats(
+        String table,
+        String newestPartition,
+        Integer monthsAhead,
+        long defaultPartitionRows
+) {
+}
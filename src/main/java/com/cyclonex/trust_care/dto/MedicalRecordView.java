@@ -0,0 +1,26 @@
+package com.cyclonex.trust_care.dto;
+
+import com.cyclonex.trust_care.entity.EncryptedText;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model of a medical record. The encrypted fields serialize as their plaintext.
+ */
+public record MedicalRecordView(
+        int id,
+        Integer patientId,
+        String patientName,
+        EncryptedText diagnosis,
+        EncryptedText treatment,
+        LocalDateTime createdAt
+) {
+
+    // Used by the repository queries, which select both the bytea and the TEXT column of each field
+    public MedicalRecordView(int id, Integer patientId, String patientName,
+                             EncryptedText diagnosisCipher, EncryptedText diagnosisText,
+                             EncryptedText treatmentCipher, EncryptedText treatmentText, LocalDateTime createdAt) {
+        this(id, patientId, patientName, EncryptedText.preferred(diagnosisCipher, diagnosisText),
+                EncryptedText.preferred(treatmentCipher, treatmentText), createdAt);
+    }
+}
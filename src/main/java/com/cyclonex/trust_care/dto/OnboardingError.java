@@ -0,0 +1,11 @@
+package com.cyclonex.trust_care.dto;
+
+/**
+ * A user of a bulk onboarding request that was not created, by its position in the request
+ */
+public record OnboardingError(
+        int index,
+        String email,
+        String message
+) {
+}
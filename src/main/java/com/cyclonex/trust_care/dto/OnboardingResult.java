@@ -0,0 +1,10 @@
+package com.cyclonex.trust_care.dto;
+
+import java.util.List;
+
+public record OnboardingResult(
+        int requested,
+        int created,
+        List<OnboardingError> errors
+) {
+}
@@ -0,0 +1,12 @@
+package com.cyclonex.trust_care.dto;
+
+import java.time.LocalDate;
+
+public record PatientView(
+        int id,
+        Integer userId,
+        String name,
+        LocalDate dob,
+        String contactInfo
+) {
+}
@@ -0,0 +1,30 @@
+package com.cyclonex.trust_care.dto;
+
+import com.cyclonex.trust_care.entity.EncryptedText;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model of a prescription. The medication serializes as its plaintext.
+ */
+public record PrescriptionView(
+        int id,
+        Integer patientId,
+        String patientName,
+        Integer doctorId,
+        String doctorName,
+        Integer medicalRecordId,
+        EncryptedText medication,
+        LocalDateTime issuedAt,
+        String status,
+        String requestId
+) {
+
+    // Used by the repository queries, which select both the bytea and the TEXT column of the medication
+    public PrescriptionView(int id, Integer patientId, String patientName, Integer doctorId, String doctorName,
+                            Integer medicalRecordId, EncryptedText medicationCipher, EncryptedText medicationText,
+                            LocalDateTime issuedAt, String status, String requestId) {
+        this(id, patientId, patientName, doctorId, doctorName, medicalRecordId,
+                EncryptedText.preferred(medicationCipher, medicationText), issuedAt, status, requestId);
+    }
+}
@@ -0,0 +1,13 @@
+package com.cyclonex.trust_care.dto;
+
+import java.time.LocalDateTime;
+
+public record RequestLogExportRow(
+        int id,
+        LocalDateTime timestamp,
+        String requestId,
+        Integer userId,
+        String operation,
+        String outcome
+) {
+}
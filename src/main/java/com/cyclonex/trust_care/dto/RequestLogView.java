@@ -0,0 +1,14 @@
+package com.cyclonex.trust_care.dto;
+
+import java.time.LocalDateTime;
+
+public record RequestLogView(
+        int id,
+        LocalDateTime timestamp,
+        String requestId,
+        Integer userId,
+        String username,
+        String operation,
+        String outcome
+) {
+}
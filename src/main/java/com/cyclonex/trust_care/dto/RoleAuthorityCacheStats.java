@@ -0,0 +1,17 @@
+package com.cyclonex.trust_care.dto;
+
+public record RoleAuthorityCacheStats(
+        int roleId,
+        String roleName,
+        Integer cachedVersion,
+        int currentVersion,
+        int authorityCount,
+        long hits,
+        long misses
+) {
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
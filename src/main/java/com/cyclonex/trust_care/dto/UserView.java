@@ -0,0 +1,13 @@
+package com.cyclonex.trust_care.dto;
+
+/**
+ * Read model of a user; never carries the password hash or the role's secret key
+ */
+public record UserView(
+        int id,
+        String username,
+        String email,
+        String roleName,
+        String status
+) {
+}
@@ -7,7 +7,8 @@ import jakarta.persistence.*;
 public class Admin {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "admin_id")
+    @SequenceGenerator(name = "admin_id", sequenceName = "admin_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
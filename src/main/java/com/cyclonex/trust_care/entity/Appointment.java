@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_id")
+    @SequenceGenerator(name = "appointment_id", sequenceName = "appointment_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
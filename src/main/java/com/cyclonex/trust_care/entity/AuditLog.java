@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class AuditLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_log_id")
+    @SequenceGenerator(name = "audit_log_id", sequenceName = "audit_log_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -28,9 +29,12 @@ public class AuditLog {
     @Column(name = "request_id")
     private String requestId;
 
+    // Callers may stamp the time the event happened; otherwise it is the time of the insert
     @PrePersist
     protected void onCreate() {
-        timestamp = LocalDateTime.now();
+        if (timestamp == null) {
+            timestamp = LocalDateTime.now();
+        }
     }
 
     public int getId() {
@@ -1,13 +1,17 @@
 package com.cyclonex.trust_care.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 
 @Entity
 @Table(name = "doctor")
+// Referenced lazily from prescriptions and medical records; Hibernate proxy internals are not serialized
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Doctor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "doctor_id")
+    @SequenceGenerator(name = "doctor_id", sequenceName = "doctor_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -0,0 +1,42 @@
+package com.cyclonex.trust_care.entity;
+
+import com.cyclonex.trust_care.service.EncryptionService;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps an encrypted bytea column to {@link EncryptedText} without decrypting it.
+ * New values are only written here in binary storage mode; otherwise they go to the TEXT column, and a
+ * value loaded from this column is written back unchanged so that saving the entity cannot clear it.
+ */
+@Component
+@Converter
+public class EncryptedBinaryConverter implements AttributeConverter<EncryptedText, byte[]> {
+
+    private final EncryptionService encryptionService;
+
+    @Autowired
+    public EncryptedBinaryConverter(EncryptionService encryptionService) {
+        this.encryptionService = encryptionService;
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(EncryptedText attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        if (!encryptionService.isBinaryStorage()) {
+            return attribute.storedAs(byte[].class);
+        }
+        return attribute.getStored(byte[].class,
+                plainText -> encryptionService.encryptToBytes(plainText, attribute.getPatientId()),
+                text -> encryptionService.toBinary((String) text));
+    }
+
+    @Override
+    public EncryptedText convertToEntityAttribute(byte[] dbData) {
+        return dbData != null ? EncryptedText.fromStored(dbData, stored -> encryptionService.decrypt((byte[]) stored)) : null;
+    }
+}
@@ -0,0 +1,104 @@
+package com.cyclonex.trust_care.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import org.hibernate.annotations.Immutable;
+
+import java.util.function.Function;
+
+/**
+ * An encrypted column value.
+ * Values loaded from the database hold only the stored ciphertext (Base64 text or bytea) and
+ * decrypt on first read, which normally happens when the entity is serialized; the plaintext is
+ * then kept for the life of the holder, i.e. the current persistence context. Values built from request bodies hold
+ * only the plaintext and are encrypted once when they are written.
+ * New values are encrypted under the data key of the patient they are bound to.
+ * The holder's value is never changed in place, so Hibernate treats it as immutable and a loaded
+ * value is never written back unless the entity is given a new holder.
+ */
+@Immutable
+public final class EncryptedText {
+
+    private final Function<Object, String> decryptor;
+    private volatile Object stored;
+    private volatile String plaintext;
+    private volatile Integer patientId;
+
+    private EncryptedText(Object stored, String plaintext, Function<Object, String> decryptor) {
+        this.stored = stored;
+        this.plaintext = plaintext;
+        this.decryptor = decryptor;
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static EncryptedText of(String plaintext) {
+        return plaintext != null ? new EncryptedText(null, plaintext, null) : null;
+    }
+
+    /**
+     * The value of a field stored in both forms: the bytea column when set, otherwise the TEXT column
+     */
+    public static EncryptedText preferred(EncryptedText cipher, EncryptedText text) {
+        return cipher != null ? cipher : text;
+    }
+
+    static EncryptedText fromStored(Object stored, Function<Object, String> decryptor) {
+        return new EncryptedText(stored, null, decryptor);
+    }
+
+    /**
+     * The plaintext, decrypted on first call
+     */
+    @JsonValue
+    public String getPlaintext() {
+        String value = plaintext;
+        if (value == null) {
+            value = decryptor.apply(stored);
+            plaintext = value;
+        }
+        return value;
+    }
+
+    /**
+     * The patient whose data key encrypts a new value; set by the owning entity before it is written
+     */
+    void bindPatient(Integer patientId) {
+        this.patientId = patientId;
+    }
+
+    Integer getPatientId() {
+        return patientId;
+    }
+
+    public boolean isDecrypted() {
+        return plaintext != null;
+    }
+
+    /**
+     * The stored ciphertext in the requested form. A new value is encrypted the first time it is
+     * written; a loaded value in the other form is converted, which needs no crypto work.
+     */
+    <T> T getStored(Class<T> form, Function<String, T> encryptor, Function<Object, T> converter) {
+        Object value = stored;
+        if (value == null) {
+            T encrypted = encryptor.apply(plaintext);
+            stored = encrypted;
+            return encrypted;
+        }
+        return form.isInstance(value) ? form.cast(value) : converter.apply(value);
+    }
+
+    /**
+     * The ciphertext this holder already has in the given form, without encrypting or converting; null otherwise
+     */
+    <T> T storedAs(Class<T> form) {
+        Object value = stored;
+        return form.isInstance(value) ? form.cast(value) : null;
+    }
+
+    @Override
+    public String toString() {
+        // Never expose the plaintext through logging
+        return "EncryptedText[" + (isDecrypted() ? "decrypted" : "encrypted") + "]";
+    }
+}
@@ -0,0 +1,44 @@
+package com.cyclonex.trust_care.entity;
+
+import com.cyclonex.trust_care.service.EncryptionService;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps an encrypted Base64 TEXT column to {@link EncryptedText} without decrypting it.
+ * Hibernate obtains this converter from the Spring context so it can use EncryptionService.
+ * In binary storage mode new values are not written to the TEXT column (see {@link EncryptedBinaryConverter}),
+ * but a value loaded from it is written back as it was: Hibernate updates every column of a row, and
+ * clearing it would lose an unmigrated value whenever the entity is saved for another change.
+ */
+@Component
+@Converter
+public class EncryptedTextConverter implements AttributeConverter<EncryptedText, String> {
+
+    private final EncryptionService encryptionService;
+
+    @Autowired
+    public EncryptedTextConverter(EncryptionService encryptionService) {
+        this.encryptionService = encryptionService;
+    }
+
+    @Override
+    public String convertToDatabaseColumn(EncryptedText attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        if (encryptionService.isBinaryStorage()) {
+            return attribute.storedAs(String.class);
+        }
+        return attribute.getStored(String.class,
+                plainText -> encryptionService.encrypt(plainText, attribute.getPatientId()),
+                binary -> encryptionService.toText((byte[]) binary));
+    }
+
+    @Override
+    public EncryptedText convertToEntityAttribute(String dbData) {
+        return dbData != null ? EncryptedText.fromStored(dbData, stored -> encryptionService.decrypt((String) stored)) : null;
+    }
+}
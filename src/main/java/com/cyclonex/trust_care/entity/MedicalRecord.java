@@ -1,26 +1,50 @@
 package com.cyclonex.trust_care.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "medical_record")
+// Referenced lazily from prescriptions; Hibernate proxy internals are not serialized
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class MedicalRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medical_record_id")
+    @SequenceGenerator(name = "medical_record_id", sequenceName = "medical_record_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", referencedColumnName = "id")
     private Patient patient;
 
+    @Convert(converter = EncryptedTextConverter.class)
     @Column(name = "diagnosis_encrypted")
-    private String diagnosisEncrypted;
+    private EncryptedText diagnosisEncrypted;
 
+    // Binary storage of the same value; read in preference to the TEXT column
+    @JsonIgnore
+    @Convert(converter = EncryptedBinaryConverter.class)
+    @Column(name = "diagnosis_cipher")
+    private EncryptedText diagnosisCipher;
+
+    @Convert(converter = EncryptedTextConverter.class)
     @Column(name = "treatment_encrypted")
-    private String treatmentEncrypted;
+    private EncryptedText treatmentEncrypted;
+
+    // Binary storage of the same value; read in preference to the TEXT column
+    @JsonIgnore
+    @Convert(converter = EncryptedBinaryConverter.class)
+    @Column(name = "treatment_cipher")
+    private EncryptedText treatmentCipher;
+
+    // Blind index of the normalized plaintext, for exact-match search
+    @JsonIgnore
+    @Column(name = "diagnosis_bidx", length = 64)
+    private String diagnosisBidx;
 
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -28,6 +52,25 @@ public class MedicalRecord {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        bindEncryptedFields();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        bindEncryptedFields();
+    }
+
+    // New values are encrypted under this patient's data key
+    private void bindEncryptedFields() {
+        Integer patientId = patient != null && patient.getId() > 0 ? patient.getId() : null;
+        EncryptedText diagnosis = getDiagnosisEncrypted();
+        if (diagnosis != null) {
+            diagnosis.bindPatient(patientId);
+        }
+        EncryptedText treatment = getTreatmentEncrypted();
+        if (treatment != null) {
+            treatment.bindPatient(patientId);
+        }
     }
 
     public int getId() {
@@ -46,20 +89,32 @@ public class MedicalRecord {
         this.patient = patient;
     }
 
-    public String getDiagnosisEncrypted() {
-        return diagnosisEncrypted;
+    public EncryptedText getDiagnosisEncrypted() {
+        return EncryptedText.preferred(diagnosisCipher, diagnosisEncrypted);
     }
 
-    public void setDiagnosisEncrypted(String diagnosisEncrypted) {
+    // Both columns share the holder; its converters write it to whichever column the storage mode uses
+    public void setDiagnosisEncrypted(EncryptedText diagnosisEncrypted) {
         this.diagnosisEncrypted = diagnosisEncrypted;
+        this.diagnosisCipher = diagnosisEncrypted;
     }
 
-    public String getTreatmentEncrypted() {
-        return treatmentEncrypted;
+    public EncryptedText getTreatmentEncrypted() {
+        return EncryptedText.preferred(treatmentCipher, treatmentEncrypted);
     }
 
-    public void setTreatmentEncrypted(String treatmentEncrypted) {
+    // Both columns share the holder; its converters write it to whichever column the storage mode uses
+    public void setTreatmentEncrypted(EncryptedText treatmentEncrypted) {
         this.treatmentEncrypted = treatmentEncrypted;
+        this.treatmentCipher = treatmentEncrypted;
+    }
+
+    public String getDiagnosisBidx() {
+        return diagnosisBidx;
+    }
+
+    public void setDiagnosisBidx(String diagnosisBidx) {
+        this.diagnosisBidx = diagnosisBidx;
     }
 
     public LocalDateTime getCreatedAt() {
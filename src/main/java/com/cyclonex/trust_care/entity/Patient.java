@@ -1,14 +1,18 @@
 package com.cyclonex.trust_care.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "patient")
+// Referenced lazily from prescriptions and medical records; Hibernate proxy internals are not serialized
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Patient {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_id")
+    @SequenceGenerator(name = "patient_id", sequenceName = "patient_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -7,7 +7,8 @@ import jakarta.persistence.*;
 public class Permission {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "permission_id")
+    @SequenceGenerator(name = "permission_id", sequenceName = "permission_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -1,5 +1,6 @@
 package com.cyclonex.trust_care.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
@@ -8,24 +9,37 @@ import java.time.LocalDateTime;
 public class Prescription {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prescription_id")
+    @SequenceGenerator(name = "prescription_id", sequenceName = "prescription_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", referencedColumnName = "id")
     private Patient patient;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", referencedColumnName = "id")
     private Doctor doctor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "medical_record_id", referencedColumnName = "id")
     private MedicalRecord medicalRecord;
 
+    @Convert(converter = EncryptedTextConverter.class)
     @Column(name = "medication_encrypted")
-    private String medicationEncrypted;
+    private EncryptedText medicationEncrypted;
+
+    // Binary storage of the same value; read in preference to the TEXT column
+    @JsonIgnore
+    @Convert(converter = EncryptedBinaryConverter.class)
+    @Column(name = "medication_cipher")
+    private EncryptedText medicationCipher;
+
+    // Blind index of the normalized plaintext, for exact-match search
+    @JsonIgnore
+    @Column(name = "medication_bidx", length = 64)
+    private String medicationBidx;
 
     @Column(name = "issued_at")
     private LocalDateTime issuedAt;
@@ -39,6 +53,21 @@ public class Prescription {
     @PrePersist
     protected void onCreate() {
         issuedAt = LocalDateTime.now();
+        bindEncryptedFields();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        bindEncryptedFields();
+    }
+
+    // New values are encrypted under this patient's data key
+    private void bindEncryptedFields() {
+        Integer patientId = patient != null && patient.getId() > 0 ? patient.getId() : null;
+        EncryptedText medication = getMedicationEncrypted();
+        if (medication != null) {
+            medication.bindPatient(patientId);
+        }
     }
 
     public int getId() {
@@ -73,12 +102,22 @@ public class Prescription {
         this.medicalRecord = medicalRecord;
     }
 
-    public String getMedicationEncrypted() {
-        return medicationEncrypted;
+    public EncryptedText getMedicationEncrypted() {
+        return EncryptedText.preferred(medicationCipher, medicationEncrypted);
     }
 
-    public void setMedicationEncrypted(String medicationEncrypted) {
+    // Both columns share the holder; its converters write it to whichever column the storage mode uses
+    public void setMedicationEncrypted(EncryptedText medicationEncrypted) {
         this.medicationEncrypted = medicationEncrypted;
+        this.medicationCipher = medicationEncrypted;
+    }
+
+    public String getMedicationBidx() {
+        return medicationBidx;
+    }
+
+    public void setMedicationBidx(String medicationBidx) {
+        this.medicationBidx = medicationBidx;
     }
 
     public LocalDateTime getIssuedAt() {
@@ -0,0 +1,123 @@
+package com.cyclonex.trust_care.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the re-encryption job for one table, so it can resume after a restart
+ */
+@Entity
+@Table(name = "reencryption_checkpoint")
+public class ReencryptionCheckpoint {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_STOPPED = "STOPPED";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @Column(name = "table_name")
+    private String tableName;
+
+    @Column(name = "key_id")
+    private String keyId;
+
+    @Column(name = "last_id")
+    private int lastId;
+
+    @Column(name = "rows_scanned")
+    private long rowsScanned;
+
+    @Column(name = "rows_updated")
+    private long rowsUpdated;
+
+    @Column(name = "status")
+    private String status;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public void setKeyId(String keyId) {
+        this.keyId = keyId;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(int lastId) {
+        this.lastId = lastId;
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public void setRowsScanned(long rowsScanned) {
+        this.rowsScanned = rowsScanned;
+    }
+
+    public long getRowsUpdated() {
+        return rowsUpdated;
+    }
+
+    public void setRowsUpdated(long rowsUpdated) {
+        this.rowsUpdated = rowsUpdated;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class RequestLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "request_log_id")
+    @SequenceGenerator(name = "request_log_id", sequenceName = "request_log_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -28,9 +29,12 @@ public class RequestLog {
     @Column(name = "timestamp")
     private LocalDateTime timestamp;
 
+    // Callers may stamp the time the event happened; otherwise it is the time of the insert
     @PrePersist
     protected void onCreate() {
-        timestamp = LocalDateTime.now();
+        if (timestamp == null) {
+            timestamp = LocalDateTime.now();
+        }
     }
 
     public int getId() {
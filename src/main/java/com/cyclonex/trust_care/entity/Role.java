@@ -7,7 +7,8 @@ import jakarta.persistence.*;
 public class Role {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "role_id")
+    @SequenceGenerator(name = "role_id", sequenceName = "role_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -20,6 +21,12 @@ public class Role {
     @Column(name = "description")
     private String description;
 
+    // Bumped whenever the role's permission set changes, so self-contained tokens can detect staleness
+    // Only changed through RoleRepository.incrementPermissionsVersion, never by saving the entity
+    @Column(name = "permissions_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "integer default 0")
+    private int permissionsVersion;
+
     public int getId() {
         return id;
     }
@@ -51,4 +58,12 @@ public class Role {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    public int getPermissionsVersion() {
+        return permissionsVersion;
+    }
+
+    public void setPermissionsVersion(int permissionsVersion) {
+        this.permissionsVersion = permissionsVersion;
+    }
 }
@@ -7,7 +7,8 @@ import jakarta.persistence.*;
 public class RolePermission {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "role_permission_id")
+    @SequenceGenerator(name = "role_permission_id", sequenceName = "role_permission_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -1,5 +1,6 @@
 package com.cyclonex.trust_care.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.*;
@@ -9,7 +10,8 @@ import jakarta.persistence.*;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id")
+    @SequenceGenerator(name = "user_id", sequenceName = "user_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -30,6 +32,12 @@ public class User {
     @Column(name = "status")
     private String status;
 
+    // Stamped into self-contained tokens; only changed through UserRepository.incrementTokenVersion
+    @JsonIgnore
+    @Column(name = "token_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "integer default 0")
+    private int tokenVersion;
+
     public int getId() {
         return id;
     }
@@ -77,4 +85,12 @@ public class User {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
 }
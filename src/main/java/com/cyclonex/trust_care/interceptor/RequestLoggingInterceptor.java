@@ -3,12 +3,11 @@ package com.cyclonex.trust_care.interceptor;
 import com.cyclonex.trust_care.entity.RequestLog;
 import com.cyclonex.trust_care.entity.User;
 import com.cyclonex.trust_care.repository.UserRepository;
+import com.cyclonex.trust_care.security.RequestPrincipal;
 import com.cyclonex.trust_care.service.RequestLogService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
@@ -19,11 +18,14 @@ public class RequestLoggingInterceptor implements HandlerInterceptor {
 
     private final RequestLogService requestLogService;
     private final UserRepository userRepository;
+    private final RequestPrincipal requestPrincipal;
 
     @Autowired
-    public RequestLoggingInterceptor(RequestLogService requestLogService, UserRepository userRepository) {
+    public RequestLoggingInterceptor(RequestLogService requestLogService, UserRepository userRepository,
+                                     RequestPrincipal requestPrincipal) {
         this.requestLogService = requestLogService;
         this.userRepository = userRepository;
+        this.requestPrincipal = requestPrincipal;
     }
 
     @Override
@@ -42,13 +44,8 @@ public class RequestLoggingInterceptor implements HandlerInterceptor {
         String endpoint = request.getRequestURI();
         int responseStatus = response.getStatus();
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User user = null;
-
-        if (authentication != null && authentication.isAuthenticated() && !"anonymousUser".equals(authentication.getPrincipal())) {
-            String email = authentication.getName();
-            user = userRepository.findByEmail(email);
-        }
+        // Attach the user by id without a SELECT
+        User user = requestPrincipal.isResolved() ? userRepository.getReferenceById(requestPrincipal.getUserId()) : null;
 
         RequestLog requestLog = new RequestLog();
         requestLog.setRequestId(requestId);
@@ -56,6 +53,7 @@ public class RequestLoggingInterceptor implements HandlerInterceptor {
         requestLog.setOperation(method + " " + endpoint);
         requestLog.setOutcome(responseStatus >= 200 && responseStatus < 300 ? "success" : "failure");
 
-        requestLogService.saveRequestLog(requestLog);
+        // Queued; the insert happens off the request thread, batched with other requests' entries
+        requestLogService.logRequest(requestLog);
     }
 }
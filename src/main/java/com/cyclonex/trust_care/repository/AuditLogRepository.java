@@ -1,16 +1,53 @@
 package com.cyclonex.trust_care.repository;
 
+import com.cyclonex.trust_care.dto.AuditLogExportRow;
+import com.cyclonex.trust_care.dto.AuditLogView;
 import com.cyclonex.trust_care.entity.AuditLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AuditLogRepository extends JpaRepository<AuditLog, Integer> {
-    List<AuditLog> findByUser_Id(Integer userId);
-    List<AuditLog> findByAction(String action);
-    List<AuditLog> findByResource(String resource);
-    List<AuditLog> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
+
+    // Responses are read as flat views: the user's id and name, nothing else of the user or its role
+    String SELECT_VIEW = "select new com.cyclonex.trust_care.dto.AuditLogView(a.id, a.timestamp, u.id, u.username, a.action, a.resource, a.requestId) "
+            + "from AuditLog a left join a.user u ";
+
+    @Query(SELECT_VIEW + "where a.id = :id")
+    Optional<AuditLogView> findViewById(@Param("id") int id);
+
+    // Keyset pages, newest first, continuing before the (timestamp, id) of the previous page's last row;
+    // the upper bound on timestamp lets PostgreSQL skip newer partitions and start each index scan at the cursor
+    @Query(SELECT_VIEW + "where a.timestamp <= :ts and (a.timestamp < :ts or a.id < :id) order by a.timestamp desc, a.id desc")
+    List<AuditLogView> findViewPageBefore(@Param("ts") LocalDateTime ts, @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where u.id = :userId and a.timestamp <= :ts and (a.timestamp < :ts or a.id < :id) order by a.timestamp desc, a.id desc")
+    List<AuditLogView> findViewPageBeforeByUserId(@Param("userId") Integer userId, @Param("ts") LocalDateTime ts, @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where a.action = :action and a.timestamp <= :ts and (a.timestamp < :ts or a.id < :id) order by a.timestamp desc, a.id desc")
+    List<AuditLogView> findViewPageBeforeByAction(@Param("action") String action, @Param("ts") LocalDateTime ts, @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where a.resource = :resource and a.timestamp <= :ts and (a.timestamp < :ts or a.id < :id) order by a.timestamp desc, a.id desc")
+    List<AuditLogView> findViewPageBeforeByResource(@Param("resource") String resource, @Param("ts") LocalDateTime ts, @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where a.timestamp between :start and :end and a.timestamp <= :ts and (a.timestamp < :ts or a.id < :id) order by a.timestamp desc, a.id desc")
+    List<AuditLogView> findViewPageBeforeByTimestampBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end, @Param("ts") LocalDateTime ts, @Param("id") int id, Limit limit);
+
+    // Export rows as flat projections, read through a server-side cursor; must be consumed inside a transaction
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select new com.cyclonex.trust_care.dto.AuditLogExportRow(a.id, a.timestamp, u.id, a.action, a.resource, a.requestId) from AuditLog a left join a.user u " +
+           "where a.timestamp between :start and :end order by a.timestamp, a.id")
+    Stream<AuditLogExportRow> streamForExport(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 }
@@ -1,14 +1,37 @@
 package com.cyclonex.trust_care.repository;
 
+import com.cyclonex.trust_care.dto.DoctorView;
 import com.cyclonex.trust_care.entity.Doctor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Integer> {
-    Doctor findByUser_Id(int userId);
-    Doctor findByLicenseNumber(String licenseNumber);
-    List<Doctor> findBySpecialization(String specialization);
+
+    // Responses are read as flat views; the user is referenced by its foreign key only
+    String SELECT_VIEW = "select new com.cyclonex.trust_care.dto.DoctorView(d.id, d.user.id, d.name, d.specialization, d.licenseNumber) "
+            + "from Doctor d ";
+
+    @Query(SELECT_VIEW + "where d.id = :id")
+    Optional<DoctorView> findViewById(@Param("id") int id);
+
+    @Query(SELECT_VIEW + "where d.user.id = :userId")
+    Optional<DoctorView> findViewByUserId(@Param("userId") int userId);
+
+    @Query(SELECT_VIEW + "where d.licenseNumber = :licenseNumber")
+    Optional<DoctorView> findViewByLicenseNumber(@Param("licenseNumber") String licenseNumber);
+
+    @Query(SELECT_VIEW + "where d.specialization = :specialization and d.id > :id order by d.id")
+    List<DoctorView> findViewPageBySpecializationAfter(@Param("specialization") String specialization,
+                                                       @Param("id") int id, Limit limit);
+
+    // Keyset pages in id order, continuing after the previous page's last id
+    @Query(SELECT_VIEW + "where d.id > :id order by d.id")
+    List<DoctorView> findViewPageAfter(@Param("id") int id, Limit limit);
 }
@@ -0,0 +1,27 @@
+package com.cyclonex.trust_care.repository;
+
+import com.cyclonex.trust_care.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Integer> {
+
+    // Rows locked by another dispatcher are skipped, so several instances can drain the outbox together.
+    // SENDING rows are due again once their lease (next_attempt_at) has run out.
+    @Query(value = "SELECT * FROM email_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDueMessages(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM email_outbox WHERE status IN ('SENT', 'FAILED') AND created_at < :before", nativeQuery = true)
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+
+    long countByStatus(String status);
+}
@@ -1,12 +1,36 @@
 package com.cyclonex.trust_care.repository;
 
+import com.cyclonex.trust_care.dto.MedicalRecordView;
 import com.cyclonex.trust_care.entity.MedicalRecord;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Integer> {
-    List<MedicalRecord> findByPatientId(int patientId);
+
+    // Responses are read as flat views: the record's columns and the patient's name, nothing of the patient's user
+    String SELECT_VIEW = "select new com.cyclonex.trust_care.dto.MedicalRecordView(m.id, p.id, p.name, "
+            + "m.diagnosisCipher, m.diagnosisEncrypted, m.treatmentCipher, m.treatmentEncrypted, m.createdAt) "
+            + "from MedicalRecord m left join m.patient p ";
+
+    @Query(SELECT_VIEW + "where m.id = :id")
+    Optional<MedicalRecordView> findViewById(@Param("id") int id);
+
+    // Keyset pages in id order, continuing after the previous page's last id
+    @Query(SELECT_VIEW + "where m.id > :id order by m.id")
+    List<MedicalRecordView> findViewPageAfter(@Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where p.id = :patientId and m.id > :id order by m.id")
+    List<MedicalRecordView> findViewPageByPatientIdAfter(@Param("patientId") int patientId,
+                                                         @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where m.diagnosisBidx = :diagnosisBidx and m.id > :id order by m.id")
+    List<MedicalRecordView> findViewPageByDiagnosisBidxAfter(@Param("diagnosisBidx") String diagnosisBidx,
+                                                             @Param("id") int id, Limit limit);
 }
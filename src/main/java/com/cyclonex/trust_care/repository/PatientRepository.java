@@ -1,10 +1,30 @@
 package com.cyclonex.trust_care.repository;
 
+import com.cyclonex.trust_care.dto.PatientView;
 import com.cyclonex.trust_care.entity.Patient;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Integer> {
-    Patient findByUser_Id(int userId);
+
+    // Responses are read as flat views; the user is referenced by its foreign key only
+    String SELECT_VIEW = "select new com.cyclonex.trust_care.dto.PatientView(p.id, p.user.id, p.name, p.dob, p.contactInfo) "
+            + "from Patient p ";
+
+    @Query(SELECT_VIEW + "where p.id = :id")
+    Optional<PatientView> findViewById(@Param("id") int id);
+
+    @Query(SELECT_VIEW + "where p.user.id = :userId")
+    Optional<PatientView> findViewByUserId(@Param("userId") int userId);
+
+    // Keyset pages in id order, continuing after the previous page's last id
+    @Query(SELECT_VIEW + "where p.id > :id order by p.id")
+    List<PatientView> findViewPageAfter(@Param("id") int id, Limit limit);
 }
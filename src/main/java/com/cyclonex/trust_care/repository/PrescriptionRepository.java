@@ -1,13 +1,41 @@
 package com.cyclonex.trust_care.repository;
 
+import com.cyclonex.trust_care.dto.PrescriptionView;
 import com.cyclonex.trust_care.entity.Prescription;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PrescriptionRepository extends JpaRepository<Prescription, Integer> {
-    List<Prescription> findByPatient_Id(int patientId);
-    List<Prescription> findByDoctor_Id(int doctorId);
+
+    // Responses are read as flat views: the prescription's columns with the patient and doctor names;
+    // the medical record is referenced by its foreign key only
+    String SELECT_VIEW = "select new com.cyclonex.trust_care.dto.PrescriptionView(r.id, p.id, p.name, d.id, d.name, "
+            + "r.medicalRecord.id, r.medicationCipher, r.medicationEncrypted, r.issuedAt, r.status, r.requestId) "
+            + "from Prescription r left join r.patient p left join r.doctor d ";
+
+    @Query(SELECT_VIEW + "where r.id = :id")
+    Optional<PrescriptionView> findViewById(@Param("id") int id);
+
+    // Keyset pages in id order, continuing after the previous page's last id
+    @Query(SELECT_VIEW + "where r.id > :id order by r.id")
+    List<PrescriptionView> findViewPageAfter(@Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where p.id = :patientId and r.id > :id order by r.id")
+    List<PrescriptionView> findViewPageByPatientIdAfter(@Param("patientId") int patientId,
+                                                        @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where d.id = :doctorId and r.id > :id order by r.id")
+    List<PrescriptionView> findViewPageByDoctorIdAfter(@Param("doctorId") int doctorId,
+                                                       @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.medicationBidx = :medicationBidx and r.id > :id order by r.id")
+    List<PrescriptionView> findViewPageByMedicationBidxAfter(@Param("medicationBidx") String medicationBidx,
+                                                             @Param("id") int id, Limit limit);
 }
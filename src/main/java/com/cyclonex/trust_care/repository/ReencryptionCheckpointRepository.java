@@ -0,0 +1,13 @@
+package com.cyclonex.trust_care.repository;
+
+import com.cyclonex.trust_care.entity.ReencryptionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReencryptionCheckpointRepository extends JpaRepository<ReencryptionCheckpoint, String> {
+
+    List<ReencryptionCheckpoint> findByStatus(String status);
+}
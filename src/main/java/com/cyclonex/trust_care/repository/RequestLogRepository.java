@@ -1,17 +1,56 @@
 package com.cyclonex.trust_care.repository;
 
+import com.cyclonex.trust_care.dto.RequestLogExportRow;
+import com.cyclonex.trust_care.dto.RequestLogView;
 import com.cyclonex.trust_care.entity.RequestLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RequestLogRepository extends JpaRepository<RequestLog, Integer> {
-    RequestLog findByRequestId(String requestId);
-    List<RequestLog> findByUser_Id(Integer userId);
-    List<RequestLog> findByOperation(String operation);
-    List<RequestLog> findByOutcome(String outcome);
-    List<RequestLog> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
+
+    // Responses are read as flat views: the user's id and name, nothing else of the user or its role
+    String SELECT_VIEW = "select new com.cyclonex.trust_care.dto.RequestLogView(r.id, r.timestamp, r.requestId, u.id, u.username, r.operation, r.outcome) "
+            + "from RequestLog r left join r.user u ";
+
+    @Query(SELECT_VIEW + "where r.id = :id")
+    Optional<RequestLogView> findViewById(@Param("id") int id);
+
+    @Query(SELECT_VIEW + "where r.requestId = :requestId")
+    Optional<RequestLogView> findViewByRequestId(@Param("requestId") String requestId);
+
+    // Keyset pages, newest first, continuing before the (timestamp, id) of the previous page's last row;
+    // the upper bound on timestamp lets PostgreSQL skip newer partitions and start each index scan at the cursor
+    @Query(SELECT_VIEW + "where r.timestamp <= :ts and (r.timestamp < :ts or r.id < :id) order by r.timestamp desc, r.id desc")
+    List<RequestLogView> findViewPageBefore(@Param("ts") LocalDateTime ts, @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where u.id = :userId and r.timestamp <= :ts and (r.timestamp < :ts or r.id < :id) order by r.timestamp desc, r.id desc")
+    List<RequestLogView> findViewPageBeforeByUserId(@Param("userId") Integer userId, @Param("ts") LocalDateTime ts, @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.operation = :operation and r.timestamp <= :ts and (r.timestamp < :ts or r.id < :id) order by r.timestamp desc, r.id desc")
+    List<RequestLogView> findViewPageBeforeByOperation(@Param("operation") String operation, @Param("ts") LocalDateTime ts, @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.outcome = :outcome and r.timestamp <= :ts and (r.timestamp < :ts or r.id < :id) order by r.timestamp desc, r.id desc")
+    List<RequestLogView> findViewPageBeforeByOutcome(@Param("outcome") String outcome, @Param("ts") LocalDateTime ts, @Param("id") int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.timestamp between :start and :end and r.timestamp <= :ts and (r.timestamp < :ts or r.id < :id) order by r.timestamp desc, r.id desc")
+    List<RequestLogView> findViewPageBeforeByTimestampBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end, @Param("ts") LocalDateTime ts, @Param("id") int id, Limit limit);
+
+    // Export rows as flat projections, read through a server-side cursor; must be consumed inside a transaction
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select new com.cyclonex.trust_care.dto.RequestLogExportRow(r.id, r.timestamp, r.requestId, u.id, r.operation, r.outcome) from RequestLog r left join r.user u " +
+           "where r.timestamp between :start and :end order by r.timestamp, r.id")
+    Stream<RequestLogExportRow> streamForExport(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 }
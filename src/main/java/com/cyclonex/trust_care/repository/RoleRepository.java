@@ -2,9 +2,24 @@ package com.cyclonex.trust_care.repository;
 
 import com.cyclonex.trust_care.entity.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Integer> {
      Role findByRoleName(String roleName);
+
+     List<Role> findByRoleNameIn(Collection<String> roleNames);
+
+     @Query("select r.permissionsVersion from Role r where r.id = :roleId")
+     Integer findPermissionsVersionById(@Param("roleId") int roleId);
+
+     @Modifying
+     @Query("update Role r set r.permissionsVersion = r.permissionsVersion + 1 where r.id = :roleId")
+     int incrementPermissionsVersion(@Param("roleId") int roleId);
 }
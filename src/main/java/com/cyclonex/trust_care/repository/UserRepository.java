@@ -1,11 +1,48 @@
 package com.cyclonex.trust_care.repository;
 
+import com.cyclonex.trust_care.dto.UserView;
 import com.cyclonex.trust_care.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
     User findByUsername(String username);
     User findByEmail(String email);
+
+    @Query("select u.tokenVersion from User u where u.id = :userId")
+    Integer findTokenVersionById(@Param("userId") int userId);
+
+    @Modifying
+    @Query("update User u set u.tokenVersion = u.tokenVersion + 1 where u.id = :userId")
+    int incrementTokenVersion(@Param("userId") int userId);
+
+    // Which of the given emails / usernames are taken, for checking a whole onboarding batch at once
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // Responses are read as flat views: only the role's name, never the password hash or the role's secret key
+    String SELECT_VIEW = "select new com.cyclonex.trust_care.dto.UserView(u.id, u.username, u.email, r.roleName, u.status) "
+            + "from User u left join u.role r ";
+
+    @Query(SELECT_VIEW + "where u.id = :id")
+    Optional<UserView> findViewById(@Param("id") int id);
+
+    @Query(SELECT_VIEW + "where u.username = :username")
+    Optional<UserView> findViewByUsername(@Param("username") String username);
+
+    // Keyset pages in id order, continuing after the previous page's last id
+    @Query(SELECT_VIEW + "where u.id > :id order by u.id")
+    List<UserView> findViewPageAfter(@Param("id") int id, Limit limit);
 }
@@ -1,11 +1,15 @@
 package com.cyclonex.trust_care.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.cyclonex.trust_care.service.PermissionVersionService;
+import com.cyclonex.trust_care.service.UserTokenVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -14,18 +18,35 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Request attribute holding the verified claims, so later stages never re-parse the token
+    public static final String JWT_CLAIMS_ATTRIBUTE = "jwtClaims";
+
     private final JwtTokenProvider jwtTokenProvider;
 
     private final UserDetailsService userDetailsService;
 
+    private final PermissionVersionService permissionVersionService;
+
+    private final UserTokenVersionService userTokenVersionService;
+
+    private final RequestPrincipal requestPrincipal;
+
     @Autowired
-    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider,
+                                   UserDetailsService userDetailsService,
+                                   PermissionVersionService permissionVersionService,
+                                   UserTokenVersionService userTokenVersionService,
+                                   RequestPrincipal requestPrincipal) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.permissionVersionService = permissionVersionService;
+        this.userTokenVersionService = userTokenVersionService;
+        this.requestPrincipal = requestPrincipal;
     }
 
     @Override
@@ -36,16 +57,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = getJwtFromRequest(request);
 
             if (token != null && !token.isEmpty()) {
-                String email = jwtTokenProvider.extractUsername(token);
+                // Signature and expiry are verified once here; everything below works on the claims
+                Claims claims = jwtTokenProvider.verifyToken(token);
+                request.setAttribute(JWT_CLAIMS_ATTRIBUTE, claims);
+                String email = claims.getSubject();
 
                 if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                    UserDetails userDetails = resolveUserDetails(claims, email);
 
-                    if (Boolean.TRUE.equals(jwtTokenProvider.validateToken(token, userDetails))) {
+                    if (Boolean.TRUE.equals(jwtTokenProvider.validateClaims(claims, userDetails))) {
                         UsernamePasswordAuthenticationToken authenticationToken =
                                 new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                         authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+
+                        if (userDetails instanceof TrustCareUserDetails trustCareUserDetails) {
+                            requestPrincipal.resolve(trustCareUserDetails);
+                        }
                     }
                 }
             }
@@ -56,6 +84,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Build the user from a self-contained token while both the role's permissions version and the
+     * user's token version are current, otherwise fall back to loading the user and authorities from the database
+     */
+    private UserDetails resolveUserDetails(Claims claims, String email) {
+        if (jwtTokenProvider.isSelfContained(claims)) {
+            int roleId = claims.get(JwtTokenProvider.CLAIM_ROLE_ID, Integer.class);
+            int userId = claims.get(JwtTokenProvider.CLAIM_USER_ID, Integer.class);
+            int version = claims.get(JwtTokenProvider.CLAIM_PERMISSIONS_VERSION, Integer.class);
+            int tokenVersion = claims.get(JwtTokenProvider.CLAIM_TOKEN_VERSION, Integer.class);
+
+            if (permissionVersionService.isCurrent(roleId, version)
+                    && userTokenVersionService.isCurrent(userId, tokenVersion)) {
+                List<SimpleGrantedAuthority> authorities = ((List<?>) claims.get(JwtTokenProvider.CLAIM_AUTHORITIES)).stream()
+                        .map(authority -> new SimpleGrantedAuthority(String.valueOf(authority)))
+                        .toList();
+                return new TrustCareUserDetails(email, "", authorities,
+                        userId,
+                        roleId,
+                        claims.get(JwtTokenProvider.CLAIM_ROLE, String.class));
+            }
+        }
+        return userDetailsService.loadUserByUsername(email);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
@@ -1,53 +1,133 @@
 package com.cyclonex.trust_care.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 @Component
 public class JwtTokenProvider {
 
+    // Claims carried by self-contained tokens
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE_ID = "rid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_AUTHORITIES = "auth";
+    public static final String CLAIM_PERMISSIONS_VERSION = "pv";
+    public static final String CLAIM_TOKEN_VERSION = "tv";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private long jwtExpirationInMs;
 
+    @Value("${jwt.self-contained.enabled:true}")
+    private boolean selfContainedEnabled;
+
+    @Value("${jwt.verified-cache.size:10000}")
+    private int verifiedCacheSize;
+
+    // Signing key and parser are immutable, so they are built once and shared by all requests
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secret);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.verifiedTokenCache = new VerifiedTokenCache(verifiedCacheSize);
+    }
+
     // Generate token
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, userDetails.getUsername());
     }
 
+    /**
+     * Generate a token for the user. In self-contained mode the token also carries the user id,
+     * role, authorities, the role's permissions version and the user's token version, so requests
+     * can be authenticated without loading the user from the database.
+     */
+    public String generateToken(UserDetails userDetails, int userId, int roleId, String roleName,
+                                int permissionsVersion, int tokenVersion) {
+        if (!selfContainedEnabled) {
+            return generateToken(userDetails);
+        }
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, userId);
+        claims.put(CLAIM_ROLE_ID, roleId);
+        claims.put(CLAIM_ROLE, roleName);
+        claims.put(CLAIM_AUTHORITIES, toAuthorityNames(userDetails.getAuthorities()));
+        claims.put(CLAIM_PERMISSIONS_VERSION, permissionsVersion);
+        claims.put(CLAIM_TOKEN_VERSION, tokenVersion);
+        return createToken(claims, userDetails.getUsername());
+    }
+
+    // Check whether verified claims carry everything needed to authenticate without a lookup
+    public boolean isSelfContained(Claims claims) {
+        return claims.get(CLAIM_USER_ID) != null
+                && claims.get(CLAIM_ROLE_ID) != null
+                && claims.get(CLAIM_PERMISSIONS_VERSION) != null
+                && claims.get(CLAIM_TOKEN_VERSION) != null
+                && claims.get(CLAIM_AUTHORITIES) instanceof List;
+    }
+
+    private List<String> toAuthorityNames(Collection<? extends GrantedAuthority> authorities) {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+    }
+
     // Create token with claims
     private String createToken(Map<String, Object> claims, String subject) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .claims(claims)
+                .subject(subject)
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
-    // Get signing key
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Verify the token signature and expiry exactly once and return its claims.
+     * Recently verified tokens are served from a bounded cache until their "exp" passes.
+     * Throws a JwtException when the token is malformed, tampered with or expired.
+     */
+    public Claims verifyToken(String token) {
+        Claims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        // The parser rejects expired tokens, so anything returned here is currently valid
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+        verifiedTokenCache.put(token, claims);
+        return claims;
     }
 
     // Extract username from token
@@ -62,27 +142,19 @@ public class JwtTokenProvider {
 
     // Extract claim
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verifyToken(token);
         return claimsResolver.apply(claims);
     }
 
-    // Extract all claims
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    // Check if token is expired
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // Validate already verified claims against the loaded user
+    public Boolean validateClaims(Claims claims, UserDetails userDetails) {
+        return claims.getSubject() != null
+                && claims.getSubject().equals(userDetails.getUsername())
+                && claims.getExpiration().after(new Date());
     }
 
     // Validate token
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateClaims(verifyToken(token), userDetails);
     }
 }
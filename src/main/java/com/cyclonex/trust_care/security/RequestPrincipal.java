@@ -0,0 +1,46 @@
+package com.cyclonex.trust_care.security;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * The authenticated caller of the current request, resolved once by JwtAuthenticationFilter.
+ * Later stages (request logging, audit logging) read the ids from here instead of
+ * looking the user up by email again.
+ */
+@Component
+@RequestScope
+public class RequestPrincipal {
+
+    private Integer userId;
+    private Integer roleId;
+    private String roleName;
+    private String email;
+
+    public void resolve(TrustCareUserDetails userDetails) {
+        this.userId = userDetails.getUserId();
+        this.roleId = userDetails.getRoleId();
+        this.roleName = userDetails.getRoleName();
+        this.email = userDetails.getUsername();
+    }
+
+    public boolean isResolved() {
+        return userId != null;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Integer getRoleId() {
+        return roleId;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
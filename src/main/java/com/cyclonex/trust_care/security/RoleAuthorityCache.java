@@ -0,0 +1,107 @@
+package com.cyclonex.trust_care.security;
+
+import com.cyclonex.trust_care.dto.RoleAuthorityCacheStats;
+import com.cyclonex.trust_care.entity.Role;
+import com.cyclonex.trust_care.repository.RolePermissionRepository;
+import com.cyclonex.trust_care.service.PermissionVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-role cache of the authorities derived from role_permission rows.
+ * Entries are stamped with the role's permissions version and reloaded as soon as the
+ * version moves on; RBAC edits on this node also evict the role explicitly.
+ */
+@Component
+public class RoleAuthorityCache {
+
+    private final RolePermissionRepository rolePermissionRepository;
+    private final PermissionVersionService permissionVersionService;
+
+    private final Map<Integer, CachedAuthorities> entries = new ConcurrentHashMap<>();
+    private final Map<Integer, Counters> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RoleAuthorityCache(RolePermissionRepository rolePermissionRepository,
+                              PermissionVersionService permissionVersionService) {
+        this.rolePermissionRepository = rolePermissionRepository;
+        this.permissionVersionService = permissionVersionService;
+    }
+
+    /**
+     * Immutable authorities of the role: ROLE_ plus every permission assigned to it
+     */
+    public Set<GrantedAuthority> getAuthorities(Role role) {
+        int version = permissionVersionService.getCurrentVersion(role.getId());
+        Counters roleCounters = counters.computeIfAbsent(role.getId(), id -> new Counters());
+
+        CachedAuthorities cached = entries.get(role.getId());
+        if (cached != null && cached.version() == version && cached.roleName().equals(role.getRoleName())) {
+            roleCounters.hits.increment();
+            return cached.authorities();
+        }
+
+        roleCounters.misses.increment();
+        Set<GrantedAuthority> authorities = loadAuthorities(role);
+        entries.put(role.getId(), new CachedAuthorities(role.getRoleName(), version, authorities));
+        return authorities;
+    }
+
+    public void evict(int roleId) {
+        entries.remove(roleId);
+    }
+
+    public void evictAll() {
+        entries.clear();
+    }
+
+    public List<RoleAuthorityCacheStats> getStats() {
+        List<RoleAuthorityCacheStats> stats = new ArrayList<>();
+        counters.forEach((roleId, roleCounters) -> {
+            CachedAuthorities cached = entries.get(roleId);
+            stats.add(new RoleAuthorityCacheStats(
+                    roleId,
+                    cached != null ? cached.roleName() : null,
+                    cached != null ? cached.version() : null,
+                    permissionVersionService.getCurrentVersion(roleId),
+                    cached != null ? cached.authorities().size() : 0,
+                    roleCounters.hits.sum(),
+                    roleCounters.misses.sum()
+            ));
+        });
+        stats.sort(Comparator.comparingInt(RoleAuthorityCacheStats::roleId));
+        return stats;
+    }
+
+    private Set<GrantedAuthority> loadAuthorities(Role role) {
+        Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+
+        // Add role as authority (ROLE_ prefix for role-based access)
+        authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getRoleName()));
+
+        // Load and add all permissions for this role
+        rolePermissionRepository.findByRole_Id(role.getId())
+                .forEach(rp -> authorities.add(new SimpleGrantedAuthority(rp.getPermission().getPermissionName())));
+
+        return Set.copyOf(authorities);
+    }
+
+    private record CachedAuthorities(String roleName, int version, Set<GrantedAuthority> authorities) {
+    }
+
+    private static class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+}
@@ -0,0 +1,36 @@
+package com.cyclonex.trust_care.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Spring Security user that also remembers the database ids of the user and its role
+ */
+public class TrustCareUserDetails extends User {
+
+    private final int userId;
+    private final Integer roleId;
+    private final String roleName;
+
+    public TrustCareUserDetails(String email, String password, Collection<? extends GrantedAuthority> authorities,
+                                int userId, Integer roleId, String roleName) {
+        super(email, password, authorities);
+        this.userId = userId;
+        this.roleId = roleId;
+        this.roleName = roleName;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public Integer getRoleId() {
+        return roleId;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+}
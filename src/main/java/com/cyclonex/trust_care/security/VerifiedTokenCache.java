@@ -0,0 +1,77 @@
+package com.cyclonex.trust_care.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU of tokens whose signature has already been verified.
+ * Entries are keyed by the SHA-256 of the token so raw bearer tokens are never retained,
+ * and an entry is only served while the token's own "exp" claim is still in the future.
+ */
+class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final Map<String, Claims> entries;
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > VerifiedTokenCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Return the cached claims for the token, or null when it is unknown or has expired
+     */
+    Claims get(String token) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        String key = hash(token);
+        synchronized (entries) {
+            Claims claims = entries.get(key);
+            if (claims == null) {
+                return null;
+            }
+            if (claims.getExpiration() == null || claims.getExpiration().getTime() <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return claims;
+        }
+    }
+
+    void put(String token, Claims claims) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        String key = hash(token);
+        synchronized (entries) {
+            entries.put(key, claims);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
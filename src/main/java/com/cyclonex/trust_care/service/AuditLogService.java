@@ -4,10 +4,14 @@ import com.cyclonex.trust_care.entity.AuditLog;
 import com.cyclonex.trust_care.entity.User;
 import com.cyclonex.trust_care.repository.AuditLogRepository;
 import com.cyclonex.trust_care.repository.UserRepository;
+import com.cyclonex.trust_care.security.RequestPrincipal;
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.AuditLogView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -16,12 +20,17 @@ import java.util.List;
 public class AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
+    private final PaginationService paginationService;
     private final UserRepository userRepository;
+    private final RequestPrincipal requestPrincipal;
 
     @Autowired
-    public AuditLogService(AuditLogRepository auditLogRepository, UserRepository userRepository) {
+    public AuditLogService(AuditLogRepository auditLogRepository, UserRepository userRepository,
+                           RequestPrincipal requestPrincipal, PaginationService paginationService) {
         this.auditLogRepository = auditLogRepository;
         this.userRepository = userRepository;
+        this.requestPrincipal = requestPrincipal;
+        this.paginationService = paginationService;
     }
 
     public AuditLog saveAuditLog(AuditLog auditLog) {
@@ -33,43 +42,71 @@ public class AuditLogService {
     }
 
     public void logAction(String action, String resource, String requestId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        
         AuditLog auditLog = new AuditLog();
         auditLog.setAction(action);
         auditLog.setResource(resource);
         auditLog.setRequestId(requestId);
-        
+        auditLog.setUser(resolveCurrentUser());
+
+        // Written synchronously: the audit trail must survive a crash, unlike buffered request logs
+        auditLogRepository.save(auditLog);
+    }
+
+    private User resolveCurrentUser() {
+        // Inside a request the filter has already resolved the caller, so reference it by id
+        if (RequestContextHolder.getRequestAttributes() != null && requestPrincipal.isResolved()) {
+            return userRepository.getReferenceById(requestPrincipal.getUserId());
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.isAuthenticated() && !"anonymousUser".equals(authentication.getPrincipal())) {
-            User user = userRepository.findByEmail(authentication.getName());
-            auditLog.setUser(user);
+            return userRepository.findByEmail(authentication.getName());
         }
-        
-        auditLogRepository.save(auditLog);
+        return null;
     }
 
-    public List<AuditLog> getAllAuditLogs() {
-        return auditLogRepository.findAll();
+    public CursorPage<AuditLogView> getAllAuditLogs(String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        PaginationService.TimestampCursor before = paginationService.before(cursor);
+        List<AuditLogView> rows = auditLogRepository.findViewPageBefore(before.timestamp(), before.id(),
+                paginationService.fetchLimit(pageSize));
+        return paginationService.timestampPage(rows, pageSize, AuditLogView::timestamp, AuditLogView::id);
     }
 
-    public List<AuditLog> getAuditLogsByUserId(Integer userId) {
-        return auditLogRepository.findByUser_Id(userId);
+    public CursorPage<AuditLogView> getAuditLogsByUserId(Integer userId, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        PaginationService.TimestampCursor before = paginationService.before(cursor);
+        List<AuditLogView> rows = auditLogRepository.findViewPageBeforeByUserId(userId, before.timestamp(), before.id(),
+                paginationService.fetchLimit(pageSize));
+        return paginationService.timestampPage(rows, pageSize, AuditLogView::timestamp, AuditLogView::id);
     }
 
-    public List<AuditLog> getAuditLogsByAction(String action) {
-        return auditLogRepository.findByAction(action);
+    public CursorPage<AuditLogView> getAuditLogsByAction(String action, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        PaginationService.TimestampCursor before = paginationService.before(cursor);
+        List<AuditLogView> rows = auditLogRepository.findViewPageBeforeByAction(action, before.timestamp(), before.id(),
+                paginationService.fetchLimit(pageSize));
+        return paginationService.timestampPage(rows, pageSize, AuditLogView::timestamp, AuditLogView::id);
     }
 
-    public List<AuditLog> getAuditLogsByResource(String resource) {
-        return auditLogRepository.findByResource(resource);
+    public CursorPage<AuditLogView> getAuditLogsByResource(String resource, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        PaginationService.TimestampCursor before = paginationService.before(cursor);
+        List<AuditLogView> rows = auditLogRepository.findViewPageBeforeByResource(resource, before.timestamp(), before.id(),
+                paginationService.fetchLimit(pageSize));
+        return paginationService.timestampPage(rows, pageSize, AuditLogView::timestamp, AuditLogView::id);
     }
 
-    public List<AuditLog> getAuditLogsByDateRange(LocalDateTime start, LocalDateTime end) {
-        return auditLogRepository.findByTimestampBetween(start, end);
+    public CursorPage<AuditLogView> getAuditLogsByDateRange(LocalDateTime start, LocalDateTime end, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        PaginationService.TimestampCursor before = paginationService.before(cursor);
+        List<AuditLogView> rows = auditLogRepository.findViewPageBeforeByTimestampBetween(start, end, before.timestamp(), before.id(),
+                paginationService.fetchLimit(pageSize));
+        return paginationService.timestampPage(rows, pageSize, AuditLogView::timestamp, AuditLogView::id);
     }
 
-    public AuditLog getAuditLogById(int id) {
-        return auditLogRepository.findById(id).orElse(null);
+    public AuditLogView getAuditLogById(int id) {
+        return auditLogRepository.findViewById(id).orElse(null);
     }
 
     public void deleteAuditLog(int id) {
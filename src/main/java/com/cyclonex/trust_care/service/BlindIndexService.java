@@ -0,0 +1,67 @@
+package com.cyclonex.trust_care.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Keyed HMAC-SHA256 blind indexes for exact-match search on encrypted fields.
+ * Values are normalized first (Unicode NFKC, trimmed, whitespace collapsed, lower case), so
+ * "Type 2  Diabetes" and "type 2 diabetes" map to the same index. The HMAC key is separate
+ * from the encryption keys and must stay fixed: changing it requires rebuilding the indexes.
+ */
+@Service
+public class BlindIndexService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    @Value("${encryption.blind-index.key}")
+    private String blindIndexKey;
+
+    private SecretKeySpec key;
+    private ThreadLocal<Mac> mac;
+
+    @PostConstruct
+    void init() {
+        key = new SecretKeySpec(blindIndexKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Error creating blind index MAC", e);
+            }
+        });
+    }
+
+    /**
+     * The blind index of a value, or null when the value is blank
+     */
+    public String index(String value) {
+        String normalized = normalize(value);
+        if (normalized == null) {
+            return null;
+        }
+        return HexFormat.of().formatHex(mac.get().doFinal(normalized.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = Normalizer.normalize(value, Normalizer.Form.NFKC)
+                .trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+}
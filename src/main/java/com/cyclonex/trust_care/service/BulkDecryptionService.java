@@ -0,0 +1,148 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.dto.DecryptionStats;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Decrypts the rows of a list result.
+ * Lists shorter than encryption.bulk.parallel-threshold are decrypted serially on the calling
+ * thread; larger ones are split across a dedicated fork-join pool so AES work is not confined
+ * to one core and does not compete with the common pool.
+ * Time spent per call is recorded by label and mode, and reported at /monitoring/decryption.
+ */
+@Service
+public class BulkDecryptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkDecryptionService.class);
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final int chunkSize;
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public BulkDecryptionService(@Value("${encryption.bulk.parallelism:0}") int parallelism,
+                                 @Value("${encryption.bulk.parallel-threshold:64}") int parallelThreshold,
+                                 @Value("${encryption.bulk.chunk-size:32}") int chunkSize) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads, BulkDecryptionService::newWorker, null, false);
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Apply the decryptor to every row and return the same list
+     */
+    public <T> List<T> decryptAll(List<T> rows, Consumer<T> decryptor, String label) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        long start = System.nanoTime();
+        boolean parallel = rows.size() >= parallelThreshold;
+        if (parallel) {
+            pool.invoke(new DecryptTask<>(rows, 0, rows.size(), decryptor, chunkSize));
+        } else {
+            rows.forEach(decryptor);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        timers.computeIfAbsent(label + (parallel ? " parallel" : " serial"), key -> new Timer(label, parallel))
+                .record(rows.size(), elapsedNanos);
+        log.debug("Decrypted {} {} rows in {} µs ({})", rows.size(), label,
+                elapsedNanos / 1000, parallel ? "parallel" : "serial");
+        return rows;
+    }
+
+    public List<DecryptionStats> getStats() {
+        return timers.values().stream().map(Timer::snapshot).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("decrypt-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    // Calls, rows and time of one label in one mode, since startup
+    private static final class Timer {
+
+        private final String label;
+        private final boolean parallel;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Timer(String label, boolean parallel) {
+            this.label = label;
+            this.parallel = parallel;
+        }
+
+        void record(int rowCount, long nanos) {
+            calls.increment();
+            rows.add(rowCount);
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        DecryptionStats snapshot() {
+            long callCount = calls.sum();
+            long rowCount = rows.sum();
+            long total = totalNanos.sum();
+            return new DecryptionStats(label, parallel, callCount, rowCount,
+                    callCount == 0 ? 0.0 : total / 1_000_000.0 / callCount,
+                    maxNanos.get() / 1_000_000.0,
+                    rowCount == 0 ? 0.0 : total / 1_000.0 / rowCount);
+        }
+    }
+
+    private static final class DecryptTask<T> extends RecursiveAction {
+
+        private final List<T> rows;
+        private final int from;
+        private final int to;
+        private final Consumer<T> decryptor;
+        private final int chunkSize;
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+
+        DecryptTask(List<T> rows, int from, int to, Consumer<T> decryptor, int chunkSize) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.decryptor = decryptor;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    decryptor.accept(rows.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new DecryptTask<>(rows, from, middle, decryptor, chunkSize),
+                    new DecryptTask<>(rows, middle, to, decryptor, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.config.AsyncConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Online migration of encrypted columns from Base64 TEXT (x_encrypted) to bytea (x_cipher).
+ * The conversion is a pure re-encoding done in SQL, so no row is decrypted: a versioned value
+ * loses its "v1:" prefix and Base64, a legacy ECB value gets a leading zero marker byte.
+ * Rows move in short keyset batches and the job is idempotent, so it can be stopped and rerun
+ * at any time. Reads use both columns throughout, so the application stays online.
+ */
+@Service
+public class CiphertextStorageMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(CiphertextStorageMigrationService.class);
+
+    // Column prefixes per table; names are constants, never user input
+    static final Map<String, List<String>> COLUMNS = new LinkedHashMap<>();
+
+    static {
+        COLUMNS.put("medical_record", List.of("diagnosis", "treatment"));
+        COLUMNS.put("prescription", List.of("medication"));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EncryptionService encryptionService;
+    private final TaskExecutor backgroundExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, Long> migrated = new ConcurrentHashMap<>();
+    private volatile boolean stopRequested;
+
+    @Value("${encryption.storage-migration.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${encryption.storage-migration.batch-pause-ms:50}")
+    private long batchPauseMs;
+
+    @Autowired
+    public CiphertextStorageMigrationService(JdbcTemplate jdbcTemplate, EncryptionService encryptionService,
+                                             @Qualifier(AsyncConfig.BACKGROUND_EXECUTOR) TaskExecutor backgroundExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.encryptionService = encryptionService;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    /**
+     * Start the migration in the background; returns false if it is already running.
+     * Throws IllegalStateException unless encryption.storage.mode is binary.
+     */
+    public boolean start() {
+        if (!encryptionService.isBinaryStorage()) {
+            throw new IllegalStateException("Set encryption.storage.mode=binary before migrating to bytea");
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        stopRequested = false;
+        try {
+            backgroundExecutor.execute(this::run);
+            return true;
+        } catch (TaskRejectedException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Values moved to bytea since startup, per table.column
+     */
+    public Map<String, Long> getMigratedCounts() {
+        return Map.copyOf(migrated);
+    }
+
+    void run() {
+        try {
+            for (Map.Entry<String, List<String>> table : COLUMNS.entrySet()) {
+                for (String column : table.getValue()) {
+                    if (!migrateColumn(table.getKey(), column)) {
+                        return;
+                    }
+                }
+            }
+            log.info("Ciphertext storage migration completed: {}", migrated);
+        } catch (RuntimeException e) {
+            log.error("Ciphertext storage migration failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private boolean migrateColumn(String table, String column) {
+        String sql = migrateSql(table, column);
+        String key = table + "." + column;
+        int lastId = 0;
+        while (!stopRequested) {
+            List<Integer> ids = jdbcTemplate.queryForList(sql, Integer.class, lastId, batchSize);
+            if (ids.isEmpty()) {
+                return true;
+            }
+            migrated.merge(key, (long) ids.size(), Long::sum);
+            lastId = ids.stream().mapToInt(Integer::intValue).max().getAsInt();
+            if (batchPauseMs > 0) {
+                try {
+                    Thread.sleep(batchPauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        log.info("Ciphertext storage migration stopped at {} id {}", key, lastId);
+        return false;
+    }
+
+    // A row that already has a bytea value keeps it: that value was written later, in binary mode
+    static String migrateSql(String table, String column) {
+        String text = column + "_encrypted";
+        String binary = column + "_cipher";
+        return "UPDATE " + table + " SET " + binary + " = COALESCE(" + binary + ", CASE" +
+               " WHEN " + text + " = '' THEN ''::bytea" +
+               " WHEN " + text + " LIKE 'v1:%' THEN decode(substr(" + text + ", 4), 'base64')" +
+               " ELSE decode('00', 'hex') || decode(" + text + ", 'base64') END), " +
+               text + " = NULL" +
+               " WHERE id IN (SELECT id FROM " + table + " WHERE id > ? AND " + text + " IS NOT NULL" +
+               " ORDER BY id LIMIT ?) RETURNING id";
+    }
+}
@@ -0,0 +1,645 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.config.AsyncConfig;
+import com.cyclonex.trust_care.dto.ImportJobStatus;
+import com.cyclonex.trust_care.dto.ImportRowError;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Bulk import of medical records and prescriptions, e.g. when migrating a partner clinic.
+ * The upload is spooled to a temporary file and imported by a background job, chunk-size rows at a
+ * time: rows are parsed as a stream, patient, doctor and medical record references are resolved with
+ * one query per chunk, fields are encrypted and blind-indexed on the bulk pool, ids are drawn from
+ * the table sequence in blocks, and the chunk is written with a single COPY.
+ * A row that fails to parse or resolve is reported with its line number and skipped; the rest of
+ * the file is still imported. Jobs and their progress are kept in memory.
+ */
+@Service
+public class ClinicalImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClinicalImportService.class);
+
+    // Ids covered by one nextval of an entity sequence: the sequences increment by the entities' allocationSize
+    static final int ID_BLOCK_SIZE = 50;
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EncryptionService encryptionService;
+    private final BlindIndexService blindIndexService;
+    private final BulkDecryptionService bulkDecryptionService;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor backgroundExecutor;
+
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+
+    @Value("${import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${import.max-upload-bytes:2147483648}")
+    private long maxUploadBytes;
+
+    @Value("${import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${import.retained-jobs:50}")
+    private int retainedJobs;
+
+    @Autowired
+    public ClinicalImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 EncryptionService encryptionService, BlindIndexService blindIndexService,
+                                 BulkDecryptionService bulkDecryptionService, ObjectMapper objectMapper,
+                                 @Qualifier(AsyncConfig.BACKGROUND_EXECUTOR) TaskExecutor backgroundExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.encryptionService = encryptionService;
+        this.blindIndexService = blindIndexService;
+        this.bulkDecryptionService = bulkDecryptionService;
+        this.objectMapper = objectMapper;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    /**
+     * Spool the upload and queue its import; the returned status carries the job id to poll
+     */
+    public ImportJobStatus start(String type, String format, boolean gzip, InputStream upload, String requestId) {
+        ImportType importType = ImportType.parse(type);
+        DataFormat importFormat = DataFormat.parse(format);
+        Path file = spool(upload);
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), importType, importFormat, gzip, requestId);
+        register(job);
+        try {
+            backgroundExecutor.execute(() -> run(job, file));
+        } catch (TaskRejectedException e) {
+            deleteQuietly(file);
+            synchronized (jobs) {
+                jobs.remove(job.id);
+            }
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many background jobs, retry later");
+        }
+        return job.status();
+    }
+
+    public ImportJobStatus getStatus(String jobId) {
+        ImportJob job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        return job != null ? job.status() : null;
+    }
+
+    /**
+     * Ask the job to stop after the current chunk; chunks already written stay imported.
+     * Returns false if there is no such job.
+     */
+    public boolean cancel(String jobId) {
+        ImportJob job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            return false;
+        }
+        job.cancelRequested = true;
+        return true;
+    }
+
+    // Finished jobs beyond import.retained-jobs are forgotten, oldest first
+    private void register(ImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            int excess = jobs.size() - Math.max(1, retainedJobs);
+            var iterator = jobs.values().iterator();
+            while (excess > 0 && iterator.hasNext()) {
+                if (iterator.next().isFinished()) {
+                    iterator.remove();
+                    excess--;
+                }
+            }
+        }
+    }
+
+    private Path spool(InputStream upload) {
+        Path file = null;
+        try {
+            file = Files.createTempFile("trustcare-import-", ".upload");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                byte[] buffer = new byte[64 * 1024];
+                long total = 0;
+                int read;
+                while ((read = upload.read(buffer)) != -1) {
+                    total += read;
+                    if (total > maxUploadBytes) {
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "Import files are limited to " + maxUploadBytes + " bytes");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException("Could not spool the import file", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    void run(ImportJob job, Path file) {
+        job.status = STATUS_RUNNING;
+        log.info("Import {} of {} rows started", job.id, job.type.table);
+        try (InputStream in = job.gzip ? new GZIPInputStream(Files.newInputStream(file), 64 * 1024) : Files.newInputStream(file);
+             ImportRowReader reader = new ImportRowReader(
+                     new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024),
+                     job.format, objectMapper)) {
+            List<PendingRow> chunk = new ArrayList<>(chunkSize);
+            ImportRowReader.Row row;
+            while ((row = reader.next()) != null) {
+                job.rowsRead.incrementAndGet();
+                if (row.error() != null) {
+                    job.fail(row.line(), row.error(), maxReportedErrors);
+                    continue;
+                }
+                chunk.add(new PendingRow(row.line(), row.values()));
+                if (chunk.size() >= chunkSize) {
+                    importChunk(job, chunk);
+                    chunk.clear();
+                    if (job.cancelRequested) {
+                        job.finish(STATUS_CANCELLED);
+                        log.info("Import {} cancelled after {} rows", job.id, job.rowsRead.get());
+                        return;
+                    }
+                }
+            }
+            importChunk(job, chunk);
+            job.finish(STATUS_COMPLETED);
+            log.info("Import {} completed: {} rows read, {} imported, {} failed",
+                    job.id, job.rowsRead.get(), job.rowsImported.get(), job.rowsFailed.get());
+        } catch (IOException | RuntimeException e) {
+            log.error("Import {} failed after {} rows", job.id, job.rowsRead.get(), e);
+            // Why the job stopped, kept apart from the rows that failed
+            job.error = "Import stopped after " + job.rowsRead.get() + " rows: " + e.getMessage();
+            job.finish(STATUS_FAILED);
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * Validate, resolve, encrypt and COPY one chunk; rows that fail are reported and left out
+     */
+    void importChunk(ImportJob job, List<PendingRow> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        ImportType type = job.type;
+        chunk.forEach(row -> row.parse(type));
+        resolvePatients(chunk);
+        if (type == ImportType.PRESCRIPTION) {
+            resolveDoctors(chunk);
+            resolveMedicalRecords(chunk);
+        }
+
+        List<PendingRow> valid = reportFailures(job, chunk);
+        bulkDecryptionService.decryptAll(valid, row -> row.encrypt(type, encryptionService, blindIndexService), "import");
+        valid = reportFailures(job, valid);
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        List<Integer> ids = allocateIds(type.table, valid.size());
+        String data = copyData(type, valid, ids, job.requestId);
+        String sql = "COPY " + type.table + " (" + String.join(", ", type.copyColumns(encryptionService.isBinaryStorage()))
+                + ") FROM STDIN WITH (FORMAT csv)";
+        try {
+            Long copied = transactionTemplate.execute(status -> jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                try {
+                    return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(data));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            job.rowsImported.addAndGet(copied != null ? copied : 0);
+        } catch (RuntimeException e) {
+            // References were checked above, so this is a conflicting concurrent change or a database problem
+            String message = "Chunk not imported: " + e.getMessage();
+            for (PendingRow row : valid) {
+                job.fail(row.line, message, maxReportedErrors);
+            }
+            log.warn("Import {} chunk at line {} failed: {}", job.id, valid.get(0).line, e.getMessage());
+        }
+    }
+
+    private List<PendingRow> reportFailures(ImportJob job, List<PendingRow> rows) {
+        List<PendingRow> valid = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            if (row.error != null) {
+                job.fail(row.line, row.error, maxReportedErrors);
+            } else {
+                valid.add(row);
+            }
+        }
+        return valid;
+    }
+
+    // Patients are referenced by patientId or by their user's patientEmail
+    private void resolvePatients(List<PendingRow> chunk) {
+        Set<Integer> ids = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (PendingRow row : chunk) {
+            if (row.error == null && row.patientId != null) {
+                ids.add(row.patientId);
+            } else if (row.error == null && row.patientEmail != null) {
+                emails.add(row.patientEmail);
+            }
+        }
+        Set<Integer> existing = existingIds("SELECT id FROM patient WHERE id IN (:keys)", ids);
+        Map<String, Integer> byEmail = idsByKey(
+                "SELECT u.email, p.id FROM patient p JOIN \"user\" u ON u.id = p.user_id WHERE u.email IN (:keys)", emails);
+        for (PendingRow row : chunk) {
+            if (row.error != null) {
+                continue;
+            }
+            if (row.patientId == null) {
+                row.patientId = byEmail.get(row.patientEmail);
+                if (row.patientId == null) {
+                    row.error = "No patient with email " + row.patientEmail;
+                }
+            } else if (!existing.contains(row.patientId)) {
+                row.error = "No patient with id " + row.patientId;
+            }
+        }
+    }
+
+    // Doctors are referenced by doctorId or by doctorLicense
+    private void resolveDoctors(List<PendingRow> chunk) {
+        Set<Integer> ids = new HashSet<>();
+        Set<String> licenses = new HashSet<>();
+        for (PendingRow row : chunk) {
+            if (row.error == null && row.doctorId != null) {
+                ids.add(row.doctorId);
+            } else if (row.error == null && row.doctorLicense != null) {
+                licenses.add(row.doctorLicense);
+            }
+        }
+        Set<Integer> existing = existingIds("SELECT id FROM doctor WHERE id IN (:keys)", ids);
+        Map<String, Integer> byLicense = idsByKey(
+                "SELECT license_number, id FROM doctor WHERE license_number IN (:keys)", licenses);
+        for (PendingRow row : chunk) {
+            if (row.error != null) {
+                continue;
+            }
+            if (row.doctorId == null) {
+                row.doctorId = byLicense.get(row.doctorLicense);
+                if (row.doctorId == null) {
+                    row.error = "No doctor with license number " + row.doctorLicense;
+                }
+            } else if (!existing.contains(row.doctorId)) {
+                row.error = "No doctor with id " + row.doctorId;
+            }
+        }
+    }
+
+    // The medical record must exist and belong to the prescription's patient
+    private void resolveMedicalRecords(List<PendingRow> chunk) {
+        Set<Integer> ids = new HashSet<>();
+        for (PendingRow row : chunk) {
+            if (row.error == null) {
+                ids.add(row.medicalRecordId);
+            }
+        }
+        Map<Integer, Integer> patientByRecord = new HashMap<>();
+        if (!ids.isEmpty()) {
+            namedJdbcTemplate.query("SELECT id, patient_id FROM medical_record WHERE id IN (:keys)", Map.of("keys", ids),
+                    rs -> {
+                        patientByRecord.put(rs.getInt(1), rs.getInt(2));
+                    });
+        }
+        for (PendingRow row : chunk) {
+            if (row.error != null) {
+                continue;
+            }
+            Integer patientId = patientByRecord.get(row.medicalRecordId);
+            if (patientId == null) {
+                row.error = "No medical record with id " + row.medicalRecordId;
+            } else if (!patientId.equals(row.patientId)) {
+                row.error = "Medical record " + row.medicalRecordId + " belongs to another patient";
+            }
+        }
+    }
+
+    private Set<Integer> existingIds(String sql, Set<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedJdbcTemplate.queryForList(sql, Map.of("keys", ids), Integer.class));
+    }
+
+    private Map<String, Integer> idsByKey(String sql, Set<String> keys) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (!keys.isEmpty()) {
+            namedJdbcTemplate.query(sql, Map.of("keys", keys), rs -> {
+                ids.put(rs.getString(1), rs.getInt(2));
+            });
+        }
+        return ids;
+    }
+
+    // Draw whole blocks, as Hibernate's pooled optimizer does, so imported ids never collide with its own
+    private List<Integer> allocateIds(String table, int count) {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> blockEnds = jdbcTemplate.queryForList(
+                "SELECT nextval('" + table + "_id_seq') FROM generate_series(1, ?)", Long.class, blocks);
+        return idsFromBlocks(blockEnds, count);
+    }
+
+    // Each sequence value is the last id of a block of ID_BLOCK_SIZE ids
+    static List<Integer> idsFromBlocks(List<Long> blockEnds, int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        for (long end : blockEnds) {
+            for (long id = end - ID_BLOCK_SIZE + 1; id <= end && ids.size() < count; id++) {
+                ids.add(Math.toIntExact(id));
+            }
+        }
+        return ids;
+    }
+
+    // COPY input in CSV format; an unquoted empty field is NULL
+    static String copyData(ImportType type, List<PendingRow> rows, List<Integer> ids, String requestId) {
+        StringBuilder data = new StringBuilder(rows.size() * 256);
+        for (int i = 0; i < rows.size(); i++) {
+            PendingRow row = rows.get(i);
+            List<Object> values = new ArrayList<>();
+            values.add(ids.get(i));
+            values.add(row.patientId);
+            if (type == ImportType.MEDICAL_RECORD) {
+                values.add(row.encrypted[0]);
+                values.add(row.blindIndex);
+                values.add(row.encrypted[1]);
+                values.add(row.timestamp);
+            } else {
+                values.add(row.doctorId);
+                values.add(row.medicalRecordId);
+                values.add(row.encrypted[0]);
+                values.add(row.blindIndex);
+                values.add(row.timestamp);
+                values.add(row.status);
+                values.add(requestId);
+            }
+            for (int v = 0; v < values.size(); v++) {
+                if (v > 0) {
+                    data.append(',');
+                }
+                appendCopyValue(data, values.get(v));
+            }
+            data.append('\n');
+        }
+        return data.toString();
+    }
+
+    private static void appendCopyValue(StringBuilder data, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof byte[] bytes) {
+            data.append("\\x").append(HexFormat.of().formatHex(bytes));
+        } else if (value instanceof Number) {
+            data.append(value);
+        } else {
+            String text = value instanceof LocalDateTime timestamp
+                    ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp) : value.toString();
+            data.append('"').append(text.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", file, e);
+        }
+    }
+
+    /**
+     * What an import file holds, and the fields each row has:
+     * medical_record: patientId or patientEmail, diagnosis, treatment, createdAt;
+     * prescription: patientId or patientEmail, doctorId or doctorLicense, medicalRecordId, medication, issuedAt, status.
+     * Timestamps are ISO local date-times and default to the time of import.
+     */
+    public enum ImportType {
+        MEDICAL_RECORD("medical_record", "diagnosis", "treatment", "createdAt"),
+        PRESCRIPTION("prescription", "medication", null, "issuedAt");
+
+        final String table;
+        final String indexedField;
+        final String otherField;
+        final String timestampField;
+
+        ImportType(String table, String indexedField, String otherField, String timestampField) {
+            this.table = table;
+            this.indexedField = indexedField;
+            this.otherField = otherField;
+            this.timestampField = timestampField;
+        }
+
+        List<String> copyColumns(boolean binary) {
+            String suffix = binary ? "_cipher" : "_encrypted";
+            if (this == MEDICAL_RECORD) {
+                return List.of("id", "patient_id", "diagnosis" + suffix, "diagnosis_bidx", "treatment" + suffix, "created_at");
+            }
+            return List.of("id", "patient_id", "doctor_id", "medical_record_id", "medication" + suffix, "medication_bidx",
+                    "issued_at", "status", "request_id");
+        }
+
+        static ImportType parse(String type) {
+            for (ImportType value : values()) {
+                if (value.table.equals(type.toLowerCase(Locale.ROOT))) {
+                    return value;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported import type: " + type);
+        }
+    }
+
+    static final class PendingRow {
+
+        final long line;
+        final Map<String, String> values;
+        Integer patientId;
+        String patientEmail;
+        Integer doctorId;
+        String doctorLicense;
+        Integer medicalRecordId;
+        LocalDateTime timestamp;
+        String status;
+        // Ciphertext of the indexed field and, for medical records, the treatment: byte[] or String by storage mode
+        final Object[] encrypted = new Object[2];
+        String blindIndex;
+        String error;
+
+        PendingRow(long line, Map<String, String> values) {
+            this.line = line;
+            this.values = values;
+        }
+
+        void parse(ImportType type) {
+            try {
+                patientId = integer("patientId");
+                patientEmail = values.get("patientEmail");
+                if (patientId == null && patientEmail == null) {
+                    error = "patientId or patientEmail is required";
+                    return;
+                }
+                if (values.get(type.indexedField) == null) {
+                    error = type.indexedField + " is required";
+                    return;
+                }
+                String time = values.get(type.timestampField);
+                timestamp = time != null ? LocalDateTime.parse(time) : LocalDateTime.now();
+                if (type == ImportType.PRESCRIPTION) {
+                    doctorId = integer("doctorId");
+                    doctorLicense = values.get("doctorLicense");
+                    medicalRecordId = integer("medicalRecordId");
+                    status = values.get("status");
+                    if (doctorId == null && doctorLicense == null) {
+                        error = "doctorId or doctorLicense is required";
+                    } else if (medicalRecordId == null) {
+                        error = "medicalRecordId is required";
+                    }
+                }
+            } catch (NumberFormatException e) {
+                error = "Invalid number: " + e.getMessage();
+            } catch (DateTimeParseException e) {
+                error = "Invalid " + type.timestampField + ": " + e.getParsedString();
+            }
+        }
+
+        // Runs on the bulk pool; new values are encrypted under the patient's data key
+        void encrypt(ImportType type, EncryptionService encryptionService, BlindIndexService blindIndexService) {
+            try {
+                boolean binary = encryptionService.isBinaryStorage();
+                String indexed = values.get(type.indexedField);
+                encrypted[0] = binary ? encryptionService.encryptToBytes(indexed, patientId) : encryptionService.encrypt(indexed, patientId);
+                blindIndex = blindIndexService.index(indexed);
+                if (type.otherField != null) {
+                    String other = values.get(type.otherField);
+                    encrypted[1] = binary ? encryptionService.encryptToBytes(other, patientId) : encryptionService.encrypt(other, patientId);
+                }
+            } catch (RuntimeException e) {
+                error = "Encryption failed: " + e.getMessage();
+            }
+        }
+
+        private Integer integer(String field) {
+            String value = values.get(field);
+            return value != null ? Integer.valueOf(value.trim()) : null;
+        }
+    }
+
+    static final class ImportJob {
+
+        final String id;
+        final ImportType type;
+        final DataFormat format;
+        final boolean gzip;
+        final String requestId;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong rowsImported = new AtomicLong();
+        final AtomicLong rowsFailed = new AtomicLong();
+        private final List<ImportRowError> errors = new ArrayList<>();
+        volatile String status = STATUS_QUEUED;
+        volatile String error;
+        volatile LocalDateTime finishedAt;
+        volatile boolean cancelRequested;
+
+        ImportJob(String id, ImportType type, DataFormat format, boolean gzip, String requestId) {
+            this.id = id;
+            this.type = type;
+            this.format = format;
+            this.gzip = gzip;
+            this.requestId = requestId;
+        }
+
+        // Every failed row is counted; only the first max-reported-errors are kept with their message
+        void fail(long line, String message, int maxReported) {
+            rowsFailed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxReported) {
+                    errors.add(new ImportRowError(line, message));
+                }
+            }
+        }
+
+        void finish(String finalStatus) {
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        ImportJobStatus status() {
+            List<ImportRowError> reported;
+            synchronized (errors) {
+                reported = List.copyOf(errors);
+            }
+            return new ImportJobStatus(id, type.table, status, rowsRead.get(), rowsImported.get(), rowsFailed.get(),
+                    reported, error, createdAt, finishedAt);
+        }
+    }
+}
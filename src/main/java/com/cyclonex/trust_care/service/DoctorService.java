@@ -2,6 +2,8 @@ package com.cyclonex.trust_care.service;
 
 import com.cyclonex.trust_care.entity.Doctor;
 import com.cyclonex.trust_care.repository.DoctorRepository;
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.DoctorView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -11,26 +13,34 @@ import java.util.List;
 public class DoctorService {
 
     private final DoctorRepository doctorRepository;
+    private final PaginationService paginationService;
 
     @Autowired
-    public DoctorService(DoctorRepository doctorRepository) {
+    public DoctorService(DoctorRepository doctorRepository, PaginationService paginationService) {
         this.doctorRepository = doctorRepository;
+        this.paginationService = paginationService;
     }
 
-    public Doctor getDoctorByUserId(int userId) {
-        return doctorRepository.findByUser_Id(userId);
+    public DoctorView getDoctorByUserId(int userId) {
+        return doctorRepository.findViewByUserId(userId).orElse(null);
     }
 
-    public Doctor getDoctorByLicenseNumber(String licenseNumber) {
-        return doctorRepository.findByLicenseNumber(licenseNumber);
+    public DoctorView getDoctorByLicenseNumber(String licenseNumber) {
+        return doctorRepository.findViewByLicenseNumber(licenseNumber).orElse(null);
     }
 
-    public List<Doctor> getDoctorsBySpecialization(String specialization) {
-        return doctorRepository.findBySpecialization(specialization);
+    public CursorPage<DoctorView> getDoctorsBySpecialization(String specialization, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        List<DoctorView> rows = doctorRepository.findViewPageBySpecializationAfter(
+                specialization, paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return paginationService.idPage(rows, pageSize, DoctorView::id);
     }
 
-    public List<Doctor> getAllDoctors() {
-        return doctorRepository.findAll();
+    public CursorPage<DoctorView> getAllDoctors(String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        List<DoctorView> rows = doctorRepository.findViewPageAfter(
+                paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return paginationService.idPage(rows, pageSize, DoctorView::id);
     }
 
     public Doctor saveDoctor(Doctor doctor) {
@@ -41,7 +51,7 @@ public class DoctorService {
         doctorRepository.deleteById(id);
     }
 
-    public Doctor getDoctorById(int id) {
-        return doctorRepository.findById(id).orElse(null);
+    public DoctorView getDoctorById(int id) {
+        return doctorRepository.findViewById(id).orElse(null);
     }
 }
@@ -0,0 +1,315 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.config.AsyncConfig;
+import com.cyclonex.trust_care.entity.EmailOutbox;
+import com.cyclonex.trust_care.repository.EmailOutboxRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Drains the email outbox.
+ * Each batch is claimed with FOR UPDATE SKIP LOCKED in a short transaction that marks it SENDING
+ * under a lease, then handed to JavaMailSender as one array outside any transaction, which delivers
+ * all of it over a single SMTP connection; the outcome is recorded in a second transaction. A batch
+ * whose dispatcher dies before recording is claimed again once the lease runs out.
+ * Failed messages are retried with exponential backoff until mail.outbox.max-attempts is reached,
+ * or until they expire. Finished messages are purged after mail.outbox.retention-hours.
+ * One dispatch runs at a time, and the scheduled poll and requested dispatches draw on one token
+ * bucket: mail.outbox.max-per-second on average, in bursts of at most one poll interval's worth.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final EncryptionService encryptionService;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor mailExecutor;
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+    private final ReentrantLock dispatching = new ReentrantLock();
+
+    // Token bucket, only touched while holding dispatching
+    private double tokens = -1;
+    private long refilledAt;
+    LongSupplier nanoTime = System::nanoTime;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-per-second:20}")
+    private int maxPerSecond;
+
+    @Value("${mail.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff.initial-ms:5000}")
+    private long initialBackoffMs;
+
+    @Value("${mail.outbox.backoff.max-ms:3600000}")
+    private long maxBackoffMs;
+
+    // Must outlast sending a whole batch, or another dispatcher claims it again mid-send
+    @Value("${mail.outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${mail.outbox.retention-hours:168}")
+    private long retentionHours;
+
+    @Autowired
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 JavaMailSender mailSender,
+                                 EncryptionService encryptionService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Qualifier(AsyncConfig.MAIL_EXECUTOR) TaskExecutor mailExecutor) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.encryptionService = encryptionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mailExecutor = mailExecutor;
+    }
+
+    /**
+     * Ask for a dispatch on the mail executor without waiting for the next poll.
+     * Requests made while one is already pending are coalesced into it.
+     */
+    public void requestDispatch() {
+        if (!dispatchRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            mailExecutor.execute(() -> {
+                dispatchRequested.set(false);
+                dispatchDue();
+            });
+        } catch (RuntimeException e) {
+            // Executor saturated; the scheduled poll will send the message
+            dispatchRequested.set(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        // Also clears a pending request whose task the executor dropped without rejecting it
+        dispatchRequested.set(false);
+        dispatchDue();
+    }
+
+    /**
+     * Send due messages as far as the rate limit allows.
+     * Returns at once if another dispatch is running; it, or the next poll, sends the rest.
+     */
+    public void dispatchDue() {
+        if (!dispatching.tryLock()) {
+            return;
+        }
+        try {
+            while (true) {
+                int permits = takePermits(batchSize);
+                if (permits == 0) {
+                    return;
+                }
+                int sent = dispatchBatch(permits);
+                // Permits for messages that were not due go back to the bucket
+                tokens += permits - sent;
+                if (sent < permits) {
+                    return;
+                }
+            }
+        } finally {
+            dispatching.unlock();
+        }
+    }
+
+    // Refill at max-per-second up to one poll interval's worth, then take up to limit whole permits
+    private int takePermits(int limit) {
+        double burst = Math.max(1, maxPerSecond * pollIntervalMs / 1000.0);
+        long now = nanoTime.getAsLong();
+        if (tokens < 0) {
+            tokens = burst;
+        } else {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * maxPerSecond / 1e9);
+        }
+        refilledAt = now;
+        int permits = (int) Math.min(limit, Math.floor(tokens));
+        tokens -= permits;
+        return permits;
+    }
+
+    /**
+     * Claim and deliver one batch; returns the number of messages attempted
+     */
+    public int dispatchBatch(int limit) {
+        List<EmailOutbox> batch = claim(limit);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        // No transaction (and no row lock or connection) is held while talking to the SMTP server
+        deliver(batch);
+        transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(batch));
+        return batch.size();
+    }
+
+    private List<EmailOutbox> claim(int limit) {
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> due = emailOutboxRepository.lockDueMessages(now, limit);
+            for (EmailOutbox outbox : due) {
+                outbox.setStatus(EmailOutbox.STATUS_SENDING);
+                outbox.setNextAttemptAt(now.plus(Duration.ofMillis(leaseMs)));
+            }
+            emailOutboxRepository.saveAll(due);
+            return due;
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    /**
+     * Delete SENT and FAILED messages older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.purge-interval-ms:3600000}")
+    public void purgeFinished() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        Integer purged = transactionTemplate.execute(status -> emailOutboxRepository.deleteFinishedBefore(before));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} finished emails older than {} hours", purged, retentionHours);
+        }
+    }
+
+    private void deliver(List<EmailOutbox> batch) {
+        Map<MimeMessage, EmailOutbox> byMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutbox outbox : batch) {
+            if (isExpired(outbox, now)) {
+                markExpired(outbox);
+                continue;
+            }
+            try {
+                MimeMessage message = toMimeMessage(outbox);
+                byMessage.put(message, outbox);
+                messages.add(message);
+            } catch (MessagingException | IllegalArgumentException e) {
+                markFailed(outbox, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+            byMessage.values().forEach(this::markSent);
+        } catch (MailSendException e) {
+            // Only some messages failed; the rest went out on the same connection
+            Map<Object, Exception> failures = e.getFailedMessages();
+            byMessage.forEach((message, outbox) -> {
+                Exception failure = failures.get(message);
+                if (failure != null) {
+                    markFailed(outbox, failure);
+                } else if (failures.isEmpty()) {
+                    markFailed(outbox, e);
+                } else {
+                    markSent(outbox);
+                }
+            });
+        } catch (MailException e) {
+            // Connection or authentication problem: nothing was sent
+            log.warn("Email outbox batch of {} failed: {}", messages.size(), e.getMessage());
+            byMessage.values().forEach(outbox -> markFailed(outbox, e));
+        }
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox outbox) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(outbox.getRecipient());
+        helper.setSubject(outbox.getSubject());
+        helper.setText(outbox.isBodyEncrypted() ? encryptionService.decrypt(outbox.getBody()) : outbox.getBody());
+        return message;
+    }
+
+    private boolean isExpired(EmailOutbox outbox, LocalDateTime at) {
+        return outbox.getExpiresAt() != null && !at.isBefore(outbox.getExpiresAt());
+    }
+
+    private void markSent(EmailOutbox outbox) {
+        outbox.setStatus(EmailOutbox.STATUS_SENT);
+        outbox.setAttempts(outbox.getAttempts() + 1);
+        outbox.setSentAt(LocalDateTime.now());
+        outbox.setLastError(null);
+        finish(outbox);
+    }
+
+    private void markFailed(EmailOutbox outbox, Exception failure) {
+        int attempts = outbox.getAttempts() + 1;
+        outbox.setAttempts(attempts);
+        outbox.setLastError(failure.getMessage());
+
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempts));
+        if (isExpired(outbox, nextAttemptAt)) {
+            markExpired(outbox);
+            return;
+        }
+        if (attempts >= maxAttempts) {
+            outbox.setStatus(EmailOutbox.STATUS_FAILED);
+            log.error("Giving up on email {} to {} after {} attempts: {}",
+                    outbox.getId(), outbox.getRecipient(), attempts, failure.getMessage());
+            finish(outbox);
+            return;
+        }
+        outbox.setStatus(EmailOutbox.STATUS_PENDING);
+        outbox.setNextAttemptAt(nextAttemptAt);
+    }
+
+    private void markExpired(EmailOutbox outbox) {
+        outbox.setStatus(EmailOutbox.STATUS_FAILED);
+        outbox.setLastError("Expired before delivery" + (outbox.getLastError() != null ? ": " + outbox.getLastError() : ""));
+        finish(outbox);
+    }
+
+    // A one-time code is not kept once its message is done, not even encrypted
+    private void finish(EmailOutbox outbox) {
+        if (outbox.isBodyEncrypted()) {
+            outbox.setBody(null);
+        }
+    }
+
+    // Exponential backoff: initial, 2x initial, 4x initial, ... capped at the maximum
+    private Duration backoff(int attempts) {
+        long delay = initialBackoffMs << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, maxBackoffMs));
+    }
+}
@@ -1,37 +1,50 @@
 package com.cyclonex.trust_care.service;
 
+import com.cyclonex.trust_care.entity.EmailOutbox;
+import com.cyclonex.trust_care.entity.User;
+import com.cyclonex.trust_care.repository.EmailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queues outgoing mail in the email_outbox table; EmailOutboxDispatcher delivers it in batches.
+ * Request threads therefore never wait on the SMTP server.
+ */
 @Service
 public class EmailService {
 
+    private static final Logger log = LoggerFactory.getLogger(EmailService.class);
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
     @Autowired
-    private JavaMailSender mailSender;
+    private EncryptionService encryptionService;
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    @Value("${otp.expiry.minutes:5}")
+    private int otpExpiryMinutes;
 
     /**
-     * Send OTP email to user
+     * Queue OTP email to user and dispatch it right away on the mail executor.
+     * The body is stored encrypted and the message is dropped once the OTP has expired.
      */
-    @Async
     public void sendOtpEmail(String toEmail, String otp, String username) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("TrustCare - Your Login OTP");
-            message.setText(buildOtpEmailBody(username, otp));
-            
-            mailSender.send(message);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to send OTP email: " + e.getMessage());
-        }
+        EmailOutbox message = message(toEmail, "TrustCare - Your Login OTP",
+                encryptionService.encrypt(buildOtpEmailBody(username, otp)));
+        message.setBodyEncrypted(true);
+        message.setExpiresAt(LocalDateTime.now().plusMinutes(otpExpiryMinutes));
+        emailOutboxRepository.save(message);
+        emailOutboxDispatcher.requestDispatch();
     }
 
     /**
@@ -42,32 +55,53 @@ public class EmailService {
             "Hello %s,\n\n" +
             "Your One-Time Password (OTP) for TrustCare login is:\n\n" +
             "%s\n\n" +
-            "This OTP is valid for 5 minutes.\n\n" +
+            "This OTP is valid for %d minutes.\n\n" +
             "If you did not request this OTP, please ignore this email.\n\n" +
             "Best regards,\n" +
             "TrustCare Team",
-            username, otp
+            username, otp, otpExpiryMinutes
         );
     }
 
     /**
-     * Send registration confirmation email
+     * Queue registration confirmation email
      */
     public void sendRegistrationEmail(String toEmail, String username) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Welcome to TrustCare!");
-            message.setText(buildRegistrationEmailBody(username));
-            
-            mailSender.send(message);
+            enqueue(toEmail, "Welcome to TrustCare!", buildRegistrationEmailBody(username));
         } catch (Exception e) {
             // Log but don't throw exception for registration emails
-            System.err.println("Failed to send registration email: " + e.getMessage());
+            log.error("Failed to queue registration email: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Queue registration emails for many users with one batched insert
+     */
+    public void sendRegistrationEmails(List<User> users) {
+        try {
+            List<EmailOutbox> messages = new ArrayList<>(users.size());
+            for (User user : users) {
+                messages.add(message(user.getEmail(), "Welcome to TrustCare!", buildRegistrationEmailBody(user.getUsername())));
+            }
+            emailOutboxRepository.saveAll(messages);
+        } catch (Exception e) {
+            log.error("Failed to queue {} registration emails: {}", users.size(), e.getMessage());
         }
     }
 
+    private void enqueue(String toEmail, String subject, String body) {
+        emailOutboxRepository.save(message(toEmail, subject, body));
+    }
+
+    private EmailOutbox message(String toEmail, String subject, String body) {
+        EmailOutbox message = new EmailOutbox();
+        message.setRecipient(toEmail);
+        message.setSubject(subject);
+        message.setBody(body);
+        return message;
+    }
+
     /**
      * Build email body for registration
      */
@@ -1,71 +1,443 @@
 package com.cyclonex.trust_care.service;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
+/**
+ * Field encryption for patient data.
+ * New values are written as "v1:" + Base64 of [version][flags][key id length][key id][IV][AES-GCM
+ * ciphertext and tag], so each value names the key it was written with and keys can be rotated.
+ * Values without the prefix are legacy AES/ECB and are still read transparently.
+ * In binary storage mode the same blob is kept in a bytea column without the prefix and Base64;
+ * legacy ECB values are marked there by a leading zero byte.
+ * Keys are parsed once at startup and every thread reuses its own Cipher instances.
+ * With envelope encryption, patient data is written under a per-patient data key ("p:<patientId>")
+ * supplied by {@link PatientDataKeyService}; only those small keys are wrapped by the master key.
+ * Plaintext of at least encryption.compression.threshold-bytes is deflated before it is encrypted
+ * when that makes it smaller, which is marked by the FLAG_DEFLATE bit in the flags byte. Values with
+ * any flag set also authenticate their header, so a flag cannot be flipped without failing decryption.
+ */
 @Service
 public class EncryptionService {
 
     private static final String ALGORITHM = "AES";
-    private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String LEGACY_TRANSFORMATION = "AES/ECB/PKCS5Padding";
+
+    static final String PREFIX = "v1:";
+    static final String PATIENT_KEY_PREFIX = "p:";
+    static final byte FORMAT_VERSION = 1;
+    // First byte of a legacy ECB value in binary storage; versioned blobs start with FORMAT_VERSION
+    static final byte LEGACY_MARKER = 0;
+    // Flags byte: the plaintext was deflated before encryption
+    static final byte FLAG_DEFLATE = 0x01;
+    private static final int KNOWN_FLAGS = FLAG_DEFLATE;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private static final ThreadLocal<Cipher> GCM_CIPHER = ThreadLocal.withInitial(() -> newCipher(TRANSFORMATION));
+    private static final ThreadLocal<Cipher> LEGACY_CIPHER = ThreadLocal.withInitial(() -> newCipher(LEGACY_TRANSFORMATION));
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
 
     @Value("${encryption.secret.key}")
     private String secretKeyString;
 
-    // Encrypt the given plain text using AES encryption
+    @Value("${encryption.key.id:k1}")
+    private String currentKeyId;
+
+    // Retired keys that may still appear in stored values, as id:secret pairs separated by commas
+    @Value("${encryption.previous.keys:}")
+    private String previousKeys;
+
+    // Key that legacy ECB values were written with: required once the key has been rotated, "none" when
+    // no ECB values remain. Before any rotation it is the current secret.
+    @Value("${encryption.legacy.secret.key:}")
+    private String legacySecretKeyString;
+
+    // New patient data is written under per-patient data keys; existing values stay readable either way
+    @Value("${encryption.envelope.enabled:true}")
+    private boolean envelopeEnabled;
+
+    // "binary" stores new values in bytea columns; both column kinds are always read
+    @Value("${encryption.storage.mode:text}")
+    private String storageMode;
+
+    // Plaintext at least this long (UTF-8 bytes) is compressed before encryption; 0 disables compression
+    @Value("${encryption.compression.threshold-bytes:512}")
+    private int compressionThreshold;
+
+    // Upper bound for a decompressed value, so a corrupt or hostile blob cannot exhaust memory
+    @Value("${encryption.compression.max-inflated-bytes:16777216}")
+    private int maxInflatedBytes;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private Map<String, SecretKey> keysById;
+    private SecretKey currentKey;
+    private byte[] currentKeyIdBytes;
+    private SecretKey legacyKey;
+    private volatile DataKeyResolver dataKeyResolver;
+    private boolean binaryStorage;
+
+    @PostConstruct
+    void init() {
+        Map<String, SecretKey> keys = new HashMap<>();
+        if (previousKeys != null && !previousKeys.isBlank()) {
+            for (String entry : previousKeys.split(",")) {
+                int separator = entry.indexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalStateException("encryption.previous.keys entries must be id:secret");
+                }
+                keys.put(entry.substring(0, separator).trim(), toSecretKey(entry.substring(separator + 1).trim()));
+            }
+        }
+        currentKeyIdBytes = currentKeyId.getBytes(StandardCharsets.UTF_8);
+        if (currentKeyIdBytes.length == 0 || currentKeyIdBytes.length > 255) {
+            throw new IllegalStateException("encryption.key.id must be 1 to 255 bytes");
+        }
+        currentKey = toSecretKey(secretKeyString);
+        keys.put(currentKeyId, currentKey);
+        keysById = Collections.unmodifiableMap(keys);
+        legacyKey = legacyKey(keys.size() > 1 || !"k1".equals(currentKeyId));
+        binaryStorage = "binary".equalsIgnoreCase(storageMode);
+    }
+
+    // Encrypt the given plain text with AES-GCM under the current key
     public String encrypt(String plainText) {
+        if (plainText == null || plainText.isEmpty()) {
+            return plainText;
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(seal(plainText, currentKeyIdBytes, currentKey));
+    }
+
+    /**
+     * Encrypt under the patient's data key when envelope encryption is enabled, otherwise under the current key
+     */
+    public String encrypt(String plainText, Integer patientId) {
+        if (plainText == null || plainText.isEmpty()) {
+            return plainText;
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(encryptToBytes(plainText, patientId));
+    }
+
+    /**
+     * Binary form of {@link #encrypt(String, Integer)}: the same blob, without the prefix and Base64
+     */
+    public byte[] encryptToBytes(String plainText, Integer patientId) {
+        if (plainText == null) {
+            return null;
+        }
+        if (plainText.isEmpty()) {
+            return new byte[0];
+        }
+        DataKeyResolver resolver = dataKeyResolver;
+        if (!envelopeEnabled || patientId == null || resolver == null) {
+            return seal(plainText, currentKeyIdBytes, currentKey);
+        }
+        byte[] keyId = (PATIENT_KEY_PREFIX + patientId).getBytes(StandardCharsets.UTF_8);
+        return seal(plainText, keyId, resolver.dataKeyFor(patientId));
+    }
+
+    // Decrypt a value in either the versioned format or the legacy ECB format
+    public String decrypt(String encryptedText) {
+        if (encryptedText == null || encryptedText.isEmpty()) {
+            return encryptedText;
+        }
         try {
-            if (plainText == null || plainText.isEmpty()) {
-                return plainText;
+            if (!encryptedText.startsWith(PREFIX)) {
+                return decryptLegacy(Base64.getDecoder().decode(encryptedText), 0);
             }
+            return open(Base64.getDecoder().decode(encryptedText.substring(PREFIX.length())));
+        } catch (GeneralSecurityException | RuntimeException e) {
+            throw new IllegalArgumentException("Error decrypting data", e);
+        }
+    }
 
-            SecretKey secretKey = getSecretKey();
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            
-            byte[] encryptedBytes = cipher.doFinal(plainText.getBytes());
-            return Base64.getEncoder().encodeToString(encryptedBytes);
-        } catch (Exception e) {
+    /**
+     * Decrypt a binary value: a versioned blob, or a legacy ECB ciphertext behind a zero marker byte
+     */
+    public String decrypt(byte[] encrypted) {
+        if (encrypted == null) {
+            return null;
+        }
+        if (encrypted.length == 0) {
+            return "";
+        }
+        try {
+            return encrypted[0] == LEGACY_MARKER ? decryptLegacy(encrypted, 1) : open(encrypted);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            throw new IllegalArgumentException("Error decrypting data", e);
+        }
+    }
+
+    // Text and binary forms of a stored value convert into each other without any crypto work
+    public byte[] toBinary(String encryptedText) {
+        if (encryptedText == null) {
+            return null;
+        }
+        if (encryptedText.isEmpty()) {
+            return new byte[0];
+        }
+        if (encryptedText.startsWith(PREFIX)) {
+            return Base64.getDecoder().decode(encryptedText.substring(PREFIX.length()));
+        }
+        byte[] legacy = Base64.getDecoder().decode(encryptedText);
+        byte[] marked = new byte[legacy.length + 1];
+        marked[0] = LEGACY_MARKER;
+        System.arraycopy(legacy, 0, marked, 1, legacy.length);
+        return marked;
+    }
+
+    public String toText(byte[] encrypted) {
+        if (encrypted == null) {
+            return null;
+        }
+        if (encrypted.length == 0) {
+            return "";
+        }
+        if (encrypted[0] == LEGACY_MARKER) {
+            return Base64.getEncoder().encodeToString(Arrays.copyOfRange(encrypted, 1, encrypted.length));
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(encrypted);
+    }
+
+    /**
+     * True when new values go to the bytea columns rather than the Base64 TEXT columns
+     */
+    public boolean isBinaryStorage() {
+        return binaryStorage;
+    }
+
+    private byte[] seal(String plainText, byte[] keyId, SecretKey key) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+
+            byte flags = 0;
+            byte[] plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+            if (compressionThreshold > 0 && plainBytes.length >= compressionThreshold) {
+                byte[] deflated = deflate(plainBytes);
+                if (deflated != null) {
+                    plainBytes = deflated;
+                    flags |= FLAG_DEFLATE;
+                }
+            }
+
+            Cipher cipher = GCM_CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            int headerLength = 3 + keyId.length;
+            ByteBuffer out = ByteBuffer.allocate(headerLength + IV_LENGTH + cipher.getOutputSize(plainBytes.length));
+            out.put(FORMAT_VERSION).put(flags).put((byte) keyId.length).put(keyId).put(iv);
+            if (flags != 0) {
+                cipher.updateAAD(out.array(), 0, headerLength);
+            }
+            cipher.doFinal(ByteBuffer.wrap(plainBytes), out);
+            return out.array();
+        } catch (GeneralSecurityException e) {
             throw new IllegalArgumentException("Error encrypting data", e);
         }
     }
 
-    // Decrypt the given encrypted text using AES decryption
-    public String decrypt(String encryptedText) {
+    private String open(byte[] blob) throws GeneralSecurityException {
+        ByteBuffer in = ByteBuffer.wrap(blob);
+        if (in.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported ciphertext version");
+        }
+        int flags = in.get() & 0xFF;
+        if ((flags & ~KNOWN_FLAGS) != 0) {
+            throw new IllegalArgumentException("Unsupported ciphertext flags");
+        }
+        byte[] keyId = new byte[in.get() & 0xFF];
+        in.get(keyId);
+        SecretKey key = resolveKey(new String(keyId, StandardCharsets.UTF_8));
+        if (key == null) {
+            throw new IllegalArgumentException("Unknown encryption key id");
+        }
+
+        Cipher cipher = GCM_CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, blob, in.position(), IV_LENGTH));
+        if (flags != 0) {
+            cipher.updateAAD(blob, 0, in.position());
+        }
+        in.position(in.position() + IV_LENGTH);
+        byte[] plainBytes = cipher.doFinal(blob, in.position(), in.remaining());
+        if ((flags & FLAG_DEFLATE) != 0) {
+            plainBytes = inflate(plainBytes);
+        }
+        return new String(plainBytes, StandardCharsets.UTF_8);
+    }
+
+    // Raw deflate; null when the result would not be smaller, e.g. for text that is already dense
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = DEFLATER.get();
         try {
-            if (encryptedText == null || encryptedText.isEmpty()) {
-                return encryptedText;
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] buffer = new byte[input.length];
+            int length = 0;
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
             }
+            return deflater.finished() && length < input.length ? Arrays.copyOf(buffer, length) : null;
+        } finally {
+            deflater.reset();
+        }
+    }
 
-            SecretKey secretKey = getSecretKey();
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            
-            byte[] decodedBytes = Base64.getDecoder().decode(encryptedText);
-            byte[] decryptedBytes = cipher.doFinal(decodedBytes);
-            return new String(decryptedBytes);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Error decrypting data", e);
+    private byte[] inflate(byte[] input) {
+        Inflater inflater = INFLATER.get();
+        try {
+            inflater.setInput(input);
+            byte[] buffer = new byte[Math.min(Math.max(input.length * 4, 256), maxInflatedBytes)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == buffer.length) {
+                    if (buffer.length >= maxInflatedBytes) {
+                        throw new IllegalArgumentException("Decompressed value exceeds the size limit");
+                    }
+                    buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, maxInflatedBytes));
+                }
+                int read = inflater.inflate(buffer, length, buffer.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed value");
+                }
+                length += read;
+            }
+            return Arrays.copyOf(buffer, length);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed value", e);
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    public String getCurrentKeyId() {
+        return currentKeyId;
+    }
+
+    /**
+     * Called by the data key service when envelope encryption is enabled
+     */
+    public void setDataKeyResolver(DataKeyResolver dataKeyResolver) {
+        this.dataKeyResolver = dataKeyResolver;
+    }
+
+    // Master keys by id; patient data keys ("p:<patientId>") through the resolver
+    private SecretKey resolveKey(String keyId) {
+        if (keyId.startsWith(PATIENT_KEY_PREFIX)) {
+            DataKeyResolver resolver = dataKeyResolver;
+            if (resolver == null) {
+                throw new IllegalStateException("Envelope encryption is not enabled");
+            }
+            return resolver.dataKeyFor(Integer.parseInt(keyId.substring(PATIENT_KEY_PREFIX.length())));
+        }
+        return keysById.get(keyId);
+    }
+
+    // True when the value is already in the current format under the current key or a patient data key.
+    // Values under a data key never need rewriting; a master key rotation only re-wraps the data keys.
+    public boolean isCurrent(String encryptedText) {
+        if (encryptedText == null || encryptedText.isEmpty()) {
+            return true;
+        }
+        if (!encryptedText.startsWith(PREFIX)) {
+            return false;
+        }
+        byte[] header = Base64.getDecoder().decode(encryptedText.substring(PREFIX.length()));
+        String keyId = new String(header, 3, header[2] & 0xFF, StandardCharsets.UTF_8);
+        return header[0] == FORMAT_VERSION && (keyId.equals(currentKeyId) || keyId.startsWith(PATIENT_KEY_PREFIX));
+    }
+
+    /**
+     * True when the value is stored the way it would be written for this patient now: under the patient's
+     * data key with envelope encryption, otherwise under the current key. Master-key values of a patient
+     * are therefore not current once envelope encryption is on.
+     */
+    public boolean isCurrent(String encryptedText, Integer patientId) {
+        if (encryptedText == null || encryptedText.isEmpty()) {
+            return true;
+        }
+        if (!encryptedText.startsWith(PREFIX)) {
+            return false;
+        }
+        return isCurrent(Base64.getDecoder().decode(encryptedText.substring(PREFIX.length())), patientId);
+    }
+
+    /**
+     * Binary form of {@link #isCurrent(String, Integer)}
+     */
+    public boolean isCurrent(byte[] encrypted, Integer patientId) {
+        if (encrypted == null || encrypted.length == 0) {
+            return true;
+        }
+        if (encrypted[0] != FORMAT_VERSION) {
+            return false;
         }
+        String keyId = new String(encrypted, 3, encrypted[2] & 0xFF, StandardCharsets.UTF_8);
+        if (envelopeEnabled && patientId != null && dataKeyResolver != null) {
+            return keyId.equals(PATIENT_KEY_PREFIX + patientId);
+        }
+        return keyId.equals(currentKeyId) || keyId.startsWith(PATIENT_KEY_PREFIX);
     }
 
-    // Get the secret key from the configured string, ensuring it is 32 bytes for AES-256
-    private SecretKey getSecretKey() {
+    /**
+     * The legacy ECB key. It used to follow the current secret, which after a rotation would silently
+     * decrypt every ECB value with the wrong key, so a rotated deployment must name it explicitly.
+     */
+    private SecretKey legacyKey(boolean rotated) {
+        if (legacySecretKeyString == null || legacySecretKeyString.isBlank()) {
+            if (rotated) {
+                throw new IllegalStateException("encryption.legacy.secret.key must be set after a key rotation: "
+                        + "the secret legacy ECB values were written with, or \"none\" once none remain");
+            }
+            return currentKey;
+        }
+        return "none".equalsIgnoreCase(legacySecretKeyString.trim()) ? null : toSecretKey(legacySecretKeyString);
+    }
+
+    private String decryptLegacy(byte[] encrypted, int offset) throws GeneralSecurityException {
+        if (legacyKey == null) {
+            throw new IllegalStateException("Legacy ECB value found but encryption.legacy.secret.key is none");
+        }
+        Cipher cipher = LEGACY_CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, legacyKey);
+        byte[] decryptedBytes = cipher.doFinal(encrypted, offset, encrypted.length - offset);
+        return new String(decryptedBytes, StandardCharsets.UTF_8);
+    }
+
+    // Build the secret key from a configured string, zero-padded or truncated to 32 bytes for AES-256
+    private static SecretKey toSecretKey(String secret) {
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        byte[] normalizedKey = new byte[32];
+        System.arraycopy(keyBytes, 0, normalizedKey, 0, Math.min(keyBytes.length, 32));
+        return new SecretKeySpec(normalizedKey, ALGORITHM);
+    }
+
+    private static Cipher newCipher(String transformation) {
         try {
-            // Ensure the key is exactly 32 bytes for AES-256
-            byte[] keyBytes = secretKeyString.getBytes();
-            byte[] normalizedKey = new byte[32];
-            System.arraycopy(keyBytes, 0, normalizedKey, 0, Math.min(keyBytes.length, 32));
-            
-            return new SecretKeySpec(normalizedKey, ALGORITHM);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Error creating secret key", e);
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cipher " + transformation + " is not available", e);
         }
     }
 
@@ -80,4 +452,11 @@ public class EncryptionService {
             throw new RuntimeException("Error generating key", e);
         }
     }
+
+    /**
+     * Supplies the unwrapped data key of a patient, creating it on first use
+     */
+    public interface DataKeyResolver {
+        SecretKey dataKeyFor(int patientId);
+    }
 }
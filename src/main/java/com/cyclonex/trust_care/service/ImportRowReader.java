@@ -0,0 +1,181 @@
+package com.cyclonex.trust_care.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rows of an import file one at a time: NDJSON (one JSON object per line) or CSV with a
+ * header row (RFC 4180, quoted fields may span lines). A row that cannot be parsed comes back with
+ * an error and reading carries on with the next one. Empty values are read as null.
+ */
+final class ImportRowReader implements Closeable {
+
+    private final BufferedReader reader;
+    private final DataFormat format;
+    private final ObjectMapper objectMapper;
+    private List<String> header;
+    private long line = 1;
+
+    ImportRowReader(Reader reader, DataFormat format, ObjectMapper objectMapper) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 64 * 1024);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * The next row, or null at the end of the file
+     */
+    Row next() throws IOException {
+        return format == DataFormat.NDJSON ? nextJson() : nextCsv();
+    }
+
+    private Row nextJson() throws IOException {
+        String text;
+        long start;
+        do {
+            text = reader.readLine();
+            start = line++;
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+        try {
+            JsonNode node = objectMapper.readTree(text);
+            if (!node.isObject()) {
+                return Row.error(start, "Expected a JSON object");
+            }
+            Map<String, String> values = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode value = field.getValue();
+                values.put(field.getKey(), value.isNull() || value.asText().isEmpty() ? null : value.asText());
+            }
+            return new Row(start, values, null);
+        } catch (JsonProcessingException e) {
+            return Row.error(start, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Row nextCsv() throws IOException {
+        if (header == null) {
+            List<String> names = readRecord();
+            if (names == null) {
+                return null;
+            }
+            // A UTF-8 byte order mark is not part of the first column name
+            if (!names.isEmpty() && names.get(0).startsWith("\uFEFF")) {
+                names.set(0, names.get(0).substring(1));
+            }
+            header = names.stream().map(String::trim).toList();
+        }
+        List<String> fields;
+        long start;
+        try {
+            do {
+                start = line;
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isEmpty());
+        } catch (UnterminatedQuoteException e) {
+            return Row.error(e.line, "Unterminated quoted field");
+        }
+        if (fields.size() != header.size()) {
+            return Row.error(start, "Expected " + header.size() + " fields but found " + fields.size());
+        }
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            values.put(header.get(i), fields.get(i).isEmpty() ? null : fields.get(i));
+        }
+        return new Row(start, values, null);
+    }
+
+    // One CSV record; null at the end of the input
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        long start = line;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new UnterminatedQuoteException(start);
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * A parsed row and the line it starts on; values is null when the row could not be parsed
+     */
+    record Row(long line, Map<String, String> values, String error) {
+
+        static Row error(long line, String error) {
+            return new Row(line, null, error);
+        }
+    }
+
+    private static final class UnterminatedQuoteException extends IOException {
+
+        final long line;
+
+        UnterminatedQuoteException(long line) {
+            super("Unterminated quoted field at line " + line);
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.cyclonex.trust_care.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-node OTP store backed by a bounded ConcurrentHashMap
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    @Value("${otp.store.max-entries:100000}")
+    private int maxEntries;
+
+    private final Map<String, OtpData> otpStorage = new ConcurrentHashMap<>();
+    // Number of slots taken in otpStorage; reserved before insert so the cap is never exceeded
+    private final AtomicInteger storedCount = new AtomicInteger();
+    private Clock clock = Clock.systemUTC();
+
+    @Override
+    public void store(String username, String otp, Duration timeToLive) {
+        OtpData otpData = new OtpData(otp, clock.millis() + timeToLive.toMillis());
+
+        // Replacing a user's pending OTP does not take a new slot
+        if (otpStorage.replace(username, otpData) != null) {
+            return;
+        }
+
+        reserveSlot();
+        if (otpStorage.put(username, otpData) != null) {
+            // Another thread stored an OTP for the same user in the meantime
+            storedCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * The read path takes no locks; removal is conditional, so when several
+     * requests race with the same valid OTP only one of them succeeds.
+     */
+    @Override
+    public boolean verifyAndConsume(String username, String otp) {
+        OtpData otpData = otpStorage.get(username);
+
+        if (otpData == null || otp == null) {
+            return false;
+        }
+
+        // Check if OTP is expired
+        if (otpData.isExpired(clock.millis())) {
+            removeEntry(username, otpData);
+            return false;
+        }
+
+        boolean isValid = MessageDigest.isEqual(
+                otpData.otp().getBytes(StandardCharsets.UTF_8),
+                otp.getBytes(StandardCharsets.UTF_8));
+
+        // Remove OTP after verification (one-time use)
+        return isValid && removeEntry(username, otpData);
+    }
+
+    @Override
+    public void clear(String username) {
+        if (otpStorage.remove(username) != null) {
+            storedCount.decrementAndGet();
+        }
+    }
+
+    @Override
+    public int purgeExpired() {
+        long now = clock.millis();
+        int removed = 0;
+        for (Map.Entry<String, OtpData> entry : otpStorage.entrySet()) {
+            if (entry.getValue().isExpired(now) && removeEntry(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Number of OTPs currently held
+     */
+    public int size() {
+        return storedCount.get();
+    }
+
+    private void reserveSlot() {
+        if (tryReserveSlot()) {
+            return;
+        }
+        purgeExpired();
+        if (!tryReserveSlot()) {
+            throw new IllegalStateException("OTP store is at capacity");
+        }
+    }
+
+    private boolean tryReserveSlot() {
+        int current;
+        do {
+            current = storedCount.get();
+            if (current >= maxEntries) {
+                return false;
+            }
+        } while (!storedCount.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private boolean removeEntry(String username, OtpData otpData) {
+        if (otpStorage.remove(username, otpData)) {
+            storedCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * OTP with its expiry time in epoch milliseconds
+     */
+    private record OtpData(String otp, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.cyclonex.trust_care.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * PostgreSQL OTP store shared by all backend instances.
+ * The otp_challenge table (see db/migration) is UNLOGGED: pending OTPs are short-lived, so skipping
+ * the WAL is worth losing them on a database crash (users simply request a new one).
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store.type", havingValue = "jdbc")
+public class JdbcOtpStore implements OtpStore {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO otp_challenge (username, otp_hash, expires_at) " +
+            "VALUES (?, ?, now() + make_interval(secs => ?)) " +
+            "ON CONFLICT (username) DO UPDATE SET otp_hash = EXCLUDED.otp_hash, expires_at = EXCLUDED.expires_at";
+
+    // Verify and consume in one round trip: only a matching, unexpired row is deleted and returned
+    private static final String VERIFY_SQL =
+            "DELETE FROM otp_challenge WHERE username = ? AND otp_hash = ? AND expires_at > now() RETURNING username";
+
+    private static final String DELETE_SQL = "DELETE FROM otp_challenge WHERE username = ?";
+
+    private static final String PURGE_BATCH_SQL =
+            "DELETE FROM otp_challenge WHERE ctid = ANY(ARRAY(" +
+            "SELECT ctid FROM otp_challenge WHERE expires_at <= now() LIMIT ?))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${otp.store.jdbc.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Autowired
+    public JdbcOtpStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void store(String username, String otp, Duration timeToLive) {
+        jdbcTemplate.update(UPSERT_SQL, username, hash(username, otp), timeToLive.toSeconds());
+    }
+
+    @Override
+    public boolean verifyAndConsume(String username, String otp) {
+        if (otp == null) {
+            return false;
+        }
+        return !jdbcTemplate.queryForList(VERIFY_SQL, String.class, username, hash(username, otp)).isEmpty();
+    }
+
+    @Override
+    public void clear(String username) {
+        jdbcTemplate.update(DELETE_SQL, username);
+    }
+
+    /**
+     * Delete expired rows in bounded batches, so a large backlog never holds long row locks
+     */
+    @Override
+    public int purgeExpired() {
+        int total = 0;
+        int removed;
+        do {
+            removed = jdbcTemplate.update(PURGE_BATCH_SQL, purgeBatchSize);
+            total += removed;
+        } while (removed == purgeBatchSize);
+        return total;
+    }
+
+    // OTPs are stored as a digest bound to the username, never as plain codes
+    private String hash(String username, String otp) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(otp.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
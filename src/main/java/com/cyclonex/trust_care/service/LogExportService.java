@@ -0,0 +1,191 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.dto.AuditLogExportRow;
+import com.cyclonex.trust_care.dto.RequestLogExportRow;
+import com.cyclonex.trust_care.repository.AuditLogRepository;
+import com.cyclonex.trust_care.repository.RequestLogRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming exports of the audit and request logs for compliance.
+ * Rows are read as flat projections through a database cursor inside a read-only transaction
+ * and written to the response one at a time as NDJSON or CSV, optionally gzipped. Projections
+ * are never managed by the persistence context, so memory use does not grow with the export.
+ * The response body is written on the export executor, see WebMvcConfig.
+ */
+@Service
+public class LogExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(LogExportService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final List<String> AUDIT_LOG_COLUMNS =
+            List.of("id", "timestamp", "userId", "action", "resource", "requestId");
+    private static final List<String> REQUEST_LOG_COLUMNS =
+            List.of("id", "timestamp", "requestId", "userId", "operation", "outcome");
+
+    private final AuditLogRepository auditLogRepository;
+    private final RequestLogRepository requestLogRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter jsonWriter;
+
+    @Autowired
+    public LogExportService(AuditLogRepository auditLogRepository, RequestLogRepository requestLogRepository,
+                            PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.auditLogRepository = auditLogRepository;
+        this.requestLogRepository = requestLogRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // The response is flushed by its buffer, not after every row
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(LocalDateTime start, LocalDateTime end,
+                                                                 String format, boolean gzip) {
+        DataFormat exportFormat = DataFormat.parse(format);
+        return response("audit_log", exportFormat, gzip,
+                () -> auditLogRepository.streamForExport(start, end), AUDIT_LOG_COLUMNS,
+                row -> new Object[]{row.id(), row.timestamp(), row.userId(), row.action(), row.resource(), row.requestId()});
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportRequestLogs(LocalDateTime start, LocalDateTime end,
+                                                                   String format, boolean gzip) {
+        DataFormat exportFormat = DataFormat.parse(format);
+        return response("request_log", exportFormat, gzip,
+                () -> requestLogRepository.streamForExport(start, end), REQUEST_LOG_COLUMNS,
+                row -> new Object[]{row.id(), row.timestamp(), row.requestId(), row.userId(), row.operation(), row.outcome()});
+    }
+
+    private <T> ResponseEntity<StreamingResponseBody> response(String name, DataFormat format, boolean gzip,
+                                                               Supplier<Stream<T>> rows, List<String> columns,
+                                                               Function<T, Object[]> values) {
+        StreamingResponseBody body = out -> {
+            Long count = transactionTemplate.execute(status -> {
+                try (Stream<T> stream = rows.get()) {
+                    return write(stream, out, format, gzip, columns, values);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Exported {} {} rows as {}", count, name, format.extension);
+        };
+
+        String fileName = name + "." + format.extension + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : format.mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Write every row of the stream to the output; returns the number of rows written
+     */
+    <T> long write(Stream<T> rows, OutputStream target, DataFormat format, boolean gzip,
+                   List<String> columns, Function<T, Object[]> values) throws IOException {
+        long[] count = {0};
+        // Closing finishes the gzip trailer and flushes; the container closes the response stream itself
+        OutputStream body = new NonClosingOutputStream(target);
+        try (OutputStream out = gzip ? new GZIPOutputStream(body, BUFFER_SIZE) : new BufferedOutputStream(body, BUFFER_SIZE)) {
+            if (format == DataFormat.NDJSON) {
+                try (JsonGenerator generator = jsonWriter.createGenerator(out)) {
+                    // Rows are separated by the newline written after each one, not the default space
+                    generator.setRootValueSeparator(null);
+                    rows.forEach(row -> {
+                        try {
+                            jsonWriter.writeValue(generator, row);
+                            generator.writeRaw('\n');
+                            count[0]++;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            } else {
+                writeCsvLine(out, columns.toArray());
+                rows.forEach(row -> {
+                    try {
+                        writeCsvLine(out, values.apply(row));
+                        count[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        }
+        return count[0];
+    }
+
+    private static void writeCsvLine(OutputStream out, Object[] values) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(csvField(values[i]));
+        }
+        line.append("\r\n");
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // RFC 4180 quoting; a leading formula character is neutralized so spreadsheets show the text as-is
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof LocalDateTime timestamp
+                ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp) : value.toString();
+        if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0 && !(value instanceof Number)) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.dto.LogPartitionStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of audit_log and request_log (see V4__partition_log_tables.sql).
+ * Partitions are created months-ahead months in advance, so an insert never finds its month
+ * missing. If maintenance fails for longer than that, inserts land in the DEFAULT partition
+ * (V7__log_default_partitions.sql); the next run moves them into their month's partition, and
+ * every run logs an error while a DEFAULT partition holds rows or no month ahead is left.
+ * With a retention set, months that ended more than retention-months ago are detached
+ * and dropped: one metadata change per month instead of a DELETE of every row.
+ * Runs at startup and daily; instances serialize on an advisory lock.
+ */
+@Service
+public class LogPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(LogPartitionService.class);
+
+    static final List<String> TABLES = List.of("audit_log", "request_log");
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("_p(\\d{4})_(\\d{2})$");
+
+    // Arbitrary key for pg_advisory_xact_lock, shared by every instance
+    private static final long MAINTENANCE_LOCK = 0x74727573746c6f67L;
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = to_regclass(?) ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${logging.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${logging.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Autowired
+    public LogPartitionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${logging.partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        for (String table : TABLES) {
+            try {
+                createAhead(table, current);
+                if (retentionMonths > 0) {
+                    dropExpired(table, current);
+                }
+            } catch (RuntimeException e) {
+                // Retried on the next run; months ahead leave room for several failed runs
+                log.error("Partition maintenance of {} failed: {}", table, e.getMessage(), e);
+            }
+        }
+        reportHealth();
+    }
+
+    private void reportHealth() {
+        try {
+            for (LogPartitionStats stats : getStats()) {
+                if (stats.monthsAhead() == null || stats.monthsAhead() < 1) {
+                    log.error("{} has no partition for next month (newest: {}); new rows will go to {}",
+                            stats.table(), stats.newestPartition(), defaultPartitionName(stats.table()));
+                }
+                if (stats.defaultPartitionRows() > 0) {
+                    log.error("{} holds {} rows outside any monthly partition",
+                            defaultPartitionName(stats.table()), stats.defaultPartitionRows());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not check log partitions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Per table: the newest monthly partition, how many months past the current one it is, and the
+     * rows in the DEFAULT partition (0 unless maintenance has fallen behind)
+     */
+    public List<LogPartitionStats> getStats() {
+        YearMonth current = YearMonth.now();
+        List<LogPartitionStats> stats = new ArrayList<>();
+        for (String table : TABLES) {
+            YearMonth newest = newestMonth(partitionsOf(table));
+            Long defaultRows = jdbcTemplate.queryForObject("SELECT count(*) FROM " + defaultPartitionName(table), Long.class);
+            stats.add(new LogPartitionStats(table, newest != null ? partitionName(table, newest) : null,
+                    newest != null ? (int) ChronoUnit.MONTHS.between(current, newest) : null,
+                    defaultRows != null ? defaultRows : 0));
+        }
+        return stats;
+    }
+
+    private void createAhead(String table, YearMonth current) {
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            Set<String> existing = new HashSet<>(partitionsOf(table));
+            Set<YearMonth> stranded = new TreeSet<>(monthsInDefault(table));
+            Set<YearMonth> months = new TreeSet<>(stranded);
+            for (int i = 0; i <= monthsAhead; i++) {
+                months.add(current.plusMonths(i));
+            }
+            for (YearMonth month : months) {
+                if (existing.contains(partitionName(table, month))) {
+                    continue;
+                }
+                if (stranded.contains(month)) {
+                    // Creating the partition in place would fail on the DEFAULT partition's rows for this month
+                    splitOutSql(table, month).forEach(jdbcTemplate::execute);
+                    log.warn("Moved {} rows for {} out of {}", table, month, defaultPartitionName(table));
+                } else {
+                    jdbcTemplate.execute(createPartitionSql(table, month));
+                }
+            }
+        });
+    }
+
+    private List<YearMonth> monthsInDefault(String table) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT date_trunc('month', timestamp)::date FROM "
+                + defaultPartitionName(table), LocalDate.class).stream().map(YearMonth::from).toList();
+    }
+
+    // One short transaction per month: DETACH locks the parent table, so it must not wait behind long queries
+    private void dropExpired(String table, YearMonth current) {
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String partition : expiredPartitions(partitionsOf(table), oldestKept)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                lock();
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            });
+            log.info("Dropped {} partition {} (retention {} months)", table, partition, retentionMonths);
+        }
+    }
+
+    // Held until the transaction ends
+    private void lock() {
+        jdbcTemplate.queryForObject("SELECT 1 FROM pg_advisory_xact_lock(?)", Integer.class, MAINTENANCE_LOCK);
+    }
+
+    private List<String> partitionsOf(String table) {
+        return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, table);
+    }
+
+    static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX);
+    }
+
+    static String defaultPartitionName(String table) {
+        return table + "_default";
+    }
+
+    static String createPartitionSql(String table, YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(table, month) + " PARTITION OF " + table
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+    }
+
+    /**
+     * Create a month's partition as a plain table, move its rows out of the DEFAULT partition and attach it
+     */
+    static List<String> splitOutSql(String table, YearMonth month) {
+        String partition = partitionName(table, month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        return List.of(
+                "CREATE TABLE " + partition + " (LIKE " + table + " INCLUDING DEFAULTS)",
+                "WITH moved AS (DELETE FROM " + defaultPartitionName(table) + " WHERE timestamp >= '" + from
+                        + "' AND timestamp < '" + to + "' RETURNING *) INSERT INTO " + partition + " SELECT * FROM moved",
+                "ALTER TABLE " + table + " ATTACH PARTITION " + partition
+                        + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    /**
+     * Monthly partitions that end before oldestKept begins; names not following the monthly pattern are left alone
+     */
+    static List<String> expiredPartitions(List<String> partitions, YearMonth oldestKept) {
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                expired.add(partition);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * The latest month with a partition, or null if there is none
+     */
+    static YearMonth newestMonth(List<String> partitions) {
+        YearMonth newest = null;
+        for (String partition : partitions) {
+            YearMonth month = monthOf(partition);
+            if (month != null && (newest == null || month.isAfter(newest))) {
+                newest = month;
+            }
+        }
+        return newest;
+    }
+
+    private static YearMonth monthOf(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        if (!matcher.find()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+}
@@ -0,0 +1,145 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.config.AsyncConfig;
+import com.cyclonex.trust_care.entity.RequestLog;
+import com.cyclonex.trust_care.repository.RequestLogRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue for request log entries.
+ * Every request produces a log entry; inserting each on its own costs a round trip per request.
+ * Entries are queued instead and inserted in one transaction per batch, which Hibernate sends as
+ * JDBC batches (ids come from pooled sequences, so no insert has to run on its own to learn its id).
+ * When the queue is full the caller inserts the waiting entries itself.
+ * Queued entries live only in memory: a crash loses what was queued, normally one flush interval's
+ * worth and at most capacity entries. Audit entries are therefore not buffered (see AuditLogService).
+ * Entries that fail to insert even one by one are counted in {@link #getFailedEntries()}.
+ */
+@Service
+public class LogWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(LogWriteBuffer.class);
+
+    private final RequestLogRepository requestLogRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor auditExecutor;
+    private final BlockingQueue<RequestLog> pending;
+    private final int batchSize;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong failedEntries = new AtomicLong();
+
+    @Autowired
+    public LogWriteBuffer(RequestLogRepository requestLogRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Qualifier(AsyncConfig.AUDIT_EXECUTOR) TaskExecutor auditExecutor,
+                          @Value("${logging.write-buffer.batch-size:200}") int batchSize,
+                          @Value("${logging.write-buffer.capacity:20000}") int capacity) {
+        this.requestLogRepository = requestLogRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.auditExecutor = auditExecutor;
+        this.batchSize = Math.max(1, batchSize);
+        this.pending = new LinkedBlockingQueue<>(Math.max(this.batchSize, capacity));
+    }
+
+    public void add(RequestLog requestLog) {
+        // Stamped now, not when the batch is inserted, so entries keep their order and month partition
+        if (requestLog.getTimestamp() == null) {
+            requestLog.setTimestamp(LocalDateTime.now());
+        }
+        while (!pending.offer(requestLog)) {
+            // Full: insert a batch on this thread rather than lose the entry
+            flushBatch();
+        }
+        if (pending.size() >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    // A full batch is waiting; insert it now rather than at the next scheduled flush
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            auditExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        } catch (RuntimeException e) {
+            // Executor saturated; the scheduled flush will insert them
+            flushRequested.set(false);
+        }
+    }
+
+    /**
+     * Insert everything queued, a batch at a time
+     */
+    @Scheduled(fixedDelayString = "${logging.write-buffer.flush-interval-ms:200}")
+    public void flush() {
+        while (flushBatch() > 0) {
+            // Keep going until the queue is drained
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public int getPendingEntries() {
+        return pending.size();
+    }
+
+    // Entries lost because they could not be inserted, since startup
+    public long getFailedEntries() {
+        return failedEntries.get();
+    }
+
+    /**
+     * Insert up to one batch of queued entries; returns how many were taken off the queue
+     */
+    int flushBatch() {
+        List<RequestLog> batch = new ArrayList<>(batchSize);
+        pending.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> requestLogRepository.saveAll(batch));
+        } catch (RuntimeException e) {
+            // One bad entry must not take the rest of the batch with it
+            log.warn("Batch insert of {} log entries failed, inserting them one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::saveOne);
+        }
+        return batch.size();
+    }
+
+    // The failed transaction may have assigned ids; clear them so the entry is inserted, not merged
+    private void saveOne(RequestLog requestLog) {
+        try {
+            requestLog.setId(0);
+            requestLogRepository.save(requestLog);
+        } catch (RuntimeException e) {
+            failedEntries.incrementAndGet();
+            log.error("Failed to insert request log entry {}: {}", requestLog.getRequestId(), e.getMessage());
+        }
+    }
+}
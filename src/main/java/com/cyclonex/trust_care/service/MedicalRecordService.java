@@ -1,63 +1,94 @@
 package com.cyclonex.trust_care.service;
 
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.MedicalRecordView;
+import com.cyclonex.trust_care.entity.EncryptedText;
 import com.cyclonex.trust_care.entity.MedicalRecord;
 import com.cyclonex.trust_care.repository.MedicalRecordRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class MedicalRecordService {
 
     private final MedicalRecordRepository medicalRecordRepository;
-    private final EncryptionService encryptionService;
+    private final BulkDecryptionService bulkDecryptionService;
+    private final BlindIndexService blindIndexService;
+    private final PaginationService paginationService;
 
     @Autowired
-    public MedicalRecordService(MedicalRecordRepository medicalRecordRepository, EncryptionService encryptionService) {
+    public MedicalRecordService(MedicalRecordRepository medicalRecordRepository,
+                                BulkDecryptionService bulkDecryptionService,
+                                BlindIndexService blindIndexService,
+                                PaginationService paginationService) {
         this.medicalRecordRepository = medicalRecordRepository;
-        this.encryptionService = encryptionService;
+        this.bulkDecryptionService = bulkDecryptionService;
+        this.blindIndexService = blindIndexService;
+        this.paginationService = paginationService;
     }
 
     public MedicalRecord saveMedicalRecord(MedicalRecord medicalRecord) {
-        // Encrypt sensitive data before saving
-        if (medicalRecord.getDiagnosisEncrypted() != null && !medicalRecord.getDiagnosisEncrypted().isEmpty()) {
-            medicalRecord.setDiagnosisEncrypted(encryptionService.encrypt(medicalRecord.getDiagnosisEncrypted()));
-        }
-        if (medicalRecord.getTreatmentEncrypted() != null && !medicalRecord.getTreatmentEncrypted().isEmpty()) {
-            medicalRecord.setTreatmentEncrypted(encryptionService.encrypt(medicalRecord.getTreatmentEncrypted()));
-        }
+        // Sensitive fields are encrypted by EncryptedTextConverter when the record is written
+        EncryptedText diagnosis = medicalRecord.getDiagnosisEncrypted();
+        medicalRecord.setDiagnosisBidx(diagnosis != null ? blindIndexService.index(diagnosis.getPlaintext()) : null);
         return medicalRecordRepository.save(medicalRecord);
     }
 
-    public List<MedicalRecord> getAllMedicalRecords() {
-        List<MedicalRecord> records = medicalRecordRepository.findAll();
-        return records.stream().map(this::decryptMedicalRecord).collect(Collectors.toList());
+    public CursorPage<MedicalRecordView> getAllMedicalRecords(String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        List<MedicalRecordView> rows = medicalRecordRepository.findViewPageAfter(
+                paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return decryptPage(paginationService.idPage(rows, pageSize, MedicalRecordView::id));
     }
 
-    public MedicalRecord getMedicalRecordById(int id) {
-        MedicalRecord record = medicalRecordRepository.findById(id).orElse(null);
-        return record != null ? decryptMedicalRecord(record) : null;
+    public MedicalRecordView getMedicalRecordById(int id) {
+        // Fields decrypt lazily when the record is serialized
+        return medicalRecordRepository.findViewById(id).orElse(null);
     }
 
-    public List<MedicalRecord> getMedicalRecordsByPatientId(int patientId) {
-        List<MedicalRecord> records = medicalRecordRepository.findByPatientId(patientId);
-        return records.stream().map(this::decryptMedicalRecord).collect(Collectors.toList());
+    public CursorPage<MedicalRecordView> getMedicalRecordsByPatientId(int patientId, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        List<MedicalRecordView> rows = medicalRecordRepository.findViewPageByPatientIdAfter(
+                patientId, paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return decryptPage(paginationService.idPage(rows, pageSize, MedicalRecordView::id));
+    }
+
+    /**
+     * Exact-match search on the diagnosis through its blind index, without decrypting the table
+     */
+    public CursorPage<MedicalRecordView> getMedicalRecordsByDiagnosis(String diagnosis, String cursor, Integer size) {
+        String index = blindIndexService.index(diagnosis);
+        if (index == null) {
+            return new CursorPage<>(List.of(), null);
+        }
+        int pageSize = paginationService.pageSize(size);
+        List<MedicalRecordView> rows = medicalRecordRepository.findViewPageByDiagnosisBidxAfter(
+                index, paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return decryptPage(paginationService.idPage(rows, pageSize, MedicalRecordView::id));
     }
 
     public void deleteMedicalRecord(int id) {
         medicalRecordRepository.deleteById(id);
     }
 
-    private MedicalRecord decryptMedicalRecord(MedicalRecord record) {
-        // Decrypt sensitive data when retrieving
-        if (record.getDiagnosisEncrypted() != null && !record.getDiagnosisEncrypted().isEmpty()) {
-            record.setDiagnosisEncrypted(encryptionService.decrypt(record.getDiagnosisEncrypted()));
-        }
-        if (record.getTreatmentEncrypted() != null && !record.getTreatmentEncrypted().isEmpty()) {
-            record.setTreatmentEncrypted(encryptionService.decrypt(record.getTreatmentEncrypted()));
+    // Only the rows of the page are decrypted, not the look-ahead row
+    private CursorPage<MedicalRecordView> decryptPage(CursorPage<MedicalRecordView> page) {
+        bulkDecryptionService.decryptAll(page.items(), this::decryptMedicalRecord, "medical record");
+        return page;
+    }
+
+    // List results are serialized in full, so decrypt their fields up front on the bulk pool.
+    // Each holder caches its own plaintext.
+    private void decryptMedicalRecord(MedicalRecordView record) {
+        decrypt(record.diagnosis());
+        decrypt(record.treatment());
+    }
+
+    private static void decrypt(EncryptedText value) {
+        if (value != null) {
+            value.getPlaintext();
         }
-        return record;
     }
 }
@@ -1,12 +1,12 @@
 package com.cyclonex.trust_care.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 
 @Service
 public class OtpService {
@@ -17,9 +17,14 @@ public class OtpService {
     @Value("${otp.length:6}")
     private int otpLength;
 
-    private final Map<String, OtpData> otpStorage = new HashMap<>();
+    private final OtpStore otpStore;
     private final SecureRandom secureRandom = new SecureRandom();
 
+    @Autowired
+    public OtpService(OtpStore otpStore) {
+        this.otpStore = otpStore;
+    }
+
     /**
      * Generate a random OTP
      */
@@ -32,65 +37,32 @@ public class OtpService {
     }
 
     /**
-     * Store OTP with expiration time
+     * Store OTP with expiration time.
+     * Throws IllegalStateException when the store is full even after dropping expired entries.
      */
     public void storeOtp(String username, String otp) {
-        LocalDateTime expiryTime = LocalDateTime.now().plusMinutes(otpExpiryMinutes);
-        otpStorage.put(username, new OtpData(otp, expiryTime));
+        otpStore.store(username, otp, Duration.ofMinutes(otpExpiryMinutes));
     }
 
     /**
-     * Verify OTP
+     * Verify OTP; a valid OTP is consumed so it cannot be used twice
      */
     public boolean verifyOtp(String username, String otp) {
-        OtpData otpData = otpStorage.get(username);
-        
-        if (otpData == null) {
-            return false;
-        }
-
-        // Check if OTP is expired
-        if (LocalDateTime.now().isAfter(otpData.getExpiryTime())) {
-            otpStorage.remove(username);
-            return false;
-        }
-
-        // Verify OTP
-        boolean isValid = otpData.getOtp().equals(otp);
-        
-        // Remove OTP after verification (one-time use)
-        if (isValid) {
-            otpStorage.remove(username);
-        }
-        
-        return isValid;
+        return otpStore.verifyAndConsume(username, otp);
     }
 
     /**
      * Clear OTP for a user
      */
     public void clearOtp(String username) {
-        otpStorage.remove(username);
+        otpStore.clear(username);
     }
 
     /**
-     * Inner class to store OTP with expiry time
+     * Drop every expired OTP, so abandoned logins do not accumulate
      */
-    private static class OtpData {
-        private final String otp;
-        private final LocalDateTime expiryTime;
-
-        public OtpData(String otp, LocalDateTime expiryTime) {
-            this.otp = otp;
-            this.expiryTime = expiryTime;
-        }
-
-        public String getOtp() {
-            return otp;
-        }
-
-        public LocalDateTime getExpiryTime() {
-            return expiryTime;
-        }
+    @Scheduled(fixedDelayString = "${otp.sweep.interval-ms:30000}")
+    public void purgeExpired() {
+        otpStore.purgeExpired();
     }
 }
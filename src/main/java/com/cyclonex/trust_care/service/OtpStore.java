@@ -0,0 +1,32 @@
+package com.cyclonex.trust_care.service;
+
+import java.time.Duration;
+
+/**
+ * Storage for pending login OTPs.
+ * The in-memory store is the default; the JDBC store lets any instance behind a
+ * load balancer verify an OTP issued by another one (otp.store.type=jdbc).
+ */
+public interface OtpStore {
+
+    /**
+     * Store the OTP for the user, replacing any pending one.
+     * Throws IllegalStateException when the store cannot take more entries.
+     */
+    void store(String username, String otp, Duration timeToLive);
+
+    /**
+     * Atomically check the OTP and consume it; returns false if it is wrong, expired or already used
+     */
+    boolean verifyAndConsume(String username, String otp);
+
+    /**
+     * Remove the pending OTP of the user, if any
+     */
+    void clear(String username);
+
+    /**
+     * Remove expired OTPs and return how many were removed
+     */
+    int purgeExpired();
+}
@@ -0,0 +1,124 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.dto.CursorPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keyset pagination for the list endpoints.
+ * Tables are read in id order, or newest first on (timestamp, id) for the log tables, starting after
+ * the last row of the previous page, so every page costs one index range scan however deep it is.
+ * Cursors are opaque URL-safe tokens holding that last row's key. One extra row is fetched to tell
+ * whether another page follows.
+ */
+@Service
+public class PaginationService {
+
+    // Before every stored timestamp; the starting point of the first newest-first page
+    static final LocalDateTime NEWEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final char SEPARATOR = '|';
+
+    @Value("${pagination.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${pagination.max-page-size:200}")
+    private int maxPageSize;
+
+    /**
+     * The requested page size, defaulted and capped at pagination.max-page-size
+     */
+    public int pageSize(Integer requested) {
+        if (requested == null) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        return Math.max(1, Math.min(requested, maxPageSize));
+    }
+
+    // One row more than the page, so the page knows whether it is the last
+    public Limit fetchLimit(int pageSize) {
+        return Limit.of(pageSize + 1);
+    }
+
+    /**
+     * The id to continue after; 0 for the first page
+     */
+    public int afterId(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(decode(cursor));
+        } catch (NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+
+    /**
+     * The (timestamp, id) to continue before; a point after every row for the first page
+     */
+    public TimestampCursor before(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return new TimestampCursor(NEWEST, Integer.MAX_VALUE);
+        }
+        String value = decode(cursor);
+        int separator = value.lastIndexOf(SEPARATOR);
+        if (separator <= 0) {
+            throw invalidCursor();
+        }
+        try {
+            return new TimestampCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Integer.parseInt(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+
+    public <T> CursorPage<T> idPage(List<T> rows, int pageSize, ToIntFunction<T> id) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new CursorPage<>(items, encode(String.valueOf(id.applyAsInt(items.get(pageSize - 1)))));
+    }
+
+    public <T> CursorPage<T> timestampPage(List<T> rows, int pageSize,
+                                           Function<T, LocalDateTime> timestamp, ToIntFunction<T> id) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        T last = items.get(pageSize - 1);
+        return new CursorPage<>(items, encode(timestamp.apply(last).toString() + SEPARATOR + id.applyAsInt(last)));
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+    }
+
+    private static ResponseStatusException invalidCursor() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+
+    public record TimestampCursor(LocalDateTime timestamp, int id) {
+    }
+}
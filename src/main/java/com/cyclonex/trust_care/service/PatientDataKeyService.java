@@ -0,0 +1,137 @@
+package com.cyclonex.trust_care.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-patient data keys for envelope encryption.
+ * Each patient's clinical fields are encrypted under their own random AES-256 key. The key is
+ * stored in patient_data_key wrapped (encrypted) by the master key, so rotating the master key
+ * only re-wraps these rows instead of rewriting every clinical row. Unwrapped keys are kept in
+ * a bounded LRU so repeated reads of one patient's records unwrap once.
+ */
+@Service
+public class PatientDataKeyService implements EncryptionService.DataKeyResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientDataKeyService.class);
+
+    private static final String SELECT_SQL = "SELECT wrapped_key FROM patient_data_key WHERE patient_id = ?";
+
+    // A concurrent creator may win; its key is then read back and used instead
+    private static final String INSERT_SQL =
+            "INSERT INTO patient_data_key (patient_id, wrapped_key, master_key_id) VALUES (?, ?, ?) " +
+            "ON CONFLICT (patient_id) DO NOTHING";
+
+    private static final String SELECT_STALE_SQL =
+            "SELECT patient_id, wrapped_key FROM patient_data_key " +
+            "WHERE master_key_id <> ? AND patient_id > ? ORDER BY patient_id LIMIT ?";
+
+    private static final String REWRAP_SQL =
+            "UPDATE patient_data_key SET wrapped_key = ?, master_key_id = ? WHERE patient_id = ? AND wrapped_key = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EncryptionService encryptionService;
+    private final TransactionTemplate newTransaction;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Map<Integer, SecretKey> unwrappedKeys;
+
+    @Value("${encryption.data-keys.rewrap-batch-size:1000}")
+    private int rewrapBatchSize;
+
+    @Autowired
+    public PatientDataKeyService(JdbcTemplate jdbcTemplate, EncryptionService encryptionService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${encryption.data-keys.cache-size:10000}") int cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.encryptionService = encryptionService;
+        // Keys are created in their own transaction so a key is durable before any data is written under it
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.unwrappedKeys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, SecretKey> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @PostConstruct
+    void init() {
+        encryptionService.setDataKeyResolver(this);
+    }
+
+    @Override
+    public SecretKey dataKeyFor(int patientId) {
+        synchronized (unwrappedKeys) {
+            SecretKey key = unwrappedKeys.get(patientId);
+            if (key != null) {
+                return key;
+            }
+        }
+        SecretKey key = unwrap(loadOrCreate(patientId));
+        synchronized (unwrappedKeys) {
+            unwrappedKeys.put(patientId, key);
+        }
+        return key;
+    }
+
+    /**
+     * Re-wrap every data key that is not under the current master key; returns the number re-wrapped
+     */
+    public int rewrapAll() {
+        String masterKeyId = encryptionService.getCurrentKeyId();
+        int lastPatientId = 0;
+        int rewrapped = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_STALE_SQL, masterKeyId, lastPatientId, rewrapBatchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> updates = rows.stream().map(row -> {
+                String wrapped = (String) row.get("wrapped_key");
+                return new Object[]{encryptionService.encrypt(encryptionService.decrypt(wrapped)), masterKeyId,
+                        row.get("patient_id"), wrapped};
+            }).toList();
+            for (int count : jdbcTemplate.batchUpdate(REWRAP_SQL, updates)) {
+                rewrapped += count == -2 ? 1 : count;
+            }
+            lastPatientId = ((Number) rows.get(rows.size() - 1).get("patient_id")).intValue();
+        }
+        log.info("Re-wrapped {} patient data keys under master key {}", rewrapped, masterKeyId);
+        return rewrapped;
+    }
+
+    private String loadOrCreate(int patientId) {
+        List<String> existing = jdbcTemplate.queryForList(SELECT_SQL, String.class, patientId);
+        if (!existing.isEmpty()) {
+            return existing.get(0);
+        }
+        return newTransaction.execute(status -> {
+            byte[] keyBytes = new byte[32];
+            secureRandom.nextBytes(keyBytes);
+            String wrapped = encryptionService.encrypt(Base64.getEncoder().encodeToString(keyBytes));
+            jdbcTemplate.update(INSERT_SQL, patientId, wrapped, encryptionService.getCurrentKeyId());
+            return jdbcTemplate.queryForObject(SELECT_SQL, String.class, patientId);
+        });
+    }
+
+    private SecretKey unwrap(String wrapped) {
+        return new SecretKeySpec(Base64.getDecoder().decode(encryptionService.decrypt(wrapped)), "AES");
+    }
+}
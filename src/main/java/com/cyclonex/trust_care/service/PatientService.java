@@ -2,6 +2,8 @@ package com.cyclonex.trust_care.service;
 
 import com.cyclonex.trust_care.entity.Patient;
 import com.cyclonex.trust_care.repository.PatientRepository;
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.PatientView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -11,18 +13,23 @@ import java.util.List;
 public class PatientService {
 
     private final PatientRepository patientRepository;
+    private final PaginationService paginationService;
 
     @Autowired
-    public PatientService(PatientRepository patientRepository) {
+    public PatientService(PatientRepository patientRepository, PaginationService paginationService) {
         this.patientRepository = patientRepository;
+        this.paginationService = paginationService;
     }
 
-    public Patient getPatientByUserId(int userId) {
-        return patientRepository.findByUser_Id(userId);
+    public PatientView getPatientByUserId(int userId) {
+        return patientRepository.findViewByUserId(userId).orElse(null);
     }
 
-    public List<Patient> getAllPatients() {
-        return patientRepository.findAll();
+    public CursorPage<PatientView> getAllPatients(String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        List<PatientView> rows = patientRepository.findViewPageAfter(
+                paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return paginationService.idPage(rows, pageSize, PatientView::id);
     }
 
     public Patient savePatient(Patient patient) {
@@ -33,7 +40,7 @@ public class PatientService {
         patientRepository.deleteById(id);
     }
 
-    public Patient getPatientById(int id) {
-        return patientRepository.findById(id).orElse(null);
+    public PatientView getPatientById(int id) {
+        return patientRepository.findViewById(id).orElse(null);
     }
 }
@@ -2,8 +2,11 @@ package com.cyclonex.trust_care.service;
 
 import com.cyclonex.trust_care.entity.Permission;
 import com.cyclonex.trust_care.repository.PermissionRepository;
+import com.cyclonex.trust_care.repository.RolePermissionRepository;
+import com.cyclonex.trust_care.security.RoleAuthorityCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -11,10 +14,19 @@ import java.util.List;
 public class PermissionService {
 
     private final PermissionRepository permissionRepository;
+    private final RolePermissionRepository rolePermissionRepository;
+    private final PermissionVersionService permissionVersionService;
+    private final RoleAuthorityCache roleAuthorityCache;
 
     @Autowired
-    public PermissionService(PermissionRepository permissionRepository) {
+    public PermissionService(PermissionRepository permissionRepository,
+                             RolePermissionRepository rolePermissionRepository,
+                             PermissionVersionService permissionVersionService,
+                             RoleAuthorityCache roleAuthorityCache) {
         this.permissionRepository = permissionRepository;
+        this.rolePermissionRepository = rolePermissionRepository;
+        this.permissionVersionService = permissionVersionService;
+        this.roleAuthorityCache = roleAuthorityCache;
     }
 
     public Permission getPermissionByName(String permissionName) {
@@ -25,11 +37,29 @@ public class PermissionService {
         return permissionRepository.findAll();
     }
 
+    @Transactional
     public Permission savePermission(Permission permission) {
-        return permissionRepository.save(permission);
+        Permission saved = permissionRepository.save(permission);
+        // Renaming a permission changes the authorities of every role that holds it
+        bumpRolesHolding(saved.getId());
+        return saved;
     }
 
+    @Transactional
     public void deletePermission(int id) {
+        bumpRolesHolding(id);
         permissionRepository.deleteById(id);
     }
+
+    private void bumpRolesHolding(int permissionId) {
+        rolePermissionRepository.findByPermission_Id(permissionId).stream()
+                .map(rolePermission -> rolePermission.getRole().getId())
+                .distinct()
+                .forEach(this::permissionsChanged);
+    }
+
+    private void permissionsChanged(int roleId) {
+        permissionVersionService.bumpVersion(roleId);
+        roleAuthorityCache.evict(roleId);
+    }
 }
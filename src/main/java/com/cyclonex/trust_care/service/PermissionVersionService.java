@@ -0,0 +1,78 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.repository.RoleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the permissions version of each role.
+ * Versions are read from the role table at most once per refresh interval per role,
+ * so checking a token's stamp costs a map lookup on the request path.
+ */
+@Service
+public class PermissionVersionService {
+
+    private final RoleRepository roleRepository;
+
+    @Value("${security.permissions-version.refresh-ms:30000}")
+    private long refreshIntervalMs;
+
+    private final Map<Integer, CachedVersion> versions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PermissionVersionService(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * Current permissions version of the role, or -1 if the role no longer exists
+     */
+    public int getCurrentVersion(int roleId) {
+        long now = System.currentTimeMillis();
+        CachedVersion cached = versions.get(roleId);
+        if (cached != null && now - cached.loadedAt() < refreshIntervalMs) {
+            return cached.version();
+        }
+
+        Integer version = roleRepository.findPermissionsVersionById(roleId);
+        int current = version != null ? version : -1;
+        versions.put(roleId, new CachedVersion(current, now));
+        return current;
+    }
+
+    /**
+     * Check whether a version stamp taken from a token is still current for the role
+     */
+    public boolean isCurrent(int roleId, int version) {
+        return getCurrentVersion(roleId) == version;
+    }
+
+    /**
+     * Record that the role's permission set changed; tokens stamped with an older version are reloaded
+     */
+    @Transactional
+    public void bumpVersion(int roleId) {
+        roleRepository.incrementPermissionsVersion(roleId);
+        versions.remove(roleId);
+
+        // Evict again once committed, in case a reader cached the old version in between
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.remove(roleId);
+                }
+            });
+        }
+    }
+
+    private record CachedVersion(int version, long loadedAt) {
+    }
+}
@@ -1,62 +1,104 @@
 package com.cyclonex.trust_care.service;
 
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.PrescriptionView;
+import com.cyclonex.trust_care.entity.EncryptedText;
 import com.cyclonex.trust_care.entity.Prescription;
 import com.cyclonex.trust_care.repository.PrescriptionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class PrescriptionService {
 
     private final PrescriptionRepository prescriptionRepository;
-    private final EncryptionService encryptionService;
+    private final BulkDecryptionService bulkDecryptionService;
+    private final BlindIndexService blindIndexService;
+    private final PaginationService paginationService;
 
     @Autowired
-    public PrescriptionService(PrescriptionRepository prescriptionRepository, EncryptionService encryptionService) {
+    public PrescriptionService(PrescriptionRepository prescriptionRepository,
+                               BulkDecryptionService bulkDecryptionService,
+                               BlindIndexService blindIndexService,
+                               PaginationService paginationService) {
         this.prescriptionRepository = prescriptionRepository;
-        this.encryptionService = encryptionService;
+        this.bulkDecryptionService = bulkDecryptionService;
+        this.blindIndexService = blindIndexService;
+        this.paginationService = paginationService;
     }
 
     public Prescription savePrescription(Prescription prescription) {
-        // Encrypt sensitive medication data before saving
-        if (prescription.getMedicationEncrypted() != null && !prescription.getMedicationEncrypted().isEmpty()) {
-            prescription.setMedicationEncrypted(encryptionService.encrypt(prescription.getMedicationEncrypted()));
-        }
+        // Medication is encrypted by EncryptedTextConverter when the prescription is written
+        EncryptedText medication = prescription.getMedicationEncrypted();
+        prescription.setMedicationBidx(medication != null ? blindIndexService.index(medication.getPlaintext()) : null);
         return prescriptionRepository.save(prescription);
     }
 
-    public List<Prescription> getAllPrescriptions() {
-        List<Prescription> prescriptions = prescriptionRepository.findAll();
-        return prescriptions.stream().map(this::decryptPrescription).collect(Collectors.toList());
+    public CursorPage<PrescriptionView> getAllPrescriptions(String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        List<PrescriptionView> rows = prescriptionRepository.findViewPageAfter(
+                paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return decryptPage(paginationService.idPage(rows, pageSize, PrescriptionView::id));
+    }
+
+    public PrescriptionView getPrescriptionById(int id) {
+        // Fields decrypt lazily when the prescription is serialized
+        return prescriptionRepository.findViewById(id).orElse(null);
+    }
+
+    public boolean prescriptionExists(int id) {
+        return prescriptionRepository.existsById(id);
     }
 
-    public Prescription getPrescriptionById(int id) {
-        Prescription prescription = prescriptionRepository.findById(id).orElse(null);
-        return prescription != null ? decryptPrescription(prescription) : null;
+    public CursorPage<PrescriptionView> getPrescriptionsByPatientId(int patientId, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        List<PrescriptionView> rows = prescriptionRepository.findViewPageByPatientIdAfter(
+                patientId, paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return decryptPage(paginationService.idPage(rows, pageSize, PrescriptionView::id));
     }
 
-    public List<Prescription> getPrescriptionsByPatientId(int patientId) {
-        List<Prescription> prescriptions = prescriptionRepository.findByPatient_Id(patientId);
-        return prescriptions.stream().map(this::decryptPrescription).collect(Collectors.toList());
+    public CursorPage<PrescriptionView> getPrescriptionsByDoctorId(int doctorId, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        List<PrescriptionView> rows = prescriptionRepository.findViewPageByDoctorIdAfter(
+                doctorId, paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return decryptPage(paginationService.idPage(rows, pageSize, PrescriptionView::id));
     }
 
-    public List<Prescription> getPrescriptionsByDoctorId(int doctorId) {
-        List<Prescription> prescriptions = prescriptionRepository.findByDoctor_Id(doctorId);
-        return prescriptions.stream().map(this::decryptPrescription).collect(Collectors.toList());
+    /**
+     * Exact-match search on the medication through its blind index, without decrypting the table
+     */
+    public CursorPage<PrescriptionView> getPrescriptionsByMedication(String medication, String cursor, Integer size) {
+        String index = blindIndexService.index(medication);
+        if (index == null) {
+            return new CursorPage<>(List.of(), null);
+        }
+        int pageSize = paginationService.pageSize(size);
+        List<PrescriptionView> rows = prescriptionRepository.findViewPageByMedicationBidxAfter(
+                index, paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return decryptPage(paginationService.idPage(rows, pageSize, PrescriptionView::id));
     }
 
     public void deletePrescription(int id) {
         prescriptionRepository.deleteById(id);
     }
 
-    private Prescription decryptPrescription(Prescription prescription) {
-        // Decrypt sensitive medication data when retrieving
-        if (prescription.getMedicationEncrypted() != null && !prescription.getMedicationEncrypted().isEmpty()) {
-            prescription.setMedicationEncrypted(encryptionService.decrypt(prescription.getMedicationEncrypted()));
+    // Only the rows of the page are decrypted, not the look-ahead row
+    private CursorPage<PrescriptionView> decryptPage(CursorPage<PrescriptionView> page) {
+        bulkDecryptionService.decryptAll(page.items(), this::decryptPrescription, "prescription");
+        return page;
+    }
+
+    // List results are serialized in full, so decrypt the medication up front on the bulk pool.
+    // The linked medical record is returned by id only and is not decrypted at all.
+    private void decryptPrescription(PrescriptionView prescription) {
+        decrypt(prescription.medication());
+    }
+
+    private static void decrypt(EncryptedText value) {
+        if (value != null) {
+            value.getPlaintext();
         }
-        return prescription;
     }
 }
@@ -0,0 +1,368 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.config.AsyncConfig;
+import com.cyclonex.trust_care.entity.ReencryptionCheckpoint;
+import com.cyclonex.trust_care.repository.ReencryptionCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background job that moves every encrypted column onto the current key after a rotation, and
+ * with envelope encryption onto each row's patient data key (legacy and master-key values included).
+ * Rows are read in id order in keyset batches, re-encrypted on the bulk decryption pool and
+ * written back with a batched UPDATE that only applies if the row was not changed meanwhile.
+ * Progress is checkpointed per table in the same transaction as each batch, so the job resumes
+ * where it stopped after a restart. The application stays online throughout, because
+ * EncryptionService reads values under both the old and the new key.
+ * The same pass fills in blind indexes that are missing, e.g. on rows written before they existed.
+ * Each value is read from its bytea column (x_cipher) when set, otherwise from its TEXT column
+ * (x_encrypted), and written back to the column it came from; moving TEXT values to bytea is left
+ * to {@link CiphertextStorageMigrationService}.
+ */
+@Service
+public class ReencryptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReencryptionService.class);
+
+    // Encrypted tables, their column prefixes (x_encrypted / x_cipher) and the blind index of each
+    // column (null when it has none); names are constants, never user input
+    static final List<EncryptedTable> TABLES = List.of(
+            new EncryptedTable("medical_record", List.of("diagnosis", "treatment"), Arrays.asList("diagnosis_bidx", null)),
+            new EncryptedTable("prescription", List.of("medication"), List.of("medication_bidx")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EncryptionService encryptionService;
+    private final BulkDecryptionService bulkDecryptionService;
+    private final BlindIndexService blindIndexService;
+    private final ReencryptionCheckpointRepository checkpointRepository;
+    private final TaskExecutor backgroundExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+
+    @Value("${encryption.reencryption.batch-size:500}")
+    private int batchSize;
+
+    @Value("${encryption.reencryption.max-rows-per-second:2000}")
+    private int maxRowsPerSecond;
+
+    @Value("${encryption.reencryption.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    @Autowired
+    public ReencryptionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               EncryptionService encryptionService, BulkDecryptionService bulkDecryptionService,
+                               BlindIndexService blindIndexService,
+                               ReencryptionCheckpointRepository checkpointRepository,
+                               @Qualifier(AsyncConfig.BACKGROUND_EXECUTOR) TaskExecutor backgroundExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.encryptionService = encryptionService;
+        this.bulkDecryptionService = bulkDecryptionService;
+        this.blindIndexService = blindIndexService;
+        this.checkpointRepository = checkpointRepository;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    /**
+     * Start the job in the background; returns false if it is already running
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        stopRequested = false;
+        try {
+            backgroundExecutor.execute(this::run);
+            return true;
+        } catch (TaskRejectedException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Ask the job to stop after the current batch; it resumes from its checkpoint on the next start
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public List<ReencryptionCheckpoint> getStatus() {
+        return checkpointRepository.findAll();
+    }
+
+    // A job that was running when the application went down picks up where it left off
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        if (resumeOnStartup && !checkpointRepository.findByStatus(ReencryptionCheckpoint.STATUS_RUNNING).isEmpty()) {
+            log.info("Resuming interrupted re-encryption job");
+            start();
+        }
+    }
+
+    void run() {
+        try {
+            for (EncryptedTable table : TABLES) {
+                if (!processTable(table)) {
+                    return;
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Returns false when the job was stopped or failed before finishing the table
+    private boolean processTable(EncryptedTable table) {
+        ReencryptionCheckpoint checkpoint = checkpointFor(table);
+        log.info("Re-encrypting {} to key {} from id {}", table.name(), checkpoint.getKeyId(), checkpoint.getLastId());
+        try {
+            while (true) {
+                if (stopRequested) {
+                    checkpoint.setStatus(ReencryptionCheckpoint.STATUS_STOPPED);
+                    checkpointRepository.save(checkpoint);
+                    log.info("Re-encryption of {} stopped at id {}", table.name(), checkpoint.getLastId());
+                    return false;
+                }
+                long start = System.nanoTime();
+                int scanned = processBatch(table, checkpoint);
+                if (scanned == 0) {
+                    checkpoint.setStatus(ReencryptionCheckpoint.STATUS_COMPLETED);
+                    checkpointRepository.save(checkpoint);
+                    log.info("Re-encryption of {} completed: {} rows scanned, {} updated",
+                            table.name(), checkpoint.getRowsScanned(), checkpoint.getRowsUpdated());
+                    return true;
+                }
+                throttle(scanned, System.nanoTime() - start);
+            }
+        } catch (RuntimeException e) {
+            log.error("Re-encryption of {} failed at id {}", table.name(), checkpoint.getLastId(), e);
+            checkpoint.setStatus(ReencryptionCheckpoint.STATUS_FAILED);
+            checkpoint.setLastError(e.getMessage());
+            checkpointRepository.save(checkpoint);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            checkpoint.setStatus(ReencryptionCheckpoint.STATUS_STOPPED);
+            checkpointRepository.save(checkpoint);
+            return false;
+        }
+    }
+
+    // Resume an unfinished run for the current key; anything else starts the table over
+    private ReencryptionCheckpoint checkpointFor(EncryptedTable table) {
+        String keyId = encryptionService.getCurrentKeyId();
+        ReencryptionCheckpoint checkpoint = checkpointRepository.findById(table.name()).orElse(null);
+        if (checkpoint == null || !keyId.equals(checkpoint.getKeyId())
+                || ReencryptionCheckpoint.STATUS_COMPLETED.equals(checkpoint.getStatus())) {
+            checkpoint = new ReencryptionCheckpoint();
+            checkpoint.setTableName(table.name());
+            checkpoint.setKeyId(keyId);
+            checkpoint.setStartedAt(LocalDateTime.now());
+        }
+        checkpoint.setStatus(ReencryptionCheckpoint.STATUS_RUNNING);
+        checkpoint.setLastError(null);
+        return checkpointRepository.save(checkpoint);
+    }
+
+    /**
+     * Re-encrypt the next batch after the checkpoint and advance it; returns the number of rows read
+     */
+    int processBatch(EncryptedTable table, ReencryptionCheckpoint checkpoint) {
+        int columnCount = table.columns().size();
+        int indexCount = table.indexColumns().size();
+        List<PendingRow> rows = jdbcTemplate.query(table.selectSql(), (rs, rowNum) -> {
+            String[] text = new String[columnCount];
+            byte[][] binary = new byte[columnCount][];
+            String[] indexes = new String[indexCount];
+            int column = 3;
+            for (int i = 0; i < columnCount; i++) {
+                text[i] = rs.getString(column++);
+                binary[i] = rs.getBytes(column++);
+            }
+            for (int i = 0; i < indexCount; i++) {
+                indexes[i] = rs.getString(column++);
+            }
+            return new PendingRow(rs.getInt(1), (Integer) rs.getObject(2, Integer.class), text, binary, indexes);
+        }, checkpoint.getLastId(), batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        bulkDecryptionService.decryptAll(rows, row -> reencrypt(table, row), "re-encryption");
+        List<PendingRow> changed = new ArrayList<>();
+        for (PendingRow row : rows) {
+            if (row.isChanged()) {
+                changed.add(row);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            int updated = 0;
+            if (!changed.isEmpty()) {
+                int[][] counts = jdbcTemplate.batchUpdate(table.updateSql(), changed, changed.size(), (ps, row) -> {
+                    int index = 1;
+                    for (int i = 0; i < columnCount; i++) {
+                        ps.setString(index++, row.updatedText[i]);
+                        ps.setBytes(index++, row.updatedBinary[i]);
+                    }
+                    for (String value : row.updatedIndexes) {
+                        ps.setString(index++, value);
+                    }
+                    ps.setInt(index++, row.id);
+                    for (int i = 0; i < columnCount; i++) {
+                        ps.setString(index++, row.text[i]);
+                        ps.setBytes(index++, row.binary[i]);
+                    }
+                });
+                for (int[] batch : counts) {
+                    for (int count : batch) {
+                        // The driver may report SUCCESS_NO_INFO (-2) for batched statements
+                        updated += count == -2 ? 1 : count;
+                    }
+                }
+            }
+            checkpoint.setLastId(rows.get(rows.size() - 1).id);
+            checkpoint.setRowsScanned(checkpoint.getRowsScanned() + rows.size());
+            checkpoint.setRowsUpdated(checkpoint.getRowsUpdated() + updated);
+            checkpointRepository.save(checkpoint);
+        });
+        return rows.size();
+    }
+
+    private void reencrypt(EncryptedTable table, PendingRow row) {
+        int indexSlot = 0;
+        for (int i = 0; i < table.columns().size(); i++) {
+            // The bytea column wins on reads (EncryptedText.preferred), so it is the value to rotate
+            byte[] binary = row.binary[i];
+            String text = row.text[i];
+            boolean inBinary = binary != null;
+            boolean empty = inBinary ? binary.length == 0 : text == null || text.isEmpty();
+            boolean indexed = table.blindIndexes().get(i) != null;
+            boolean missingIndex = indexed && row.indexes[indexSlot] == null && !empty;
+            boolean current = inBinary
+                    ? encryptionService.isCurrent(binary, row.patientId)
+                    : encryptionService.isCurrent(text, row.patientId);
+            if (!current || missingIndex) {
+                String plainText = inBinary ? encryptionService.decrypt(binary) : encryptionService.decrypt(text);
+                if (!current && inBinary) {
+                    row.updatedBinary[i] = encryptionService.encryptToBytes(plainText, row.patientId);
+                } else if (!current) {
+                    row.updatedText[i] = encryptionService.encrypt(plainText, row.patientId);
+                }
+                if (missingIndex) {
+                    row.updatedIndexes[indexSlot] = blindIndexService.index(plainText);
+                }
+            }
+            if (indexed) {
+                indexSlot++;
+            }
+        }
+    }
+
+    // Sleep as needed to keep to encryption.reencryption.max-rows-per-second
+    private void throttle(int rows, long elapsedNanos) throws InterruptedException {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long budgetNanos = TimeUnit.SECONDS.toNanos(rows) / maxRowsPerSecond;
+        if (budgetNanos > elapsedNanos) {
+            TimeUnit.NANOSECONDS.sleep(budgetNanos - elapsedNanos);
+        }
+    }
+
+    record EncryptedTable(String name, List<String> columns, List<String> blindIndexes) {
+
+        List<String> indexColumns() {
+            return blindIndexes.stream().filter(Objects::nonNull).toList();
+        }
+
+        // x_encrypted, x_cipher for each column
+        List<String> storedColumns() {
+            List<String> stored = new ArrayList<>();
+            for (String column : columns) {
+                stored.add(column + "_encrypted");
+                stored.add(column + "_cipher");
+            }
+            return stored;
+        }
+
+        // Stored columns followed by the blind index columns that exist
+        List<String> allColumns() {
+            List<String> all = new ArrayList<>(storedColumns());
+            all.addAll(indexColumns());
+            return all;
+        }
+
+        String selectSql() {
+            return "SELECT id, patient_id, " + String.join(", ", allColumns()) + " FROM " + name + " WHERE id > ? ORDER BY id LIMIT ?";
+        }
+
+        // Only overwrite a row whose ciphertext is still what was read, so concurrent edits win
+        String updateSql() {
+            StringBuilder sql = new StringBuilder("UPDATE ").append(name).append(" SET ");
+            sql.append(String.join(", ", allColumns().stream().map(column -> column + " = ?").toList()));
+            sql.append(" WHERE id = ?");
+            storedColumns().forEach(column -> sql.append(" AND ").append(column).append(" IS NOT DISTINCT FROM ?"));
+            return sql.toString();
+        }
+    }
+
+    static final class PendingRow {
+
+        final int id;
+        final Integer patientId;
+        final String[] text;
+        final byte[][] binary;
+        final String[] indexes;
+        final String[] updatedText;
+        final byte[][] updatedBinary;
+        final String[] updatedIndexes;
+
+        PendingRow(int id, Integer patientId, String[] text, byte[][] binary, String[] indexes) {
+            this.id = id;
+            this.patientId = patientId;
+            this.text = text;
+            this.binary = binary;
+            this.indexes = indexes;
+            this.updatedText = Arrays.copyOf(text, text.length);
+            this.updatedBinary = Arrays.copyOf(binary, binary.length);
+            this.updatedIndexes = Arrays.copyOf(indexes, indexes.length);
+        }
+
+        // Updated values are replaced, never modified in place, so reference comparison suffices
+        boolean isChanged() {
+            for (int i = 0; i < text.length; i++) {
+                if (updatedText[i] != text[i] || updatedBinary[i] != binary[i]) {
+                    return true;
+                }
+            }
+            return !Arrays.equals(indexes, updatedIndexes);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.cyclonex.trust_care.service;
 
 import com.cyclonex.trust_care.entity.RequestLog;
 import com.cyclonex.trust_care.repository.RequestLogRepository;
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.RequestLogView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -13,45 +15,82 @@ import java.util.UUID;
 public class RequestLogService {
 
     private final RequestLogRepository requestLogRepository;
+    private final PaginationService paginationService;
+    private final LogWriteBuffer logWriteBuffer;
 
     @Autowired
-    public RequestLogService(RequestLogRepository requestLogRepository) {
+    public RequestLogService(RequestLogRepository requestLogRepository, PaginationService paginationService,
+                             LogWriteBuffer logWriteBuffer) {
         this.requestLogRepository = requestLogRepository;
+        this.paginationService = paginationService;
+        this.logWriteBuffer = logWriteBuffer;
     }
 
     public RequestLog saveRequestLog(RequestLog requestLog) {
+        assignRequestId(requestLog);
+        return requestLogRepository.save(requestLog);
+    }
+
+    /**
+     * Queue the entry to be inserted with others in the next batch
+     */
+    public void logRequest(RequestLog requestLog) {
+        assignRequestId(requestLog);
+        logWriteBuffer.add(requestLog);
+    }
+
+    private static void assignRequestId(RequestLog requestLog) {
         if (requestLog.getRequestId() == null || requestLog.getRequestId().isEmpty()) {
             requestLog.setRequestId(UUID.randomUUID().toString());
         }
-        return requestLogRepository.save(requestLog);
     }
 
-    public List<RequestLog> getAllRequestLogs() {
-        return requestLogRepository.findAll();
+    public CursorPage<RequestLogView> getAllRequestLogs(String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        PaginationService.TimestampCursor before = paginationService.before(cursor);
+        List<RequestLogView> rows = requestLogRepository.findViewPageBefore(before.timestamp(), before.id(),
+                paginationService.fetchLimit(pageSize));
+        return paginationService.timestampPage(rows, pageSize, RequestLogView::timestamp, RequestLogView::id);
     }
 
-    public RequestLog getRequestLogByRequestId(String requestId) {
-        return requestLogRepository.findByRequestId(requestId);
+    public RequestLogView getRequestLogByRequestId(String requestId) {
+        return requestLogRepository.findViewByRequestId(requestId).orElse(null);
     }
 
-    public List<RequestLog> getRequestLogsByUserId(Integer userId) {
-        return requestLogRepository.findByUser_Id(userId);
+    public CursorPage<RequestLogView> getRequestLogsByUserId(Integer userId, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        PaginationService.TimestampCursor before = paginationService.before(cursor);
+        List<RequestLogView> rows = requestLogRepository.findViewPageBeforeByUserId(userId, before.timestamp(), before.id(),
+                paginationService.fetchLimit(pageSize));
+        return paginationService.timestampPage(rows, pageSize, RequestLogView::timestamp, RequestLogView::id);
     }
 
-    public List<RequestLog> getRequestLogsByOperation(String operation) {
-        return requestLogRepository.findByOperation(operation);
+    public CursorPage<RequestLogView> getRequestLogsByOperation(String operation, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        PaginationService.TimestampCursor before = paginationService.before(cursor);
+        List<RequestLogView> rows = requestLogRepository.findViewPageBeforeByOperation(operation, before.timestamp(), before.id(),
+                paginationService.fetchLimit(pageSize));
+        return paginationService.timestampPage(rows, pageSize, RequestLogView::timestamp, RequestLogView::id);
     }
 
-    public List<RequestLog> getRequestLogsByOutcome(String outcome) {
-        return requestLogRepository.findByOutcome(outcome);
+    public CursorPage<RequestLogView> getRequestLogsByOutcome(String outcome, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        PaginationService.TimestampCursor before = paginationService.before(cursor);
+        List<RequestLogView> rows = requestLogRepository.findViewPageBeforeByOutcome(outcome, before.timestamp(), before.id(),
+                paginationService.fetchLimit(pageSize));
+        return paginationService.timestampPage(rows, pageSize, RequestLogView::timestamp, RequestLogView::id);
     }
 
-    public List<RequestLog> getRequestLogsByDateRange(LocalDateTime start, LocalDateTime end) {
-        return requestLogRepository.findByTimestampBetween(start, end);
+    public CursorPage<RequestLogView> getRequestLogsByDateRange(LocalDateTime start, LocalDateTime end, String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        PaginationService.TimestampCursor before = paginationService.before(cursor);
+        List<RequestLogView> rows = requestLogRepository.findViewPageBeforeByTimestampBetween(start, end, before.timestamp(), before.id(),
+                paginationService.fetchLimit(pageSize));
+        return paginationService.timestampPage(rows, pageSize, RequestLogView::timestamp, RequestLogView::id);
     }
 
-    public RequestLog getRequestLogById(int id) {
-        return requestLogRepository.findById(id).orElse(null);
+    public RequestLogView getRequestLogById(int id) {
+        return requestLogRepository.findViewById(id).orElse(null);
     }
 
     public void deleteRequestLog(int id) {
@@ -2,8 +2,10 @@ package com.cyclonex.trust_care.service;
 
 import com.cyclonex.trust_care.entity.RolePermission;
 import com.cyclonex.trust_care.repository.RolePermissionRepository;
+import com.cyclonex.trust_care.security.RoleAuthorityCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -11,10 +13,16 @@ import java.util.List;
 public class RolePermissionService {
 
     private final RolePermissionRepository rolePermissionRepository;
+    private final PermissionVersionService permissionVersionService;
+    private final RoleAuthorityCache roleAuthorityCache;
 
     @Autowired
-    public RolePermissionService(RolePermissionRepository rolePermissionRepository) {
+    public RolePermissionService(RolePermissionRepository rolePermissionRepository,
+                                 PermissionVersionService permissionVersionService,
+                             RoleAuthorityCache roleAuthorityCache) {
         this.rolePermissionRepository = rolePermissionRepository;
+        this.permissionVersionService = permissionVersionService;
+        this.roleAuthorityCache = roleAuthorityCache;
     }
 
     public List<RolePermission> getPermissionsByRoleId(int roleId) {
@@ -25,15 +33,33 @@ public class RolePermissionService {
         return rolePermissionRepository.findByPermission_Id(permissionId);
     }
 
+    @Transactional
     public RolePermission saveRolePermission(RolePermission rolePermission) {
-        return rolePermissionRepository.save(rolePermission);
+        // An update may move the mapping to another role, so the previous role changes as well
+        if (rolePermission.getId() != 0) {
+            rolePermissionRepository.findById(rolePermission.getId())
+                    .ifPresent(existing -> permissionsChanged(existing.getRole().getId()));
+        }
+        RolePermission saved = rolePermissionRepository.save(rolePermission);
+        if (saved.getRole() != null) {
+            permissionsChanged(saved.getRole().getId());
+        }
+        return saved;
     }
 
+    @Transactional
     public void deleteRolePermission(int id) {
+        rolePermissionRepository.findById(id)
+                .ifPresent(existing -> permissionsChanged(existing.getRole().getId()));
         rolePermissionRepository.deleteById(id);
     }
 
     public List<RolePermission> getAllRolePermissions() {
         return rolePermissionRepository.findAll();
     }
+
+    private void permissionsChanged(int roleId) {
+        permissionVersionService.bumpVersion(roleId);
+        roleAuthorityCache.evict(roleId);
+    }
 }
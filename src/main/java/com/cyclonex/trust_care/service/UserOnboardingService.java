@@ -0,0 +1,248 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.config.AsyncConfig;
+import com.cyclonex.trust_care.dto.OnboardingError;
+import com.cyclonex.trust_care.dto.OnboardingResult;
+import com.cyclonex.trust_care.dto.RegisterRequest;
+import com.cyclonex.trust_care.entity.Admin;
+import com.cyclonex.trust_care.entity.Doctor;
+import com.cyclonex.trust_care.entity.Patient;
+import com.cyclonex.trust_care.entity.Role;
+import com.cyclonex.trust_care.entity.User;
+import com.cyclonex.trust_care.repository.AdminRepository;
+import com.cyclonex.trust_care.repository.DoctorRepository;
+import com.cyclonex.trust_care.repository.PatientRepository;
+import com.cyclonex.trust_care.repository.RoleRepository;
+import com.cyclonex.trust_care.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many accounts at once, e.g. a hospital's staff roster.
+ * Registering users one by one costs a lookup, a bcrypt hash on the request thread and several
+ * inserts per user. Here emails, usernames and roles are checked with one query each, passwords
+ * are hashed in parallel on the hash pool, and users with their Admin/Doctor/Patient rows are
+ * inserted in batched transactions; welcome emails go through the outbox like single registrations.
+ * Invalid or conflicting entries are reported by position and do not stop the rest.
+ */
+@Service
+public class UserOnboardingService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserOnboardingService.class);
+
+    // BCrypt rejects longer passwords outright
+    static final int MAX_PASSWORD_BYTES = 72;
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final AdminRepository adminRepository;
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final EmailService emailService;
+    private final TaskExecutor hashExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${user.onboarding.max-users:5000}")
+    private int maxUsers;
+
+    @Value("${user.onboarding.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    public UserOnboardingService(UserRepository userRepository, RoleRepository roleRepository,
+                                 AdminRepository adminRepository, DoctorRepository doctorRepository,
+                                 PatientRepository patientRepository, PasswordEncoder passwordEncoder,
+                                 EmailService emailService, PlatformTransactionManager transactionManager,
+                                 @Qualifier(AsyncConfig.HASH_EXECUTOR) TaskExecutor hashExecutor) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.adminRepository = adminRepository;
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.emailService = emailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hashExecutor = hashExecutor;
+    }
+
+    public OnboardingResult onboard(List<RegisterRequest> requests) {
+        if (requests.size() > maxUsers) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + maxUsers + " users can be onboarded per request");
+        }
+        List<OnboardingError> errors = new ArrayList<>();
+        List<Candidate> candidates = validate(requests, errors);
+
+        long start = System.nanoTime();
+        // One bcrypt hash per task: each takes tens of milliseconds, so even small rosters are worth spreading
+        List<CompletableFuture<Void>> hashes = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            hashes.add(CompletableFuture.runAsync(() -> candidate.passwordHash =
+                    passwordEncoder.encode(candidate.request.getPassword()), hashExecutor));
+        }
+        CompletableFuture.allOf(hashes.toArray(CompletableFuture[]::new)).join();
+        log.debug("Hashed {} passwords in {} ms", candidates.size(), (System.nanoTime() - start) / 1_000_000);
+
+        List<User> created = new ArrayList<>(candidates.size());
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            List<Candidate> batch = candidates.subList(from, Math.min(candidates.size(), from + batchSize));
+            try {
+                created.addAll(transactionTemplate.execute(status -> insert(batch)));
+            } catch (RuntimeException e) {
+                // Most likely a user registered concurrently; retry one by one so only that entry fails
+                log.warn("Onboarding batch of {} users failed, inserting them one by one: {}", batch.size(), e.getMessage());
+                for (Candidate candidate : batch) {
+                    try {
+                        created.addAll(transactionTemplate.execute(status -> insert(List.of(candidate))));
+                    } catch (RuntimeException single) {
+                        errors.add(candidate.error("Could not create user: " + single.getMessage()));
+                    }
+                }
+            }
+        }
+        if (!created.isEmpty()) {
+            emailService.sendRegistrationEmails(created);
+        }
+        errors.sort(Comparator.comparingInt(OnboardingError::index));
+        return new OnboardingResult(requests.size(), created.size(), errors);
+    }
+
+    // Entries that are incomplete, repeat an email or username, or name an unknown role are reported and dropped
+    private List<Candidate> validate(List<RegisterRequest> requests, List<OnboardingError> errors) {
+        Set<String> emails = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        Set<String> roleNames = new HashSet<>();
+        for (RegisterRequest request : requests) {
+            if (request == null) {
+                continue;
+            }
+            if (request.getEmail() != null) {
+                emails.add(request.getEmail());
+            }
+            if (request.getUsername() != null) {
+                usernames.add(request.getUsername());
+            }
+            if (request.getRoleName() != null) {
+                roleNames.add(request.getRoleName());
+            }
+        }
+        Set<String> takenEmails = emails.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingEmails(emails));
+        Set<String> takenUsernames = usernames.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingUsernames(usernames));
+        Map<String, Role> roles = roleNames.isEmpty() ? Map.of() : roleRepository.findByRoleNameIn(roleNames).stream()
+                .collect(Collectors.toMap(Role::getRoleName, role -> role, (first, second) -> first));
+
+        List<Candidate> candidates = new ArrayList<>(requests.size());
+        Set<String> seenEmails = new HashSet<>();
+        Set<String> seenUsernames = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RegisterRequest request = requests.get(i);
+            String email = request != null ? request.getEmail() : null;
+            String message = null;
+            if (request == null || isBlank(email)) {
+                message = "Email is required";
+            } else if (isBlank(request.getUsername())) {
+                message = "Username is required";
+            } else if (isBlank(request.getPassword())) {
+                message = "Password is required";
+            } else if (request.getPassword().getBytes(StandardCharsets.UTF_8).length > MAX_PASSWORD_BYTES) {
+                message = "Password must be at most " + MAX_PASSWORD_BYTES + " bytes";
+            } else if (takenEmails.contains(email) || !seenEmails.add(email)) {
+                message = "Email already exists";
+            } else if (takenUsernames.contains(request.getUsername()) || !seenUsernames.add(request.getUsername())) {
+                message = "Username already exists";
+            } else if (!roles.containsKey(request.getRoleName())) {
+                message = "Role not found";
+            }
+            if (message != null) {
+                errors.add(new OnboardingError(i, email, message));
+            } else {
+                candidates.add(new Candidate(i, request, roles.get(request.getRoleName())));
+            }
+        }
+        return candidates;
+    }
+
+    // Entities are built afresh on every attempt, so a rolled-back batch leaves nothing behind to retry with
+    private List<User> insert(List<Candidate> batch) {
+        List<User> users = new ArrayList<>(batch.size());
+        for (Candidate candidate : batch) {
+            User user = new User();
+            user.setUsername(candidate.request.getUsername());
+            user.setEmail(candidate.request.getEmail());
+            user.setPasswordHash(candidate.passwordHash);
+            user.setStatus("active");
+            user.setRole(candidate.role);
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+
+        Map<String, List<User>> byRole = new HashMap<>();
+        for (User user : users) {
+            byRole.computeIfAbsent(user.getRole().getRoleName().toUpperCase(Locale.ROOT), name -> new ArrayList<>()).add(user);
+        }
+        adminRepository.saveAll(byRole.getOrDefault("ADMIN", List.of()).stream().map(user -> {
+            Admin admin = new Admin();
+            admin.setUser(user);
+            admin.setAdminLevel("STANDARD");
+            return admin;
+        }).toList());
+        doctorRepository.saveAll(byRole.getOrDefault("DOCTOR", List.of()).stream().map(user -> {
+            Doctor doctor = new Doctor();
+            doctor.setUser(user);
+            doctor.setName(user.getUsername());
+            return doctor;
+        }).toList());
+        patientRepository.saveAll(byRole.getOrDefault("PATIENT", List.of()).stream().map(user -> {
+            Patient patient = new Patient();
+            patient.setUser(user);
+            patient.setName(user.getUsername());
+            return patient;
+        }).toList());
+        return users;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static final class Candidate {
+
+        final int index;
+        final RegisterRequest request;
+        final Role role;
+        volatile String passwordHash;
+
+        Candidate(int index, RegisterRequest request, Role role) {
+            this.index = index;
+            this.request = request;
+            this.role = role;
+        }
+
+        OnboardingError error(String message) {
+            return new OnboardingError(index, request.getEmail(), message);
+        }
+    }
+}
@@ -2,38 +2,64 @@ package com.cyclonex.trust_care.service;
 
 import com.cyclonex.trust_care.entity.User;
 import com.cyclonex.trust_care.repository.UserRepository;
+import com.cyclonex.trust_care.dto.CursorPage;
+import com.cyclonex.trust_care.dto.UserView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
+    private final PaginationService paginationService;
+    private final UserTokenVersionService userTokenVersionService;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, PaginationService paginationService,
+                       UserTokenVersionService userTokenVersionService) {
         this.userRepository = userRepository;
+        this.paginationService = paginationService;
+        this.userTokenVersionService = userTokenVersionService;
     }
 
-    public User getUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+    public UserView getUserByUsername(String username) {
+        return userRepository.findViewByUsername(username).orElse(null);
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public CursorPage<UserView> getAllUsers(String cursor, Integer size) {
+        int pageSize = paginationService.pageSize(size);
+        List<UserView> rows = userRepository.findViewPageAfter(
+                paginationService.afterId(cursor), paginationService.fetchLimit(pageSize));
+        return paginationService.idPage(rows, pageSize, UserView::id);
     }
 
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User existing = user.getId() != 0 ? userRepository.findById(user.getId()).orElse(null) : null;
+        User saved = userRepository.save(user);
+        if (existing != null && changesAccess(existing, user)) {
+            userTokenVersionService.bumpVersion(user.getId());
+        }
+        return saved;
     }
 
     public void deleteUser(int id) {
         userRepository.deleteById(id);
+        userTokenVersionService.evict(id);
     }
 
-    public User getUserById(int id) {
-        return userRepository.findById(id).orElse(null);
+    // Changes that must not wait for the user's outstanding tokens to expire
+    static boolean changesAccess(User before, User after) {
+        Integer roleBefore = before.getRole() != null ? before.getRole().getId() : null;
+        Integer roleAfter = after.getRole() != null ? after.getRole().getId() : null;
+        return !Objects.equals(roleBefore, roleAfter)
+                || !Objects.equals(before.getStatus(), after.getStatus())
+                || !Objects.equals(before.getPasswordHash(), after.getPasswordHash());
+    }
+
+    public UserView getUserById(int id) {
+        return userRepository.findViewById(id).orElse(null);
     }
 }
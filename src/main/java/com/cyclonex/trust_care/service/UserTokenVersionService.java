@@ -0,0 +1,79 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the token version of each user, the per-user counterpart of {@link PermissionVersionService}.
+ * Bumped when a user's role, status or password changes, so their outstanding self-contained tokens
+ * fall back to the database lookup; a deleted user has no version and their tokens no longer authenticate.
+ */
+@Service
+public class UserTokenVersionService {
+
+    private final UserRepository userRepository;
+
+    @Value("${security.token-version.refresh-ms:30000}")
+    private long refreshIntervalMs;
+
+    private final Map<Integer, CachedVersion> versions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserTokenVersionService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Current token version of the user, or -1 if the user no longer exists
+     */
+    public int getCurrentVersion(int userId) {
+        long now = System.currentTimeMillis();
+        CachedVersion cached = versions.get(userId);
+        if (cached != null && now - cached.loadedAt() < refreshIntervalMs) {
+            return cached.version();
+        }
+
+        Integer version = userRepository.findTokenVersionById(userId);
+        int current = version != null ? version : -1;
+        versions.put(userId, new CachedVersion(current, now));
+        return current;
+    }
+
+    public boolean isCurrent(int userId, int version) {
+        return getCurrentVersion(userId) == version;
+    }
+
+    /**
+     * Invalidate the user's outstanding tokens
+     */
+    @Transactional
+    public void bumpVersion(int userId) {
+        userRepository.incrementTokenVersion(userId);
+        evict(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    // After a delete: the next check finds no version
+    public void evict(int userId) {
+        versions.remove(userId);
+    }
+
+    private record CachedVersion(int version, long loadedAt) {
+    }
+}
@@ -1,6 +1,9 @@
 -- ===============================
 -- TrustCare Database Schema
 -- Aligned with ER Diagram
+--
+-- Baseline of the schema previously kept in init.sql and completed by Hibernate's ddl-auto=update.
+-- Every statement is idempotent, so the script also brings a database created either way up to date.
 -- ===============================
 
 -- -------------------------------
@@ -10,7 +13,8 @@ CREATE TABLE IF NOT EXISTS role (
     id BIGSERIAL PRIMARY KEY,
     role_name VARCHAR(50) NOT NULL UNIQUE,
     secret_key VARCHAR(255),
-    description TEXT
+    description TEXT,
+    permissions_version INTEGER NOT NULL DEFAULT 0
 );
 
 -- -------------------------------
@@ -75,6 +79,7 @@ CREATE TABLE IF NOT EXISTS patient (
 CREATE TABLE IF NOT EXISTS doctor (
     id BIGSERIAL PRIMARY KEY,
     user_id BIGINT NOT NULL UNIQUE,
+    name VARCHAR(200),
     specialization VARCHAR(100),
     license_number VARCHAR(50),
     FOREIGN KEY (user_id) REFERENCES "user"(id) ON DELETE CASCADE
@@ -87,7 +92,10 @@ CREATE TABLE IF NOT EXISTS medical_record (
     id BIGSERIAL PRIMARY KEY,
     patient_id BIGINT NOT NULL,
     diagnosis_encrypted TEXT,
+    diagnosis_cipher BYTEA,
+    diagnosis_bidx VARCHAR(64),
     treatment_encrypted TEXT,
+    treatment_cipher BYTEA,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (patient_id) REFERENCES patient(id) ON DELETE CASCADE
 );
@@ -115,6 +123,8 @@ CREATE TABLE IF NOT EXISTS prescription (
     doctor_id BIGINT NOT NULL,
     medical_record_id BIGINT NOT NULL,
     medication_encrypted TEXT,
+    medication_cipher BYTEA,
+    medication_bidx VARCHAR(64),
     issued_at TIMESTAMP,
     status VARCHAR(50),
     request_id VARCHAR(100),
@@ -132,6 +142,7 @@ CREATE TABLE IF NOT EXISTS audit_log (
     action VARCHAR(100),
     resource VARCHAR(100),
     timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    request_id VARCHAR(100),
     FOREIGN KEY (user_id) REFERENCES "user"(id)
 );
 
@@ -148,6 +159,74 @@ CREATE TABLE IF NOT EXISTS request_log (
     FOREIGN KEY (user_id) REFERENCES "user"(id)
 );
 
+-- -------------------------------
+-- EMAIL_OUTBOX table
+-- -------------------------------
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255),
+    body TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+-- -------------------------------
+-- PATIENT_DATA_KEY table
+-- Per-patient data keys for envelope encryption, wrapped by the master key
+-- -------------------------------
+CREATE TABLE IF NOT EXISTS patient_data_key (
+    patient_id BIGINT PRIMARY KEY REFERENCES patient(id) ON DELETE CASCADE,
+    wrapped_key TEXT NOT NULL,
+    master_key_id VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- -------------------------------
+-- REENCRYPTION_CHECKPOINT table
+-- Progress of the key-rotation re-encryption job, one row per encrypted table
+-- -------------------------------
+CREATE TABLE IF NOT EXISTS reencryption_checkpoint (
+    table_name VARCHAR(100) PRIMARY KEY,
+    key_id VARCHAR(255),
+    last_id INTEGER NOT NULL DEFAULT 0,
+    rows_scanned BIGINT NOT NULL DEFAULT 0,
+    rows_updated BIGINT NOT NULL DEFAULT 0,
+    status VARCHAR(20),
+    last_error TEXT,
+    started_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+-- -------------------------------
+-- OTP_CHALLENGE table (otp.store.type=jdbc)
+-- Unlogged: pending OTPs are short-lived and can be re-requested after a crash
+-- -------------------------------
+CREATE UNLOGGED TABLE IF NOT EXISTS otp_challenge (
+    username VARCHAR(100) PRIMARY KEY,
+    otp_hash VARCHAR(64) NOT NULL,
+    expires_at TIMESTAMPTZ NOT NULL
+);
+
+-- -------------------------------
+-- COLUMNS ADDED AFTER THE FIRST RELEASE
+-- Databases created from an older init.sql got these from ddl-auto=update, if at all
+-- -------------------------------
+ALTER TABLE role ADD COLUMN IF NOT EXISTS permissions_version INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE doctor ADD COLUMN IF NOT EXISTS name VARCHAR(200);
+ALTER TABLE medical_record ADD COLUMN IF NOT EXISTS diagnosis_cipher BYTEA;
+ALTER TABLE medical_record ADD COLUMN IF NOT EXISTS diagnosis_bidx VARCHAR(64);
+ALTER TABLE medical_record ADD COLUMN IF NOT EXISTS treatment_cipher BYTEA;
+ALTER TABLE prescription ADD COLUMN IF NOT EXISTS medication_cipher BYTEA;
+ALTER TABLE prescription ADD COLUMN IF NOT EXISTS medication_bidx VARCHAR(64);
+ALTER TABLE prescription ADD COLUMN IF NOT EXISTS request_id VARCHAR(100);
+ALTER TABLE appointment ADD COLUMN IF NOT EXISTS request_id VARCHAR(100);
+ALTER TABLE audit_log ADD COLUMN IF NOT EXISTS request_id VARCHAR(100);
+
 -- -------------------------------
 -- INDEXES
 -- -------------------------------
@@ -160,3 +239,8 @@ CREATE INDEX IF NOT EXISTS idx_appointment_doctor_id ON appointment(doctor_id);
 CREATE INDEX IF NOT EXISTS idx_prescription_patient_id ON prescription(patient_id);
 CREATE INDEX IF NOT EXISTS idx_audit_log_user_id ON audit_log(user_id);
 CREATE INDEX IF NOT EXISTS idx_request_log_request_id ON request_log(request_id);
+CREATE INDEX IF NOT EXISTS idx_audit_log_timestamp_id ON audit_log(timestamp, id);
+CREATE INDEX IF NOT EXISTS idx_request_log_timestamp_id ON request_log(timestamp, id);
+CREATE INDEX IF NOT EXISTS idx_medical_record_diagnosis_bidx ON medical_record(diagnosis_bidx);
+CREATE INDEX IF NOT EXISTS idx_prescription_medication_bidx ON prescription(medication_bidx);
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due ON email_outbox(next_attempt_at, id) WHERE status = 'PENDING';
@@ -0,0 +1,34 @@
+-- ===============================
+-- Move id generation from one-at-a-time BIGSERIAL defaults to pooled sequences
+-- Hibernate refuses to start while a sequence increment differs from the entity's allocationSize.
+--
+-- Each table keeps the sequence behind its BIGSERIAL (or identity) column; only the increment changes.
+-- Hibernate treats each value it draws as the top of a block of 50 ids, and the next value drawn is
+-- already past every existing id, so no id is reused. Rows inserted outside Hibernate still take
+-- their id from the column default; that value is the top of a block Hibernate never draws, so the
+-- two never collide.
+-- ===============================
+DO $$
+DECLARE
+    table_name TEXT;
+    sequence_name TEXT;
+BEGIN
+    FOREACH table_name IN ARRAY ARRAY['role', 'permission', 'role_permission', 'user', 'admin', 'patient', 'doctor',
+                                      'medical_record', 'appointment', 'prescription', 'audit_log', 'request_log',
+                                      'email_outbox'] LOOP
+        sequence_name := pg_get_serial_sequence(quote_ident(table_name), 'id');
+        IF sequence_name IS NULL THEN
+            -- Column without a sequence default (created by hand or by ddl-auto): give it one, starting past
+            -- the existing ids and never moving back a sequence Hibernate already draws from
+            sequence_name := quote_ident(table_name || '_id_seq');
+            EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %s INCREMENT BY 50 OWNED BY %I.id', sequence_name, table_name);
+            EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', sequence_name);
+            EXECUTE format('SELECT setval(''%s'', GREATEST((SELECT COALESCE(MAX(id), 0) FROM %I), (SELECT last_value FROM %s), 1))',
+                           sequence_name, table_name, sequence_name);
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(''%s'')', table_name, sequence_name);
+        ELSE
+            EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', sequence_name);
+        END IF;
+        RAISE NOTICE 'Sequence % of % now increments by 50', sequence_name, table_name;
+    END LOOP;
+END $$;
@@ -0,0 +1,48 @@
+-- ===============================
+-- Indexes matched to the repository finders
+-- Log pages are read newest first by (timestamp, id), optionally filtered by one column, so each
+-- filter gets a composite index ending in (timestamp, id) that serves both the filter and the order.
+-- Owner lists read by (owner, id), blind-index searches by (bidx, id).
+--
+-- CONCURRENTLY keeps the tables writable while the indexes build; Flyway runs these statements
+-- outside a transaction. A build that fails leaves an INVALID index behind: drop it and rerun.
+-- ===============================
+
+-- -------------------------------
+-- AUDIT_LOG: by user, action, resource; idx_audit_log_timestamp_id serves the unfiltered and date-range pages
+-- -------------------------------
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_audit_log_user_timestamp_id ON audit_log(user_id, timestamp, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_audit_log_action_timestamp_id ON audit_log(action, timestamp, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_audit_log_resource_timestamp_id ON audit_log(resource, timestamp, id);
+DROP INDEX CONCURRENTLY IF EXISTS idx_audit_log_user_id;
+
+-- -------------------------------
+-- REQUEST_LOG: by user, operation, outcome; idx_request_log_request_id serves lookups by request id
+-- -------------------------------
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_request_log_user_timestamp_id ON request_log(user_id, timestamp, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_request_log_operation_timestamp_id ON request_log(operation, timestamp, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_request_log_outcome_timestamp_id ON request_log(outcome, timestamp, id);
+
+-- -------------------------------
+-- PRESCRIPTION: by patient, doctor and blind index in id order; by medical record for cascading deletes
+-- -------------------------------
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_prescription_patient_id_id ON prescription(patient_id, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_prescription_doctor_id_id ON prescription(doctor_id, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_prescription_medication_bidx_id ON prescription(medication_bidx, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_prescription_medical_record_id ON prescription(medical_record_id);
+DROP INDEX CONCURRENTLY IF EXISTS idx_prescription_patient_id;
+DROP INDEX CONCURRENTLY IF EXISTS idx_prescription_medication_bidx;
+
+-- -------------------------------
+-- MEDICAL_RECORD: by patient and blind index in id order
+-- -------------------------------
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_medical_record_patient_id_id ON medical_record(patient_id, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_medical_record_diagnosis_bidx_id ON medical_record(diagnosis_bidx, id);
+DROP INDEX CONCURRENTLY IF EXISTS idx_medical_record_patient_id;
+DROP INDEX CONCURRENTLY IF EXISTS idx_medical_record_diagnosis_bidx;
+
+-- -------------------------------
+-- DOCTOR: by license number, by specialization in id order
+-- -------------------------------
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_doctor_license_number ON doctor(license_number);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_doctor_specialization_id ON doctor(specialization, id);
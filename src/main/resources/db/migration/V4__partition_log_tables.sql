@@ -0,0 +1,120 @@
+-- ===============================
+-- Range-partition audit_log and request_log by month of timestamp
+-- Both tables grow with every request and were never pruned. Partitioned, a date-range query only
+-- scans the months it covers, each month's indexes stay small, and retention drops whole months
+-- (LogPartitionService) instead of deleting rows.
+--
+-- Each table is rebuilt: the existing rows are copied into monthly partitions, from the oldest row's
+-- month to three months ahead; LogPartitionService keeps creating months ahead of time from then on.
+-- The copy runs in this migration's transaction, so run it with the application stopped.
+-- The primary key becomes (id, timestamp): a partitioned table's unique keys must include the
+-- partition key. Ids still come from the same pooled sequence, which carries on past every copied id.
+-- ===============================
+
+-- -------------------------------
+-- AUDIT_LOG
+-- -------------------------------
+DO $$
+DECLARE
+    old_sequence TEXT := pg_get_serial_sequence('audit_log', 'id');
+    last_id BIGINT := 0;
+    first_month DATE;
+    partition_month DATE;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'audit_log'::regclass) = 'p' THEN
+        RETURN;
+    END IF;
+    IF to_regclass(COALESCE(old_sequence, 'audit_log_id_seq')) IS NOT NULL THEN
+        EXECUTE format('SELECT last_value FROM %s', COALESCE(old_sequence, 'audit_log_id_seq')) INTO last_id;
+    END IF;
+
+    ALTER TABLE audit_log RENAME TO audit_log_unpartitioned;
+    CREATE TABLE audit_log (
+        id BIGINT NOT NULL,
+        user_id BIGINT,
+        action VARCHAR(100),
+        resource VARCHAR(100),
+        timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+        request_id VARCHAR(100)
+    ) PARTITION BY RANGE (timestamp);
+
+    first_month := date_trunc('month', COALESCE((SELECT MIN(timestamp) FROM audit_log_unpartitioned), CURRENT_TIMESTAMP));
+    partition_month := first_month;
+    WHILE partition_month <= date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF audit_log FOR VALUES FROM (%L) TO (%L)',
+                       'audit_log_p' || to_char(partition_month, 'YYYY_MM'), partition_month, (partition_month + INTERVAL '1 month')::date);
+        partition_month := (partition_month + INTERVAL '1 month')::date;
+    END LOOP;
+
+    -- Rows without a timestamp go to the oldest month and leave with it
+    INSERT INTO audit_log (id, user_id, action, resource, timestamp, request_id)
+    SELECT id, user_id, action, resource, COALESCE(timestamp, first_month), request_id FROM audit_log_unpartitioned;
+
+    -- Drops a BIGSERIAL or identity sequence along with the old table; a standalone one is kept
+    DROP TABLE audit_log_unpartitioned;
+    CREATE SEQUENCE IF NOT EXISTS audit_log_id_seq INCREMENT BY 50;
+    ALTER SEQUENCE audit_log_id_seq INCREMENT BY 50 OWNED BY audit_log.id;
+    PERFORM setval('audit_log_id_seq', GREATEST(last_id, (SELECT COALESCE(MAX(id), 0) FROM audit_log), 1));
+    ALTER TABLE audit_log ALTER COLUMN id SET DEFAULT nextval('audit_log_id_seq');
+
+    ALTER TABLE audit_log ADD PRIMARY KEY (id, timestamp);
+    ALTER TABLE audit_log ADD FOREIGN KEY (user_id) REFERENCES "user"(id);
+    CREATE INDEX idx_audit_log_timestamp_id ON audit_log(timestamp, id);
+    CREATE INDEX idx_audit_log_user_timestamp_id ON audit_log(user_id, timestamp, id);
+    CREATE INDEX idx_audit_log_action_timestamp_id ON audit_log(action, timestamp, id);
+    CREATE INDEX idx_audit_log_resource_timestamp_id ON audit_log(resource, timestamp, id);
+END $$;
+
+-- -------------------------------
+-- REQUEST_LOG
+-- -------------------------------
+DO $$
+DECLARE
+    old_sequence TEXT := pg_get_serial_sequence('request_log', 'id');
+    last_id BIGINT := 0;
+    first_month DATE;
+    partition_month DATE;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'request_log'::regclass) = 'p' THEN
+        RETURN;
+    END IF;
+    IF to_regclass(COALESCE(old_sequence, 'request_log_id_seq')) IS NOT NULL THEN
+        EXECUTE format('SELECT last_value FROM %s', COALESCE(old_sequence, 'request_log_id_seq')) INTO last_id;
+    END IF;
+
+    ALTER TABLE request_log RENAME TO request_log_unpartitioned;
+    CREATE TABLE request_log (
+        id BIGINT NOT NULL,
+        request_id VARCHAR(100),
+        user_id BIGINT,
+        operation VARCHAR(50),
+        outcome VARCHAR(50),
+        timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    ) PARTITION BY RANGE (timestamp);
+
+    first_month := date_trunc('month', COALESCE((SELECT MIN(timestamp) FROM request_log_unpartitioned), CURRENT_TIMESTAMP));
+    partition_month := first_month;
+    WHILE partition_month <= date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF request_log FOR VALUES FROM (%L) TO (%L)',
+                       'request_log_p' || to_char(partition_month, 'YYYY_MM'), partition_month, (partition_month + INTERVAL '1 month')::date);
+        partition_month := (partition_month + INTERVAL '1 month')::date;
+    END LOOP;
+
+    INSERT INTO request_log (id, request_id, user_id, operation, outcome, timestamp)
+    SELECT id, request_id, user_id, operation, outcome, COALESCE(timestamp, first_month) FROM request_log_unpartitioned;
+
+    DROP TABLE request_log_unpartitioned;
+    CREATE SEQUENCE IF NOT EXISTS request_log_id_seq INCREMENT BY 50;
+    ALTER SEQUENCE request_log_id_seq INCREMENT BY 50 OWNED BY request_log.id;
+    PERFORM setval('request_log_id_seq', GREATEST(last_id, (SELECT COALESCE(MAX(id), 0) FROM request_log), 1));
+    ALTER TABLE request_log ALTER COLUMN id SET DEFAULT nextval('request_log_id_seq');
+
+    ALTER TABLE request_log ADD PRIMARY KEY (id, timestamp);
+    ALTER TABLE request_log ADD FOREIGN KEY (user_id) REFERENCES "user"(id);
+    CREATE INDEX idx_request_log_timestamp_id ON request_log(timestamp, id);
+    -- Not partition-pruned: a lookup by request id probes each month's index
+    CREATE INDEX idx_request_log_request_id ON request_log(request_id);
+    CREATE INDEX idx_request_log_user_timestamp_id ON request_log(user_id, timestamp, id);
+    CREATE INDEX idx_request_log_operation_timestamp_id ON request_log(operation, timestamp, id);
+    CREATE INDEX idx_request_log_outcome_timestamp_id ON request_log(outcome, timestamp, id);
+END $$;
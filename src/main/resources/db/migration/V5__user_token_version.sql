@@ -0,0 +1,6 @@
+-- ===============================
+-- Per-user token version, stamped into self-contained JWTs next to the role's permissions version.
+-- Bumped when the user's role, status or password changes, so their outstanding tokens stop being
+-- trusted without a lookup.
+-- ===============================
+ALTER TABLE "user" ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- ===============================
+-- Email outbox: encrypted one-time codes, delivery expiry, claim leases and retention
+-- OTP mail is stored encrypted (body_encrypted) and not sent after expires_at. Dispatchers claim rows
+-- as SENDING with a lease in next_attempt_at and send outside the claiming transaction; a row whose
+-- lease ran out is due again. SENT and FAILED rows are purged after mail.outbox.retention-hours.
+-- ===============================
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS body_encrypted BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP;
+
+DROP INDEX IF EXISTS idx_email_outbox_due;
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due ON email_outbox(next_attempt_at, id) WHERE status IN ('PENDING', 'SENDING');
+CREATE INDEX IF NOT EXISTS idx_email_outbox_finished ON email_outbox(created_at) WHERE status IN ('SENT', 'FAILED');
+
+-- OTP mail queued before this holds its code in clear; those codes expire within minutes and can be resent
+DELETE FROM email_outbox WHERE subject = 'TrustCare - Your Login OTP' AND NOT body_encrypted;
@@ -0,0 +1,9 @@
+-- ===============================
+-- DEFAULT partitions for audit_log and request_log
+-- Without one, an insert whose month has no partition fails, so a few failed maintenance runs in a
+-- row would start failing every request. Such rows now land in the DEFAULT partition instead;
+-- LogPartitionService moves them into their month's partition when it creates it, and reports a
+-- non-empty DEFAULT partition at /monitoring/log_partitions.
+-- ===============================
+CREATE TABLE IF NOT EXISTS audit_log_default PARTITION OF audit_log DEFAULT;
+CREATE TABLE IF NOT EXISTS request_log_default PARTITION OF request_log DEFAULT;
@@ -0,0 +1,57 @@
+package com.cyclonex.trust_care.dto;
+
+import com.cyclonex.trust_care.entity.EncryptedText;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadModelViewTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void prescriptionViewIsFlatWithThePlaintextMedication() throws Exception {
+        PrescriptionView view = new PrescriptionView(5, 2, "Ann", 3, "Dr. Lee", 9,
+                EncryptedText.of("amoxicillin"), null, LocalDateTime.of(2026, 3, 1, 10, 0), "ACTIVE", "r-1");
+
+        JsonNode json = objectMapper.valueToTree(view);
+
+        assertEquals(List.of("id", "patientId", "patientName", "doctorId", "doctorName", "medicalRecordId",
+                "medication", "issuedAt", "status", "requestId"), fieldNames(json));
+        assertEquals("amoxicillin", json.get("medication").asText());
+        assertEquals("2026-03-01T10:00:00", json.get("issuedAt").asText());
+    }
+
+    @Test
+    void binaryColumnIsPreferredOverTheTextColumn() {
+        EncryptedText cipher = EncryptedText.of("from bytea");
+        EncryptedText text = EncryptedText.of("from text");
+
+        MedicalRecordView view = new MedicalRecordView(1, 2, "Ann", cipher, text, null, text, null);
+
+        assertSame(cipher, view.diagnosis());
+        assertSame(text, view.treatment());
+    }
+
+    @Test
+    void userViewCarriesNoCredentials() throws Exception {
+        JsonNode json = objectMapper.valueToTree(new UserView(1, "ann", "ann@trustcare.test", "PATIENT", "ACTIVE"));
+
+        assertEquals(List.of("id", "username", "email", "roleName", "status"), fieldNames(json));
+    }
+
+    private static List<String> fieldNames(JsonNode json) {
+        List<String> names = new ArrayList<>();
+        json.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
@@ -0,0 +1,115 @@
+package com.cyclonex.trust_care.entity;
+
+import com.cyclonex.trust_care.service.EncryptionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EncryptedTextConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private EncryptionService encryptionService;
+    private EncryptedTextConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        encryptionService = mock(EncryptionService.class);
+        when(encryptionService.decrypt("cipher")).thenReturn("Hypertension");
+        when(encryptionService.encrypt(anyString(), any())).thenAnswer(invocation -> "enc(" + invocation.getArgument(0) + ")");
+        converter = new EncryptedTextConverter(encryptionService);
+    }
+
+    @Test
+    void loadingDoesNoDecryption() {
+        MedicalRecord record = new MedicalRecord();
+        record.setId(7);
+        record.setDiagnosisEncrypted(converter.convertToEntityAttribute("cipher"));
+
+        assertFalse(record.getDiagnosisEncrypted().isDecrypted());
+        assertEquals("cipher", converter.convertToDatabaseColumn(record.getDiagnosisEncrypted()));
+        verify(encryptionService, never()).decrypt(anyString());
+    }
+
+    @Test
+    void plaintextIsDecryptedOnceWhenSerialized() throws Exception {
+        MedicalRecord record = new MedicalRecord();
+        record.setDiagnosisEncrypted(converter.convertToEntityAttribute("cipher"));
+
+        String json = objectMapper.writeValueAsString(record);
+        objectMapper.writeValueAsString(record);
+
+        assertTrue(json.contains("\"diagnosisEncrypted\":\"Hypertension\""));
+        verify(encryptionService, times(1)).decrypt("cipher");
+    }
+
+    @Test
+    void requestValuesAreEncryptedOnceWhenWritten() throws Exception {
+        MedicalRecord record = objectMapper.readValue("{\"diagnosisEncrypted\":\"Asthma\"}", MedicalRecord.class);
+
+        assertEquals("Asthma", record.getDiagnosisEncrypted().getPlaintext());
+        assertEquals("enc(Asthma)", converter.convertToDatabaseColumn(record.getDiagnosisEncrypted()));
+        assertEquals("enc(Asthma)", converter.convertToDatabaseColumn(record.getDiagnosisEncrypted()));
+        verify(encryptionService, times(1)).encrypt("Asthma", null);
+        assertNull(record.getTreatmentEncrypted());
+    }
+
+    @Test
+    void binaryModeWritesOnlyTheByteaColumnAndReadsBoth() throws Exception {
+        byte[] blob = {1, 2, 3};
+        when(encryptionService.isBinaryStorage()).thenReturn(true);
+        when(encryptionService.encryptToBytes(eq("Asthma"), any())).thenReturn(blob);
+        when(encryptionService.decrypt(blob)).thenReturn("Asthma");
+        EncryptedBinaryConverter binaryConverter = new EncryptedBinaryConverter(encryptionService);
+
+        MedicalRecord record = objectMapper.readValue("{\"diagnosisEncrypted\":\"Asthma\"}", MedicalRecord.class);
+        assertNull(converter.convertToDatabaseColumn(record.getDiagnosisEncrypted()));
+        assertSame(blob, binaryConverter.convertToDatabaseColumn(record.getDiagnosisEncrypted()));
+
+        MedicalRecord loaded = new MedicalRecord();
+        ReflectionTestUtils.setField(loaded, "diagnosisEncrypted", converter.convertToEntityAttribute("cipher"));
+        ReflectionTestUtils.setField(loaded, "diagnosisCipher", binaryConverter.convertToEntityAttribute(blob));
+        assertEquals("Asthma", loaded.getDiagnosisEncrypted().getPlaintext());
+        verify(encryptionService, never()).decrypt("cipher");
+    }
+
+    @Test
+    void valuesInTheInactiveColumnSurviveAnUpdateOfTheRow() {
+        byte[] blob = {1, 2, 3};
+        EncryptedBinaryConverter binaryConverter = new EncryptedBinaryConverter(encryptionService);
+
+        // An unmigrated TEXT row, saved in binary mode for a change to another field
+        when(encryptionService.isBinaryStorage()).thenReturn(true);
+        MedicalRecord textRow = new MedicalRecord();
+        ReflectionTestUtils.setField(textRow, "diagnosisEncrypted", converter.convertToEntityAttribute("cipher"));
+        textRow.setDiagnosisBidx("changed");
+        assertEquals("cipher", converter.convertToDatabaseColumn(
+                (EncryptedText) ReflectionTestUtils.getField(textRow, "diagnosisEncrypted")));
+        assertNull(binaryConverter.convertToDatabaseColumn(
+                (EncryptedText) ReflectionTestUtils.getField(textRow, "diagnosisCipher")));
+
+        // A bytea row saved after switching back to text mode
+        when(encryptionService.isBinaryStorage()).thenReturn(false);
+        MedicalRecord binaryRow = new MedicalRecord();
+        ReflectionTestUtils.setField(binaryRow, "diagnosisCipher", binaryConverter.convertToEntityAttribute(blob));
+        assertSame(blob, binaryConverter.convertToDatabaseColumn(
+                (EncryptedText) ReflectionTestUtils.getField(binaryRow, "diagnosisCipher")));
+        assertNull(converter.convertToDatabaseColumn(
+                (EncryptedText) ReflectionTestUtils.getField(binaryRow, "diagnosisEncrypted")));
+
+        // A new value replaces both columns: only the active one is written
+        binaryRow.setDiagnosisEncrypted(EncryptedText.of("Asthma"));
+        assertEquals("enc(Asthma)", converter.convertToDatabaseColumn(
+                (EncryptedText) ReflectionTestUtils.getField(binaryRow, "diagnosisEncrypted")));
+        assertNull(binaryConverter.convertToDatabaseColumn(
+                (EncryptedText) ReflectionTestUtils.getField(binaryRow, "diagnosisCipher")));
+        verify(encryptionService, never()).decrypt(anyString());
+    }
+}
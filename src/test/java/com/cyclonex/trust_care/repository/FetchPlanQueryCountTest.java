@@ -0,0 +1,205 @@
+package com.cyclonex.trust_care.repository;
+
+import com.cyclonex.trust_care.entity.*;
+import com.cyclonex.trust_care.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Asserts that each list endpoint runs a fixed number of SQL statements however many rows it returns,
+ * including serialization, which is where lazy associations would otherwise load row by row.
+ * Needs a PostgreSQL database: set TRUSTCARE_TEST_DB_URL (and TRUSTCARE_TEST_DB_USERNAME / _PASSWORD).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.cyclonex.trust_care.repository.FetchPlanQueryCountTest$StatementCounter")
+@EnabledIfEnvironmentVariable(named = "TRUSTCARE_TEST_DB_URL", matches = ".+")
+class FetchPlanQueryCountTest {
+
+    private static final int ROWS = 20;
+    // One statement per page; a second is tolerated for a secondary fetch, but it must not grow with the rows
+    private static final int MAX_STATEMENTS = 2;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TRUSTCARE_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("TRUSTCARE_TEST_DB_USERNAME", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("TRUSTCARE_TEST_DB_PASSWORD", ""));
+    }
+
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PatientRepository patientRepository;
+    @Autowired private DoctorRepository doctorRepository;
+    @Autowired private MedicalRecordRepository medicalRecordRepository;
+    @Autowired private PrescriptionRepository prescriptionRepository;
+    @Autowired private AuditLogRepository auditLogRepository;
+    @Autowired private RequestLogRepository requestLogRepository;
+
+    @Autowired private MedicalRecordService medicalRecordService;
+    @Autowired private PrescriptionService prescriptionService;
+    @Autowired private PatientService patientService;
+    @Autowired private DoctorService doctorService;
+    @Autowired private UserService userService;
+    @Autowired private AuditLogService auditLogService;
+    @Autowired private RequestLogService requestLogService;
+    @Autowired private ObjectMapper objectMapper;
+
+    private Role role;
+    private final List<User> users = new ArrayList<>();
+    private final List<Patient> patients = new ArrayList<>();
+    private final List<Doctor> doctors = new ArrayList<>();
+    private final List<MedicalRecord> records = new ArrayList<>();
+    private final List<Prescription> prescriptions = new ArrayList<>();
+    private final List<AuditLog> auditLogs = new ArrayList<>();
+    private final List<RequestLog> requestLogs = new ArrayList<>();
+
+    @BeforeEach
+    void createRows() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        role = new Role();
+        role.setRoleName("QC_" + run);
+        role.setSecretKey("secret");
+        role = roleRepository.save(role);
+
+        for (int i = 0; i < 4; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setUser(user(run, "d" + i));
+            doctor.setName("Doctor " + i);
+            doctor.setSpecialization("General");
+            doctor.setLicenseNumber(run + "-" + i);
+            doctors.add(doctorRepository.save(doctor));
+        }
+        for (int i = 0; i < ROWS; i++) {
+            Patient patient = new Patient();
+            patient.setUser(user(run, "p" + i));
+            patient.setName("Patient " + i);
+            patient.setDob(LocalDate.of(1980, 1, 1));
+            patients.add(patientRepository.save(patient));
+
+            MedicalRecord record = new MedicalRecord();
+            record.setPatient(patient);
+            record.setDiagnosisEncrypted(EncryptedText.of("Diagnosis " + i));
+            record.setTreatmentEncrypted(EncryptedText.of("Treatment " + i));
+            records.add(medicalRecordRepository.save(record));
+
+            Prescription prescription = new Prescription();
+            prescription.setPatient(patient);
+            prescription.setDoctor(doctors.get(i % doctors.size()));
+            prescription.setMedicalRecord(record);
+            prescription.setMedicationEncrypted(EncryptedText.of("Medication " + i));
+            prescription.setStatus("ACTIVE");
+            prescriptions.add(prescriptionRepository.save(prescription));
+
+            AuditLog auditLog = new AuditLog();
+            auditLog.setUser(patient.getUser());
+            auditLog.setAction("VIEW");
+            auditLog.setResource("medical_record");
+            auditLogs.add(auditLogRepository.save(auditLog));
+
+            RequestLog requestLog = new RequestLog();
+            requestLog.setRequestId(run + "-" + i);
+            requestLog.setUser(patient.getUser());
+            requestLog.setOperation("GET");
+            requestLog.setOutcome("SUCCESS");
+            requestLogs.add(requestLogRepository.save(requestLog));
+        }
+    }
+
+    @AfterEach
+    void deleteRows() {
+        requestLogRepository.deleteAll(requestLogs);
+        auditLogRepository.deleteAll(auditLogs);
+        prescriptionRepository.deleteAll(prescriptions);
+        medicalRecordRepository.deleteAll(records);
+        patientRepository.deleteAll(patients);
+        doctorRepository.deleteAll(doctors);
+        userRepository.deleteAll(users);
+        roleRepository.delete(role);
+    }
+
+    @Test
+    void pagedListsRunAFixedNumberOfStatements() throws Exception {
+        assertFixed("medical records", size -> medicalRecordService.getAllMedicalRecords(null, size));
+        assertFixed("prescriptions", size -> prescriptionService.getAllPrescriptions(null, size));
+        assertFixed("patients", size -> patientService.getAllPatients(null, size));
+        assertFixed("doctors", size -> doctorService.getAllDoctors(null, size));
+        assertFixed("users", size -> userService.getAllUsers(null, size));
+        assertFixed("audit logs", size -> auditLogService.getAllAuditLogs(null, size));
+        assertFixed("request logs", size -> requestLogService.getAllRequestLogs(null, size));
+    }
+
+    @Test
+    void readsByOwnerRunAFixedNumberOfStatements() throws Exception {
+        int patientId = patients.get(0).getId();
+        int doctorId = doctors.get(0).getId();
+
+        assertAtMost("records by patient", () -> medicalRecordService.getMedicalRecordsByPatientId(patientId, null, null));
+        assertAtMost("prescriptions by patient", () -> prescriptionService.getPrescriptionsByPatientId(patientId, null, null));
+        assertAtMost("prescriptions by doctor", () -> prescriptionService.getPrescriptionsByDoctorId(doctorId, null, null));
+        assertAtMost("prescription by id", () -> prescriptionService.getPrescriptionById(prescriptions.get(0).getId()));
+        assertAtMost("record by id", () -> medicalRecordService.getMedicalRecordById(records.get(0).getId()));
+    }
+
+    private void assertFixed(String name, PageReader reader) throws Exception {
+        int small = statementsFor(() -> reader.read(2));
+        int large = statementsFor(() -> reader.read(ROWS));
+        assertEquals(small, large, name + ": statement count grew with the page size");
+        assertTrue(large <= MAX_STATEMENTS, name + ": " + large + " statements");
+    }
+
+    private void assertAtMost(String name, Supplier<Object> reader) throws Exception {
+        int statements = statementsFor(reader);
+        assertTrue(statements <= MAX_STATEMENTS, name + ": " + statements + " statements");
+    }
+
+    // Serializing is part of the measurement: that is where a missing fetch would load lazily
+    private int statementsFor(Supplier<Object> reader) throws Exception {
+        StatementCounter.COUNT.set(0);
+        objectMapper.writeValueAsString(reader.get());
+        return StatementCounter.COUNT.get();
+    }
+
+    private User user(String run, String suffix) {
+        User user = new User();
+        user.setUsername(run + suffix);
+        user.setEmail(run + suffix + "@trustcare.test");
+        user.setPasswordHash("x");
+        user.setRole(role);
+        user.setStatus("ACTIVE");
+        User saved = userRepository.save(user);
+        users.add(saved);
+        return saved;
+    }
+
+    private interface PageReader {
+        Object read(int size);
+    }
+
+    public static class StatementCounter implements StatementInspector {
+
+        static final AtomicInteger COUNT = new AtomicInteger();
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.incrementAndGet();
+            return sql;
+        }
+    }
+}
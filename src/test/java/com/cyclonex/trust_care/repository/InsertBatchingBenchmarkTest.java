@@ -0,0 +1,120 @@
+package com.cyclonex.trust_care.repository;
+
+import com.cyclonex.trust_care.entity.RequestLog;
+import com.cyclonex.trust_care.service.LogWriteBuffer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rows per second for request log inserts: one transaction per row (how log entries used to be written),
+ * one transaction without JDBC batching, and through the write buffer with pooled ids and batching.
+ * Needs a PostgreSQL database: set TRUSTCARE_TEST_DB_URL (and TRUSTCARE_TEST_DB_USERNAME / _PASSWORD);
+ * TRUSTCARE_BENCHMARK_ROWS sets the rows per run (default 5000). The write buffer must be at least twice as fast
+ * as one transaction per row.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "TRUSTCARE_TEST_DB_URL", matches = ".+")
+class InsertBatchingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InsertBatchingBenchmarkTest.class);
+    private static final int ROWS = Integer.parseInt(System.getenv().getOrDefault("TRUSTCARE_BENCHMARK_ROWS", "5000"));
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TRUSTCARE_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("TRUSTCARE_TEST_DB_USERNAME", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("TRUSTCARE_TEST_DB_PASSWORD", ""));
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired private RequestLogRepository requestLogRepository;
+    @Autowired private LogWriteBuffer logWriteBuffer;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @PersistenceContext private EntityManager entityManager;
+
+    private final String run = "benchmark-" + UUID.randomUUID().toString().substring(0, 8);
+
+    @AfterEach
+    void deleteRows() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                entityManager.createQuery("delete from RequestLog r where r.operation = :operation")
+                        .setParameter("operation", run).executeUpdate());
+    }
+
+    @Test
+    void batchedInsertsOutrunRowByRowInserts() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        double rowByRow = rowsPerSecond(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                requestLogRepository.save(entry(i));
+            }
+        });
+
+        double unbatched = rowsPerSecond(() -> transaction.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+            for (int i = 0; i < ROWS; i++) {
+                entityManager.persist(entry(i));
+            }
+        }));
+
+        double buffered = rowsPerSecond(() -> {
+            for (int i = 0; i < ROWS; i++) {
+                logWriteBuffer.add(entry(i));
+            }
+            logWriteBuffer.flush();
+            // Batches taken by the early flush on the audit executor may still be in flight
+            awaitStored(3L * ROWS);
+        });
+
+        log.info("request_log inserts, {} rows: one transaction per row {} rows/s, one transaction unbatched {} rows/s, "
+                + "write buffer batched {} rows/s", ROWS, Math.round(rowByRow), Math.round(unbatched), Math.round(buffered));
+        assertEquals(3L * ROWS, stored());
+        assertTrue(buffered > 2 * rowByRow, "write buffer should be at least twice as fast as one transaction per row");
+    }
+
+    private long stored() {
+        Long count = new TransactionTemplate(transactionManager).execute(status ->
+                entityManager.createQuery("select count(r) from RequestLog r where r.operation = :operation", Long.class)
+                        .setParameter("operation", run).getSingleResult());
+        return count != null ? count : 0;
+    }
+
+    private void awaitStored(long expected) {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (stored() < expected && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private RequestLog entry(int i) {
+        RequestLog requestLog = new RequestLog();
+        requestLog.setOperation(run);
+        requestLog.setOutcome("BENCHMARK");
+        requestLog.setRequestId(String.valueOf(i));
+        return requestLog;
+    }
+
+    private static double rowsPerSecond(Runnable inserts) {
+        long start = System.nanoTime();
+        inserts.run();
+        return ROWS / ((System.nanoTime() - start) / 1e9);
+    }
+}
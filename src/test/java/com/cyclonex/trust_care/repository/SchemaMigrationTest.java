@@ -0,0 +1,106 @@
+package com.cyclonex.trust_care.repository;
+
+import com.cyclonex.trust_care.service.LogPartitionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The context only starts once Flyway has migrated the database and Hibernate has validated its
+ * mappings against it; this checks the log partitions and finder indexes that validation does not cover.
+ * Needs a PostgreSQL database: set TRUSTCARE_TEST_DB_URL (and TRUSTCARE_TEST_DB_USERNAME / _PASSWORD).
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "TRUSTCARE_TEST_DB_URL", matches = ".+")
+class SchemaMigrationTest {
+
+    private static final List<String> FINDER_INDEXES = List.of(
+            "idx_audit_log_timestamp_id", "idx_audit_log_user_timestamp_id", "idx_audit_log_action_timestamp_id",
+            "idx_audit_log_resource_timestamp_id", "idx_request_log_timestamp_id", "idx_request_log_request_id",
+            "idx_request_log_user_timestamp_id", "idx_request_log_operation_timestamp_id",
+            "idx_request_log_outcome_timestamp_id", "idx_prescription_patient_id_id", "idx_prescription_doctor_id_id",
+            "idx_prescription_medication_bidx_id", "idx_medical_record_patient_id_id",
+            "idx_medical_record_diagnosis_bidx_id", "idx_doctor_license_number", "idx_doctor_specialization_id");
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TRUSTCARE_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("TRUSTCARE_TEST_DB_USERNAME", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("TRUSTCARE_TEST_DB_PASSWORD", ""));
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LogPartitionService logPartitionService;
+
+    @Test
+    void everyMigrationIsApplied() {
+        Integer failed = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM flyway_schema_history WHERE NOT success", Integer.class);
+        String latest = jdbcTemplate.queryForObject(
+                "SELECT max(version::int)::text FROM flyway_schema_history WHERE version ~ '^[0-9]+$'", String.class);
+        assertEquals(0, failed);
+        assertEquals("7", latest);
+    }
+
+    @Test
+    void logTablesArePartitionedAheadOfTime() {
+        for (String table : List.of("audit_log", "request_log")) {
+            String kind = jdbcTemplate.queryForObject(
+                    "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, table);
+            Integer ahead = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM pg_inherits WHERE inhparent = to_regclass(?) AND inhrelid::regclass::text >= ?",
+                    Integer.class, table, table + "_p" + YearMonth.now().format(DateTimeFormatter.ofPattern("yyyy_MM")));
+            assertEquals("p", kind, table + " is not partitioned");
+            assertTrue(ahead >= 2, table + " has no partitions ahead of the current month");
+        }
+    }
+
+    @Test
+    void rowsWithoutAMonthlyPartitionAreKeptAndMovedByMaintenance() {
+        jdbcTemplate.update("INSERT INTO request_log (id, operation, timestamp) "
+                + "VALUES (nextval('request_log_id_seq'), 'partition-test', '2099-01-15')");
+        try {
+            assertEquals(1, countTestRows("request_log_default"));
+
+            logPartitionService.maintain();
+
+            assertEquals(0, countTestRows("request_log_default"));
+            assertEquals(1, countTestRows("request_log_p2099_01"));
+        } finally {
+            jdbcTemplate.update("DELETE FROM request_log WHERE operation = 'partition-test'");
+            jdbcTemplate.execute("DROP TABLE IF EXISTS request_log_p2099_01");
+        }
+    }
+
+    private int countTestRows(String table) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM " + table + " WHERE operation = 'partition-test'", Integer.class);
+    }
+
+    @Test
+    void finderIndexesExistAndAreValid() {
+        // A failed CREATE INDEX CONCURRENTLY leaves an invalid index the planner never uses
+        Set<String> valid = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                "JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname = current_schema() AND i.indisvalid",
+                String.class));
+        for (String index : FINDER_INDEXES) {
+            assertTrue(valid.contains(index), index + " is missing or invalid");
+        }
+    }
+}
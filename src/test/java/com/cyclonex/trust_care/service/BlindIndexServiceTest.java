@@ -0,0 +1,44 @@
+package com.cyclonex.trust_care.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlindIndexServiceTest {
+
+    private BlindIndexService blindIndexService;
+
+    @BeforeEach
+    void setUp() {
+        blindIndexService = indexService("blind-index-secret");
+    }
+
+    @Test
+    void equivalentSpellingsShareAnIndex() {
+        String index = blindIndexService.index("Type 2 Diabetes");
+
+        assertEquals(64, index.length());
+        assertEquals(index, blindIndexService.index("  type 2   DIABETES "));
+        assertNotEquals(index, blindIndexService.index("Type 1 Diabetes"));
+    }
+
+    @Test
+    void blankValuesHaveNoIndex() {
+        assertNull(blindIndexService.index(null));
+        assertNull(blindIndexService.index("   "));
+    }
+
+    @Test
+    void indexDependsOnTheKey() {
+        assertNotEquals(blindIndexService.index("Asthma"), indexService("other-secret").index("Asthma"));
+    }
+
+    private BlindIndexService indexService(String key) {
+        BlindIndexService service = new BlindIndexService();
+        ReflectionTestUtils.setField(service, "blindIndexKey", key);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,94 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.dto.DecryptionStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkDecryptionServiceTest {
+
+    private final BulkDecryptionService bulkDecryptionService = new BulkDecryptionService(4, 10, 2);
+
+    @AfterEach
+    void tearDown() {
+        bulkDecryptionService.shutdown();
+    }
+
+    @Test
+    void smallListsStayOnTheCallingThread() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<StringBuilder> rows = rows(5);
+
+        bulkDecryptionService.decryptAll(rows, row -> {
+            threads.add(Thread.currentThread().getName());
+            row.append("!");
+        }, "test");
+
+        assertEquals(Set.of(Thread.currentThread().getName()), threads);
+        rows.forEach(row -> assertTrue(row.toString().endsWith("!")));
+    }
+
+    @Test
+    void largeListsAreSplitAcrossThePoolAndEveryRowIsVisited() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<StringBuilder> rows = rows(500);
+
+        List<StringBuilder> result = bulkDecryptionService.decryptAll(rows, row -> {
+            threads.add(Thread.currentThread().getName());
+            row.append("!");
+        }, "test");
+
+        assertSame(rows, result);
+        rows.forEach(row -> assertEquals(1, row.chars().filter(c -> c == '!').count()));
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("decrypt-")));
+    }
+
+    @Test
+    void timeIsRecordedPerLabelAndMode() {
+        bulkDecryptionService.decryptAll(rows(5), row -> row.append("!"), "prescription");
+        bulkDecryptionService.decryptAll(rows(3), row -> row.append("!"), "prescription");
+        bulkDecryptionService.decryptAll(rows(50), row -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "prescription");
+        bulkDecryptionService.decryptAll(List.of(), row -> { }, "medical record");
+
+        List<DecryptionStats> stats = bulkDecryptionService.getStats();
+
+        assertEquals(2, stats.size());
+        DecryptionStats parallel = stats.get(0);
+        assertEquals("prescription", parallel.label());
+        assertTrue(parallel.parallel());
+        assertEquals(1, parallel.calls());
+        assertEquals(50, parallel.rows());
+        assertTrue(parallel.maxMs() > 0 && parallel.averageMs() == parallel.maxMs());
+        DecryptionStats serial = stats.get(1);
+        assertFalse(serial.parallel());
+        assertEquals(2, serial.calls());
+        assertEquals(8, serial.rows());
+    }
+
+    @Test
+    void decryptionFailuresReachTheCaller() {
+        assertThrows(IllegalArgumentException.class, () -> bulkDecryptionService.decryptAll(rows(100), row -> {
+            throw new IllegalArgumentException("Error decrypting data");
+        }, "test"));
+    }
+
+    private List<StringBuilder> rows(int count) {
+        List<StringBuilder> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new StringBuilder("row" + i));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,143 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.dto.ImportJobStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ClinicalImportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csvQuotedFieldsMaySpanLinesAndBadRowsAreSkipped() throws IOException {
+        String csv = "\uFEFFpatientId,diagnosis,treatment\r\n"
+                + "1,\"Flu, \"\"seasonal\"\"\",Rest\r\n"
+                + "2,\"Line one\nline two\",\n"
+                + "3,too,many,fields\n"
+                + "4,Cold,Tea\n";
+        List<ImportRowReader.Row> rows = readAll(csv, DataFormat.CSV);
+
+        assertEquals(4, rows.size());
+        assertEquals("Flu, \"seasonal\"", rows.get(0).values().get("diagnosis"));
+        assertEquals("1", rows.get(0).values().get("patientId"));
+        assertEquals("Line one\nline two", rows.get(1).values().get("diagnosis"));
+        assertNull(rows.get(1).values().get("treatment"));
+        assertEquals(5, rows.get(2).line());
+        assertNotNull(rows.get(2).error());
+        assertEquals(6, rows.get(3).line());
+        assertEquals("Cold", rows.get(3).values().get("diagnosis"));
+    }
+
+    @Test
+    void malformedJsonLinesAreReportedWithTheirLineNumber() throws IOException {
+        String ndjson = "{\"patientId\":1,\"diagnosis\":\"Flu\"}\n"
+                + "{not json\n"
+                + "\n"
+                + "[1,2]\n"
+                + "{\"patientEmail\":\"a@b.test\",\"diagnosis\":\"Cold\",\"treatment\":null}\n";
+        List<ImportRowReader.Row> rows = readAll(ndjson, DataFormat.NDJSON);
+
+        assertEquals(4, rows.size());
+        assertEquals("1", rows.get(0).values().get("patientId"));
+        assertEquals(2, rows.get(1).line());
+        assertTrue(rows.get(1).error().startsWith("Malformed JSON"));
+        assertEquals(4, rows.get(2).line());
+        assertNotNull(rows.get(2).error());
+        assertEquals(5, rows.get(3).line());
+        assertNull(rows.get(3).values().get("treatment"));
+    }
+
+    @Test
+    void rowsMissingRequiredFieldsAreRejected() {
+        assertEquals("patientId or patientEmail is required",
+                parse(ClinicalImportService.ImportType.MEDICAL_RECORD, Map.of("diagnosis", "Flu")).error);
+        assertEquals("doctorId or doctorLicense is required",
+                parse(ClinicalImportService.ImportType.PRESCRIPTION,
+                        Map.of("patientId", "1", "medication", "Aspirin", "medicalRecordId", "3")).error);
+        assertTrue(parse(ClinicalImportService.ImportType.MEDICAL_RECORD,
+                Map.of("patientId", "x", "diagnosis", "Flu")).error.startsWith("Invalid number"));
+        assertTrue(parse(ClinicalImportService.ImportType.MEDICAL_RECORD,
+                Map.of("patientId", "1", "diagnosis", "Flu", "createdAt", "yesterday")).error.startsWith("Invalid createdAt"));
+
+        ClinicalImportService.PendingRow row = parse(ClinicalImportService.ImportType.PRESCRIPTION,
+                Map.of("patientEmail", "a@b.test", "doctorLicense", "L-1", "medicalRecordId", "3", "medication", "Aspirin",
+                        "issuedAt", "2024-05-01T10:15:30"));
+        assertNull(row.error);
+        assertEquals(3, row.medicalRecordId);
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 15, 30), row.timestamp);
+    }
+
+    @Test
+    void jobThatStopsReportsWhyWithoutCountingAFailedRow(@TempDir Path dir) {
+        ClinicalImportService service = new ClinicalImportService(mock(JdbcTemplate.class),
+                mock(PlatformTransactionManager.class), null, null, null, objectMapper, new SyncTaskExecutor());
+        ClinicalImportService.ImportJob job = new ClinicalImportService.ImportJob("job-1",
+                ClinicalImportService.ImportType.MEDICAL_RECORD, DataFormat.CSV, false, "req-1");
+
+        service.run(job, dir.resolve("missing.csv"));
+
+        ImportJobStatus status = job.status();
+        assertEquals(ClinicalImportService.STATUS_FAILED, status.status());
+        assertEquals(0, status.rowsFailed());
+        assertTrue(status.errors().isEmpty());
+        assertTrue(status.error().startsWith("Import stopped after 0 rows"));
+    }
+
+    @Test
+    void idsAreTakenFromWholeSequenceBlocks() {
+        int block = ClinicalImportService.ID_BLOCK_SIZE;
+        List<Integer> ids = ClinicalImportService.idsFromBlocks(List.of((long) block * 3, (long) block * 7), block + 2);
+
+        assertEquals(block + 2, ids.size());
+        assertEquals(block * 2 + 1, ids.get(0));
+        assertEquals(block * 3, ids.get(block - 1));
+        assertEquals(block * 6 + 1, ids.get(block));
+        assertEquals(block * 6 + 2, ids.get(block + 1));
+    }
+
+    @Test
+    void copyDataQuotesTextAndLeavesNullsEmpty() {
+        ClinicalImportService.PendingRow row = parse(ClinicalImportService.ImportType.PRESCRIPTION, Map.of(
+                "patientId", "7", "doctorId", "2", "medicalRecordId", "3", "medication", "x",
+                "issuedAt", "2024-05-01T10:15:30"));
+        row.encrypted[0] = new byte[]{0x01, (byte) 0xab};
+        row.blindIndex = "idx";
+
+        String data = ClinicalImportService.copyData(ClinicalImportService.ImportType.PRESCRIPTION,
+                List.of(row), List.of(101), "req \"1\"");
+
+        assertEquals("101,7,2,3,\\x01ab,\"idx\",\"2024-05-01T10:15:30\",,\"req \"\"1\"\"\"\n", data);
+    }
+
+    private ClinicalImportService.PendingRow parse(ClinicalImportService.ImportType type, Map<String, String> values) {
+        ClinicalImportService.PendingRow row = new ClinicalImportService.PendingRow(1, values);
+        row.parse(type);
+        return row;
+    }
+
+    private List<ImportRowReader.Row> readAll(String text, DataFormat format) throws IOException {
+        List<ImportRowReader.Row> rows = new ArrayList<>();
+        try (ImportRowReader reader = new ImportRowReader(new StringReader(text), format, objectMapper)) {
+            ImportRowReader.Row row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
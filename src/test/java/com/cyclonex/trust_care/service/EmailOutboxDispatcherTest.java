@@ -0,0 +1,267 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.entity.EmailOutbox;
+import com.cyclonex.trust_care.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDispatcherTest {
+
+    private InProcessSmtpServer smtpServer;
+    private EmailOutboxRepository repository;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        smtpServer = new InProcessSmtpServer();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtpServer.getPort());
+
+        PlatformTransactionManager transactionManager = transactionManager();
+
+        repository = mock(EmailOutboxRepository.class);
+        EncryptionService encryptionService = mock(EncryptionService.class);
+        when(encryptionService.decrypt(anyString())).thenAnswer(invocation -> invocation.<String>getArgument(0).replace("sealed:", ""));
+        dispatcher = new EmailOutboxDispatcher(repository, mailSender, encryptionService, transactionManager, Runnable::run);
+        ReflectionTestUtils.setField(dispatcher, "fromEmail", "noreply@trustcare.test");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "maxPerSecond", 100);
+        ReflectionTestUtils.setField(dispatcher, "pollIntervalMs", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMs", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 60000L);
+        ReflectionTestUtils.setField(dispatcher, "leaseMs", 300000L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtpServer.close();
+    }
+
+    @Test
+    void batchIsDeliveredOverOneConnection() {
+        List<EmailOutbox> batch = List.of(message("a@trustcare.test"), message("b@trustcare.test"), message("c@trustcare.test"));
+        when(repository.lockDueMessages(any(LocalDateTime.class), anyInt())).thenReturn(batch);
+
+        assertEquals(3, dispatcher.dispatchBatch(50));
+
+        assertEquals(1, smtpServer.getConnectionCount());
+        assertEquals(List.of("a@trustcare.test", "b@trustcare.test", "c@trustcare.test"), smtpServer.getDeliveredRecipients());
+        batch.forEach(outbox -> {
+            assertEquals(EmailOutbox.STATUS_SENT, outbox.getStatus());
+            assertNotNull(outbox.getSentAt());
+        });
+        // Once to claim, once to record the outcome
+        verify(repository, times(2)).saveAll(batch);
+    }
+
+    @Test
+    void batchIsClaimedUnderALeaseBeforeSending() {
+        List<EmailOutbox> batch = List.of(message("a@trustcare.test"));
+        when(repository.lockDueMessages(any(LocalDateTime.class), anyInt())).thenReturn(batch);
+        List<String> claimedStatuses = new ArrayList<>();
+        when(repository.saveAll(batch)).thenAnswer(invocation -> {
+            if (claimedStatuses.isEmpty()) {
+                claimedStatuses.add(batch.get(0).getStatus());
+                assertTrue(batch.get(0).getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(4)));
+                assertTrue(smtpServer.getDeliveredRecipients().isEmpty());
+            }
+            return batch;
+        });
+
+        dispatcher.dispatchBatch(50);
+
+        assertEquals(List.of(EmailOutbox.STATUS_SENDING), claimedStatuses);
+        assertEquals(EmailOutbox.STATUS_SENT, batch.get(0).getStatus());
+    }
+
+    @Test
+    void encryptedBodyIsSentInClearAndClearedAfterwards() {
+        EmailOutbox otp = message("otp@trustcare.test");
+        otp.setBody("sealed:Your code is 123456");
+        otp.setBodyEncrypted(true);
+        otp.setExpiresAt(LocalDateTime.now().plusMinutes(5));
+        when(repository.lockDueMessages(any(LocalDateTime.class), anyInt())).thenReturn(List.of(otp));
+
+        dispatcher.dispatchBatch(50);
+
+        assertTrue(smtpServer.getDeliveredContents().get(0).contains("Your code is 123456"));
+        assertEquals(EmailOutbox.STATUS_SENT, otp.getStatus());
+        assertNull(otp.getBody());
+    }
+
+    @Test
+    void expiredMessageIsNotSent() {
+        EmailOutbox otp = message("otp@trustcare.test");
+        otp.setBodyEncrypted(true);
+        otp.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        when(repository.lockDueMessages(any(LocalDateTime.class), anyInt())).thenReturn(List.of(otp));
+
+        dispatcher.dispatchBatch(50);
+
+        assertTrue(smtpServer.getDeliveredRecipients().isEmpty());
+        assertEquals(EmailOutbox.STATUS_FAILED, otp.getStatus());
+        assertNull(otp.getBody());
+    }
+
+    @Test
+    void retryIsNotScheduledPastExpiry() {
+        EmailOutbox otp = message("reject@trustcare.test");
+        otp.setExpiresAt(LocalDateTime.now().plusSeconds(30));
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMs", 60000L);
+        when(repository.lockDueMessages(any(LocalDateTime.class), anyInt())).thenReturn(List.of(otp));
+
+        dispatcher.dispatchBatch(50);
+
+        assertEquals(EmailOutbox.STATUS_FAILED, otp.getStatus());
+        assertEquals(1, otp.getAttempts());
+    }
+
+    @Test
+    void rejectedRecipientIsRetriedWithBackoffWhileOthersAreSent() {
+        EmailOutbox good = message("good@trustcare.test");
+        EmailOutbox rejected = message("reject@trustcare.test");
+        when(repository.lockDueMessages(any(LocalDateTime.class), anyInt())).thenReturn(List.of(good, rejected));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatchBatch(50);
+
+        assertEquals(EmailOutbox.STATUS_SENT, good.getStatus());
+        assertEquals(EmailOutbox.STATUS_PENDING, rejected.getStatus());
+        assertEquals(1, rejected.getAttempts());
+        assertTrue(rejected.getNextAttemptAt().isAfter(before));
+        assertNotNull(rejected.getLastError());
+    }
+
+    @Test
+    void messageIsGivenUpAfterMaxAttempts() {
+        EmailOutbox rejected = message("reject@trustcare.test");
+        rejected.setAttempts(2);
+        when(repository.lockDueMessages(any(LocalDateTime.class), anyInt())).thenReturn(List.of(rejected));
+
+        dispatcher.dispatchBatch(50);
+
+        assertEquals(EmailOutbox.STATUS_FAILED, rejected.getStatus());
+        assertEquals(3, rejected.getAttempts());
+    }
+
+    @Test
+    void rejectedDispatchRequestIsNotLeftPending() {
+        AtomicInteger submitted = new AtomicInteger();
+        EmailOutboxDispatcher rejecting = new EmailOutboxDispatcher(repository, new JavaMailSenderImpl(),
+                mock(EncryptionService.class), mock(PlatformTransactionManager.class), task -> {
+                    submitted.incrementAndGet();
+                    throw new RejectedExecutionException("saturated");
+                });
+
+        rejecting.requestDispatch();
+        rejecting.requestDispatch();
+
+        assertEquals(2, submitted.get());
+    }
+
+    @Test
+    void silentlyDroppedDispatchRequestIsClearedByThePoll() {
+        AtomicInteger submitted = new AtomicInteger();
+        EmailOutboxDispatcher dropping = new EmailOutboxDispatcher(repository, new JavaMailSenderImpl(),
+                mock(EncryptionService.class), transactionManager(), task -> submitted.incrementAndGet());
+        ReflectionTestUtils.setField(dropping, "maxPerSecond", 100);
+        ReflectionTestUtils.setField(dropping, "pollIntervalMs", 1000L);
+
+        dropping.requestDispatch();
+        dropping.requestDispatch();
+        assertEquals(1, submitted.get());
+
+        dropping.poll();
+        dropping.requestDispatch();
+        assertEquals(2, submitted.get());
+    }
+
+    @Test
+    void repeatedDispatchRequestsShareOneRateLimit() {
+        ReflectionTestUtils.setField(dispatcher, "maxPerSecond", 5);
+        long[] now = {0};
+        dispatcher.nanoTime = () -> now[0];
+        List<Integer> claimed = new ArrayList<>();
+        when(repository.lockDueMessages(any(LocalDateTime.class), anyInt())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(1);
+            claimed.add(limit);
+            List<EmailOutbox> due = new ArrayList<>();
+            for (int i = 0; i < limit; i++) {
+                due.add(message("user" + claimed.size() + "-" + i + "@trustcare.test"));
+            }
+            return due;
+        });
+
+        // A login peak: every OTP asks for a dispatch, but only a poll interval's worth goes out at once
+        for (int i = 0; i < 10; i++) {
+            dispatcher.requestDispatch();
+        }
+        dispatcher.poll();
+        assertEquals(5, claimed.stream().mapToInt(Integer::intValue).sum());
+
+        // Then max-per-second
+        now[0] += 400_000_000L;
+        dispatcher.requestDispatch();
+        dispatcher.requestDispatch();
+        assertEquals(7, claimed.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(7, smtpServer.getDeliveredRecipients().size());
+    }
+
+    @Test
+    void onlyOneDispatchRunsAtATime() throws Exception {
+        CountDownLatch claiming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.lockDueMessages(any(LocalDateTime.class), anyInt())).thenAnswer(invocation -> {
+            claiming.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        Thread first = new Thread(dispatcher::dispatchDue);
+        first.start();
+        assertTrue(claiming.await(5, TimeUnit.SECONDS));
+
+        dispatcher.poll();
+        release.countDown();
+        first.join(5000);
+
+        verify(repository, times(1)).lockDueMessages(any(LocalDateTime.class), anyInt());
+    }
+
+    private PlatformTransactionManager transactionManager() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        return transactionManager;
+    }
+
+    private EmailOutbox message(String recipient) {
+        EmailOutbox outbox = new EmailOutbox();
+        outbox.setRecipient(recipient);
+        outbox.setSubject("Subject");
+        outbox.setBody("Body");
+        outbox.setStatus(EmailOutbox.STATUS_PENDING);
+        outbox.setNextAttemptAt(LocalDateTime.now());
+        return outbox;
+    }
+}
@@ -0,0 +1,237 @@
+package com.cyclonex.trust_care.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptionServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EncryptionServiceTest.class);
+    private static final String SECRET = "test-secret-key-for-aes-256-0001";
+    private static final int ITERATIONS = 20_000;
+
+    private EncryptionService encryptionService;
+
+    @BeforeEach
+    void setUp() {
+        encryptionService = newService(SECRET, "k1", "");
+    }
+
+    @Test
+    void roundTripUsesVersionedFormatWithFreshIv() {
+        String first = encryptionService.encrypt("Type 2 diabetes");
+        String second = encryptionService.encrypt("Type 2 diabetes");
+
+        assertTrue(first.startsWith(EncryptionService.PREFIX));
+        assertNotEquals(first, second);
+        assertEquals("Type 2 diabetes", encryptionService.decrypt(first));
+        assertTrue(encryptionService.isCurrent(first));
+    }
+
+    @Test
+    void legacyEcbValuesAreStillReadable() throws Exception {
+        String legacy = legacyEncrypt("Hypertension");
+
+        assertEquals("Hypertension", encryptionService.decrypt(legacy));
+        assertFalse(encryptionService.isCurrent(legacy));
+    }
+
+    @Test
+    void valuesWrittenWithAPreviousKeyAreReadableAfterRotation() {
+        String written = encryptionService.encrypt("Asthma");
+
+        EncryptionService rotated = newService("rotated-secret-key-for-aes-256-2", "k2", "k1:" + SECRET);
+
+        assertEquals("Asthma", rotated.decrypt(written));
+        assertFalse(rotated.isCurrent(written));
+        assertTrue(rotated.isCurrent(rotated.encrypt("Asthma")));
+    }
+
+    @Test
+    void binaryFormIsTheBlobWithoutPrefixAndBase64() throws Exception {
+        String text = encryptionService.encrypt("Type 2 diabetes");
+        byte[] binary = encryptionService.toBinary(text);
+
+        assertEquals(text.length() - EncryptionService.PREFIX.length(), Base64.getEncoder().encodeToString(binary).length());
+        assertTrue(binary.length < text.length());
+        assertEquals("Type 2 diabetes", encryptionService.decrypt(binary));
+        assertEquals(text, encryptionService.toText(binary));
+        assertEquals("Asthma", encryptionService.decrypt(encryptionService.encryptToBytes("Asthma", null)));
+
+        String legacy = legacyEncrypt("Hypertension");
+        byte[] legacyBinary = encryptionService.toBinary(legacy);
+        assertEquals(EncryptionService.LEGACY_MARKER, legacyBinary[0]);
+        assertEquals("Hypertension", encryptionService.decrypt(legacyBinary));
+        assertEquals(legacy, encryptionService.toText(legacyBinary));
+    }
+
+    @Test
+    void tamperedCiphertextIsRejected() {
+        byte[] blob = Base64.getDecoder().decode(encryptionService.encrypt("Migraine").substring(EncryptionService.PREFIX.length()));
+        blob[blob.length - 1] ^= 1;
+
+        assertThrows(IllegalArgumentException.class,
+                () -> encryptionService.decrypt(EncryptionService.PREFIX + Base64.getEncoder().encodeToString(blob)));
+    }
+
+    @Test
+    void largeTextIsCompressedBeforeEncryption() {
+        String note = "Patient reports intermittent chest pain on exertion, relieved by rest. ".repeat(40);
+        byte[] blob = encryptionService.encryptToBytes(note, null);
+
+        assertEquals(EncryptionService.FLAG_DEFLATE, blob[1]);
+        assertTrue(blob.length < note.length() / 4);
+        assertEquals(note, encryptionService.decrypt(blob));
+        assertEquals(note, encryptionService.decrypt(encryptionService.encrypt(note)));
+
+        // Short values stay uncompressed and keep the original layout
+        assertEquals(0, encryptionService.encryptToBytes("Asthma", null)[1]);
+    }
+
+    @Test
+    void compressionFlagCannotBeFlipped() {
+        String note = "Follow-up in two weeks. ".repeat(50);
+        byte[] compressed = encryptionService.encryptToBytes(note, null);
+        compressed[1] = 0;
+        assertThrows(IllegalArgumentException.class, () -> encryptionService.decrypt(compressed));
+
+        byte[] plain = encryptionService.encryptToBytes("Migraine", null);
+        plain[1] = EncryptionService.FLAG_DEFLATE;
+        assertThrows(IllegalArgumentException.class, () -> encryptionService.decrypt(plain));
+    }
+
+    @Test
+    void reusedCiphersStayCorrectAcrossCallsAndThreads() throws Exception {
+        String plain = "Chronic obstructive pulmonary disease, stage 2";
+        String legacy = legacyEncrypt(plain);
+        String current = encryptionService.encrypt(plain);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(() -> {
+                    // Legacy and versioned values interleaved on the same thread's ciphers
+                    for (int i = 0; i < ITERATIONS / 4; i++) {
+                        assertEquals(plain, encryptionService.decrypt(legacy));
+                        assertEquals(plain, encryptionService.decrypt(encryptionService.encrypt(plain)));
+                        assertEquals(plain, encryptionService.decrypt(current));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Decrypt throughput of the reused per-thread GCM ciphers against the previous path, which looked up
+     * an ECB cipher and built its key on every call. Timing-sensitive, so only run when
+     * TRUSTCARE_BENCHMARKS=true.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "TRUSTCARE_BENCHMARKS", matches = "true")
+    void throughputComparedWithPerCallCipherLookup() throws Exception {
+        String plain = "Chronic obstructive pulmonary disease, stage 2";
+        String legacy = legacyEncrypt(plain);
+        String current = encryptionService.encrypt(plain);
+
+        // Warm up both paths before timing
+        for (int i = 0; i < 2_000; i++) {
+            legacyDecrypt(legacy);
+            encryptionService.decrypt(current);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(plain, legacyDecrypt(legacy));
+        }
+        long perCallNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(plain, encryptionService.decrypt(current));
+        }
+        long reusedNanos = System.nanoTime() - start;
+
+        log.info("decrypt x{}: per-call lookup {} ms, reused cipher {} ms",
+                ITERATIONS, perCallNanos / 1_000_000, reusedNanos / 1_000_000);
+        assertTrue(reusedNanos <= perCallNanos, "reused ciphers should not be slower than a lookup per call");
+    }
+
+    @Test
+    void legacyKeyMustBeNamedAfterRotation() {
+        EncryptionService rotated = new EncryptionService();
+        ReflectionTestUtils.setField(rotated, "secretKeyString", "rotated-secret-key-for-aes-256-2");
+        ReflectionTestUtils.setField(rotated, "currentKeyId", "k2");
+        ReflectionTestUtils.setField(rotated, "previousKeys", "k1:" + SECRET);
+        ReflectionTestUtils.setField(rotated, "legacySecretKeyString", "");
+
+        assertThrows(IllegalStateException.class, rotated::init);
+    }
+
+    @Test
+    void legacyKeyFollowsTheSecretOnlyBeforeRotation() throws Exception {
+        EncryptionService unrotated = newService(SECRET, "k1", "");
+        ReflectionTestUtils.setField(unrotated, "legacySecretKeyString", "");
+        unrotated.init();
+        assertEquals("Hypertension", unrotated.decrypt(legacyEncrypt("Hypertension")));
+
+        EncryptionService noLegacy = newService("rotated-secret-key-for-aes-256-2", "k2", "k1:" + SECRET);
+        ReflectionTestUtils.setField(noLegacy, "legacySecretKeyString", "none");
+        noLegacy.init();
+        String legacy = legacyEncrypt("Hypertension");
+        assertThrows(IllegalArgumentException.class, () -> noLegacy.decrypt(legacy));
+    }
+
+    private EncryptionService newService(String secret, String keyId, String previousKeys) {
+        EncryptionService service = new EncryptionService();
+        ReflectionTestUtils.setField(service, "secretKeyString", secret);
+        ReflectionTestUtils.setField(service, "currentKeyId", keyId);
+        ReflectionTestUtils.setField(service, "previousKeys", previousKeys);
+        ReflectionTestUtils.setField(service, "legacySecretKeyString", SECRET);
+        ReflectionTestUtils.setField(service, "compressionThreshold", 512);
+        ReflectionTestUtils.setField(service, "maxInflatedBytes", 1 << 20);
+        service.init();
+        return service;
+    }
+
+    // How values were written before the versioned format
+    private String legacyEncrypt(String plainText) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, legacyKey());
+        return Base64.getEncoder().encodeToString(cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // The previous implementation: key and cipher built on every call
+    private String legacyDecrypt(String encryptedText) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.DECRYPT_MODE, legacyKey());
+        return new String(cipher.doFinal(Base64.getDecoder().decode(encryptedText)), StandardCharsets.UTF_8);
+    }
+
+    private SecretKeySpec legacyKey() {
+        byte[] normalizedKey = new byte[32];
+        byte[] keyBytes = SECRET.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(keyBytes, 0, normalizedKey, 0, Math.min(keyBytes.length, 32));
+        return new SecretKeySpec(normalizedKey, "AES");
+    }
+}
@@ -0,0 +1,218 @@
+package com.cyclonex.trust_care.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryOtpStoreTest {
+
+    private static final int MAX_ENTRIES = 1_000;
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private InMemoryOtpStore otpStore;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        otpStore = new InMemoryOtpStore();
+        clock = new MutableClock();
+        ReflectionTestUtils.setField(otpStore, "maxEntries", MAX_ENTRIES);
+        ReflectionTestUtils.setField(otpStore, "clock", clock);
+    }
+
+    @Test
+    void otpIsSingleUse() {
+        otpStore.store("alice", "123456", TTL);
+
+        assertFalse(otpStore.verifyAndConsume("alice", "000000"));
+        assertTrue(otpStore.verifyAndConsume("alice", "123456"));
+        assertFalse(otpStore.verifyAndConsume("alice", "123456"));
+        assertEquals(0, otpStore.size());
+    }
+
+    @Test
+    void expiredOtpIsRejectedAndSwept() {
+        otpStore.store("alice", "123456", TTL);
+        otpStore.store("bob", "654321", TTL);
+
+        clock.advance(TimeUnit.MINUTES.toMillis(6));
+
+        assertFalse(otpStore.verifyAndConsume("alice", "123456"));
+        assertEquals(1, otpStore.purgeExpired());
+        assertEquals(0, otpStore.size());
+    }
+
+    @Test
+    void storeRejectsNewUsersWhenFullOfLiveEntries() {
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            otpStore.store("user" + i, "123456", TTL);
+        }
+
+        // Re-issuing an OTP for a pending user does not need a new slot
+        otpStore.store("user0", "654321", TTL);
+        assertThrows(IllegalStateException.class, () -> otpStore.store("newcomer", "123456", TTL));
+
+        // Once the old entries expire, the store makes room on its own
+        clock.advance(TimeUnit.MINUTES.toMillis(6));
+        otpStore.store("newcomer", "123456", TTL);
+        assertEquals(1, otpStore.size());
+    }
+
+    @Test
+    void concurrentVerifiersAcceptEachOtpExactlyOnce() throws Exception {
+        int users = 500;
+        int verifiersPerUser = 8;
+        for (int i = 0; i < users; i++) {
+            otpStore.store("user" + i, "42" + i, TTL);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < users; i++) {
+                for (int v = 0; v < verifiersPerUser; v++) {
+                    int user = i;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        if (otpStore.verifyAndConsume("user" + user, "42" + user)) {
+                            accepted.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(users, accepted.get());
+        assertEquals(0, otpStore.size());
+    }
+
+    @Test
+    void concurrentStoreVerifyAndSweepKeepsCountConsistent() throws Exception {
+        int threads = 16;
+        int operationsPerThread = 20_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        // Overlapping usernames so threads contend on the same keys
+                        String username = "user" + ((thread * 31 + i) % 800);
+                        try {
+                            otpStore.store(username, "111111", TTL);
+                        } catch (IllegalStateException full) {
+                            // Acceptable under load; the cap is what is being tested
+                        }
+                        if (i % 3 == 0) {
+                            otpStore.verifyAndConsume(username, "111111");
+                        }
+                        if (i % 1_000 == 0) {
+                            clock.advance(TimeUnit.MINUTES.toMillis(1));
+                        }
+                        assertTrue(otpStore.size() <= MAX_ENTRIES);
+                    }
+                    return null;
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 200; i++) {
+                    otpStore.purgeExpired();
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // After everything expires the counter must drain back to zero
+        clock.advance(TimeUnit.MINUTES.toMillis(10));
+        otpStore.purgeExpired();
+        assertEquals(0, otpStore.size());
+    }
+
+    @Test
+    void abandonedLoginsDoNotGrowTheStore() {
+        // Soak: a steady stream of logins that never verify, with the sweeper running periodically
+        int loginsPerMinute = 150;
+        int peak = 0;
+        for (int minute = 0; minute < 600; minute++) {
+            for (int i = 0; i < loginsPerMinute; i++) {
+                otpStore.store("soak-" + minute + "-" + i, "123456", TTL);
+            }
+            clock.advance(TimeUnit.MINUTES.toMillis(1));
+            otpStore.purgeExpired();
+            peak = Math.max(peak, otpStore.size());
+        }
+
+        // Only about one expiry window of logins may be pending at any time
+        assertTrue(peak <= loginsPerMinute * 6, "peak pending OTPs was " + peak);
+        clock.advance(TimeUnit.MINUTES.toMillis(10));
+        otpStore.purgeExpired();
+        assertEquals(0, otpStore.size());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private final AtomicLong millis = new AtomicLong(Instant.parse("2026-01-01T00:00:00Z").toEpochMilli());
+
+        void advance(long deltaMillis) {
+            millis.addAndGet(deltaMillis);
+        }
+
+        @Override
+        public long millis() {
+            return millis.get();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
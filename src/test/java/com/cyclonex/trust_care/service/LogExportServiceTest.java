@@ -0,0 +1,89 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.dto.AuditLogExportRow;
+import com.cyclonex.trust_care.repository.AuditLogRepository;
+import com.cyclonex.trust_care.repository.RequestLogRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LogExportServiceTest {
+
+    private static final List<String> COLUMNS = List.of("id", "timestamp", "userId", "action", "resource", "requestId");
+    private static final Function<AuditLogExportRow, Object[]> VALUES =
+            row -> new Object[]{row.id(), row.timestamp(), row.userId(), row.action(), row.resource(), row.requestId()};
+
+    private LogExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new LogExportService(mock(AuditLogRepository.class), mock(RequestLogRepository.class),
+                mock(PlatformTransactionManager.class), objectMapper);
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.write(rows(), out, DataFormat.NDJSON, false, COLUMNS, VALUES);
+
+        assertEquals(2, count);
+        assertEquals("""
+                {"id":1,"timestamp":"2026-03-01T10:00:00","userId":7,"action":"LOGIN","resource":"auth","requestId":"r-1"}
+                {"id":2,"timestamp":"2026-03-01T10:00:05","userId":null,"action":"EXPORT","resource":"a,\\"b\\"","requestId":null}
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void csvIsQuotedAndGzipped() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.write(rows(), out, DataFormat.CSV, true, COLUMNS, VALUES);
+
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals("id,timestamp,userId,action,resource,requestId\r\n"
+                + "1,2026-03-01T10:00:00,7,LOGIN,auth,r-1\r\n"
+                + "2,2026-03-01T10:00:05,,EXPORT,\"a,\"\"b\"\"\",\r\n", csv);
+    }
+
+    @Test
+    void csvNeutralizesSpreadsheetFormulas() {
+        assertEquals("\"'=HYPERLINK(\"\"x\"\")\"", LogExportService.csvField("=HYPERLINK(\"x\")"));
+        assertEquals("-5", LogExportService.csvField(-5));
+    }
+
+    @Test
+    void largeExportIsWrittenRowByRow() throws Exception {
+        // Rows are generated on demand, as they are from the database cursor, and never collected
+        Stream<AuditLogExportRow> rows = Stream.iterate(1, i -> i + 1).limit(100_000)
+                .map(i -> new AuditLogExportRow(i, LocalDateTime.of(2026, 3, 1, 0, 0), i, "VIEW", "record", null));
+
+        long count = exportService.write(rows, new ByteArrayOutputStream(), DataFormat.NDJSON, true, COLUMNS, VALUES);
+
+        assertEquals(100_000, count);
+    }
+
+    private static Stream<AuditLogExportRow> rows() {
+        return Stream.of(
+                new AuditLogExportRow(1, LocalDateTime.of(2026, 3, 1, 10, 0), 7, "LOGIN", "auth", "r-1"),
+                new AuditLogExportRow(2, LocalDateTime.of(2026, 3, 1, 10, 0, 5), null, "EXPORT", "a,\"b\"", null));
+    }
+}
@@ -0,0 +1,46 @@
+package com.cyclonex.trust_care.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogPartitionServiceTest {
+
+    @Test
+    void partitionsCoverWholeMonths() {
+        assertEquals("CREATE TABLE IF NOT EXISTS audit_log_p2026_12 PARTITION OF audit_log "
+                        + "FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')",
+                LogPartitionService.createPartitionSql("audit_log", YearMonth.of(2026, 12)));
+        assertEquals("request_log_p2027_02", LogPartitionService.partitionName("request_log", YearMonth.of(2027, 2)));
+    }
+
+    @Test
+    void rowsInTheDefaultPartitionAreMovedIntoTheirMonth() {
+        assertEquals(List.of(
+                        "CREATE TABLE request_log_p2026_11 (LIKE request_log INCLUDING DEFAULTS)",
+                        "WITH moved AS (DELETE FROM request_log_default WHERE timestamp >= '2026-11-01' AND timestamp < '2026-12-01' "
+                                + "RETURNING *) INSERT INTO request_log_p2026_11 SELECT * FROM moved",
+                        "ALTER TABLE request_log ATTACH PARTITION request_log_p2026_11 FOR VALUES FROM ('2026-11-01') TO ('2026-12-01')"),
+                LogPartitionService.splitOutSql("request_log", YearMonth.of(2026, 11)));
+    }
+
+    @Test
+    void newestMonthIgnoresTheDefaultPartition() {
+        assertEquals(YearMonth.of(2027, 1), LogPartitionService.newestMonth(
+                List.of("audit_log_default", "audit_log_p2026_11", "audit_log_p2027_01", "audit_log_p2026_12")));
+        assertNull(LogPartitionService.newestMonth(List.of("audit_log_default")));
+    }
+
+    @Test
+    void onlyMonthsBeforeTheRetentionWindowExpire() {
+        List<String> partitions = List.of("audit_log_p2025_09", "audit_log_p2025_10", "audit_log_p2025_11",
+                "audit_log_p2026_10", "audit_log_archive");
+
+        List<String> expired = LogPartitionService.expiredPartitions(partitions, YearMonth.of(2025, 11));
+
+        assertEquals(List.of("audit_log_p2025_09", "audit_log_p2025_10"), expired);
+    }
+}
@@ -0,0 +1,119 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.entity.RequestLog;
+import com.cyclonex.trust_care.repository.RequestLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class LogWriteBufferTest {
+
+    private RequestLogRepository requestLogRepository;
+    private final List<Runnable> executorTasks = new ArrayList<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        requestLogRepository = mock(RequestLogRepository.class);
+        when(requestLogRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            batchSizes.add(invocation.<List<?>>getArgument(0).size());
+            return invocation.getArgument(0);
+        });
+    }
+
+    private LogWriteBuffer buffer(int batchSize, int capacity) {
+        TaskExecutor executor = executorTasks::add;
+        return new LogWriteBuffer(requestLogRepository, mock(PlatformTransactionManager.class),
+                executor, batchSize, capacity);
+    }
+
+    @Test
+    void entriesAreInsertedTogetherOnFlush() {
+        LogWriteBuffer buffer = buffer(10, 100);
+        buffer.add(new RequestLog());
+        buffer.add(new RequestLog());
+        buffer.add(new RequestLog());
+
+        verifyNoInteractions(requestLogRepository);
+        assertEquals(3, buffer.getPendingEntries());
+        buffer.flush();
+
+        assertEquals(List.of(3), batchSizes);
+        assertEquals(0, buffer.getPendingEntries());
+    }
+
+    @Test
+    void timestampIsTakenWhenTheEntryIsQueued() {
+        LogWriteBuffer buffer = buffer(10, 100);
+        LocalDateTime before = LocalDateTime.now();
+        RequestLog queued = new RequestLog();
+        buffer.add(queued);
+        LocalDateTime stamped = queued.getTimestamp();
+        LocalDateTime explicit = LocalDateTime.of(2026, 1, 31, 23, 59);
+        RequestLog given = new RequestLog();
+        given.setTimestamp(explicit);
+        buffer.add(given);
+
+        buffer.flush();
+
+        assertNotNull(stamped);
+        assertFalse(stamped.isBefore(before));
+        assertEquals(stamped, queued.getTimestamp());
+        assertEquals(explicit, given.getTimestamp());
+    }
+
+    @Test
+    void fullBatchIsFlushedOnTheExecutorInBatchSizedChunks() {
+        LogWriteBuffer buffer = buffer(3, 100);
+        for (int i = 0; i < 7; i++) {
+            buffer.add(new RequestLog());
+        }
+
+        // Only one early flush is requested however many entries arrive before it runs
+        assertEquals(1, executorTasks.size());
+        executorTasks.get(0).run();
+
+        assertEquals(List.of(3, 3, 1), batchSizes);
+    }
+
+    @Test
+    void callerInsertsWhenTheQueueIsFull() {
+        LogWriteBuffer buffer = buffer(2, 2);
+        buffer.add(new RequestLog());
+        buffer.add(new RequestLog());
+        buffer.add(new RequestLog());
+
+        assertEquals(List.of(2), batchSizes);
+        buffer.flush();
+        assertEquals(List.of(2, 1), batchSizes);
+    }
+
+    @Test
+    void failedBatchFallsBackToSingleInsertsAndCountsWhatIsLost() {
+        when(requestLogRepository.saveAll(anyList())).thenThrow(new IllegalStateException("constraint"));
+        when(requestLogRepository.save(any(RequestLog.class))).thenThrow(new IllegalStateException("constraint"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        LogWriteBuffer buffer = buffer(10, 100);
+        RequestLog bad = new RequestLog();
+        RequestLog good = new RequestLog();
+        good.setId(51);
+        buffer.add(bad);
+        buffer.add(good);
+
+        buffer.flush();
+
+        verify(requestLogRepository, times(2)).save(any(RequestLog.class));
+        assertEquals(0, good.getId());
+        assertEquals(1, buffer.getFailedEntries());
+    }
+}
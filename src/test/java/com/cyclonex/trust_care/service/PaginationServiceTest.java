@@ -0,0 +1,72 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.dto.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaginationServiceTest {
+
+    private PaginationService paginationService;
+
+    @BeforeEach
+    void setUp() {
+        paginationService = new PaginationService();
+        ReflectionTestUtils.setField(paginationService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(paginationService, "maxPageSize", 200);
+    }
+
+    @Test
+    void pageSizeIsDefaultedAndCapped() {
+        assertEquals(50, paginationService.pageSize(null));
+        assertEquals(200, paginationService.pageSize(10_000));
+        assertEquals(1, paginationService.pageSize(0));
+        assertEquals(201, paginationService.fetchLimit(200).max());
+    }
+
+    @Test
+    void idCursorContinuesAfterTheLastRowOfThePage() {
+        CursorPage<Integer> page = paginationService.idPage(List.of(3, 7, 9), 2, id -> id);
+
+        assertEquals(List.of(3, 7), page.items());
+        assertEquals(7, paginationService.afterId(page.nextCursor()));
+        assertEquals(0, paginationService.afterId(null));
+
+        CursorPage<Integer> last = paginationService.idPage(List.of(11, 12), 2, id -> id);
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void timestampCursorRoundTrips() {
+        LocalDateTime newest = LocalDateTime.of(2026, 3, 1, 10, 15, 30, 123_456_000);
+        LocalDateTime older = newest.minusSeconds(5);
+        List<Row> rows = List.of(new Row(newest, 40), new Row(older, 38), new Row(older, 12));
+
+        CursorPage<Row> page = paginationService.timestampPage(rows, 2, Row::timestamp, Row::id);
+
+        assertEquals(2, page.items().size());
+        PaginationService.TimestampCursor before = paginationService.before(page.nextCursor());
+        assertEquals(older, before.timestamp());
+        assertEquals(38, before.id());
+
+        PaginationService.TimestampCursor first = paginationService.before(null);
+        assertTrue(first.timestamp().isAfter(LocalDateTime.now()));
+        assertEquals(Integer.MAX_VALUE, first.id());
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() {
+        assertThrows(ResponseStatusException.class, () -> paginationService.afterId("not base64!"));
+        assertThrows(ResponseStatusException.class, () -> paginationService.afterId("YWJj"));
+        assertThrows(ResponseStatusException.class, () -> paginationService.before("MTIz"));
+    }
+
+    private record Row(LocalDateTime timestamp, int id) {
+    }
+}
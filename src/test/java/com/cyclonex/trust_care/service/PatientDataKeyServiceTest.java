@@ -0,0 +1,111 @@
+package com.cyclonex.trust_care.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PatientDataKeyServiceTest {
+
+    private final Map<Integer, String> storedKeys = new HashMap<>();
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private EncryptionService encryptionService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        // patient_data_key backed by a map
+        when(jdbcTemplate.queryForList(startsWith("SELECT wrapped_key"), eq(String.class), anyInt())).thenAnswer(invocation -> {
+            String wrapped = storedKeys.get(invocation.<Integer>getArgument(2));
+            return wrapped != null ? List.of(wrapped) : List.of();
+        });
+        when(jdbcTemplate.queryForObject(startsWith("SELECT wrapped_key"), eq(String.class), anyInt()))
+                .thenAnswer(invocation -> storedKeys.get(invocation.<Integer>getArgument(2)));
+        when(jdbcTemplate.update(startsWith("INSERT INTO patient_data_key"), anyInt(), anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    storedKeys.putIfAbsent(invocation.getArgument(1), invocation.getArgument(2));
+                    return 1;
+                });
+
+        encryptionService = encryptionService("k1", "master-secret-1", "");
+    }
+
+    @Test
+    void patientDataIsEncryptedUnderItsOwnKeyAndUnwrappedOnce() {
+        PatientDataKeyService dataKeys = dataKeyService(encryptionService);
+
+        String first = encryptionService.encrypt("Hypertension", 5);
+        String second = encryptionService.encrypt("Asthma", 5);
+        String otherPatient = encryptionService.encrypt("Asthma", 6);
+
+        assertEquals("Hypertension", encryptionService.decrypt(first));
+        assertEquals("Asthma", encryptionService.decrypt(second));
+        assertEquals("Asthma", encryptionService.decrypt(otherPatient));
+        assertTrue(encryptionService.isCurrent(first));
+        assertNotEquals(dataKeys.dataKeyFor(5), dataKeys.dataKeyFor(6));
+        // One lookup per patient; every later use is served from the unwrapped-key cache
+        verify(jdbcTemplate, times(2)).queryForList(startsWith("SELECT wrapped_key"), eq(String.class), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void masterRotationOnlyRewrapsDataKeys() {
+        dataKeyService(encryptionService);
+        String record = encryptionService.encrypt("Hypertension", 5);
+
+        EncryptionService rotated = encryptionService("k2", "master-secret-2", "k1:master-secret-1");
+        PatientDataKeyService rotatedKeys = dataKeyService(rotated);
+        when(jdbcTemplate.queryForList(startsWith("SELECT patient_id"), eq("k2"), anyInt(), anyInt()))
+                .thenReturn(List.of(Map.of("patient_id", 5, "wrapped_key", storedKeys.get(5))))
+                .thenReturn(List.of());
+        List<Object[]> updates = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE patient_data_key"), anyList())).thenAnswer(invocation -> {
+            updates.addAll(invocation.getArgument(1));
+            return new int[]{1};
+        });
+
+        assertEquals(1, rotatedKeys.rewrapAll());
+
+        String rewrapped = (String) updates.get(0)[0];
+        assertEquals("k2", updates.get(0)[1]);
+        assertTrue(rotated.isCurrent(rewrapped));
+        // Clinical rows are untouched and still decrypt through the re-wrapped key
+        storedKeys.put(5, rewrapped);
+        dataKeyService(rotated);
+        assertEquals("Hypertension", rotated.decrypt(record));
+    }
+
+    private PatientDataKeyService dataKeyService(EncryptionService encryptionService) {
+        PatientDataKeyService service = new PatientDataKeyService(jdbcTemplate, encryptionService, transactionManager, 100);
+        ReflectionTestUtils.setField(service, "rewrapBatchSize", 100);
+        service.init();
+        return service;
+    }
+
+    private EncryptionService encryptionService(String keyId, String secret, String previousKeys) {
+        EncryptionService service = new EncryptionService();
+        ReflectionTestUtils.setField(service, "secretKeyString", secret);
+        ReflectionTestUtils.setField(service, "currentKeyId", keyId);
+        ReflectionTestUtils.setField(service, "previousKeys", previousKeys);
+        ReflectionTestUtils.setField(service, "legacySecretKeyString", secret);
+        ReflectionTestUtils.setField(service, "envelopeEnabled", true);
+        service.init();
+        return service;
+    }
+}
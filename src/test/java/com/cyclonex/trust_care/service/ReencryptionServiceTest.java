@@ -0,0 +1,168 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.entity.ReencryptionCheckpoint;
+import com.cyclonex.trust_care.repository.ReencryptionCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReencryptionServiceTest {
+
+    private static final ReencryptionService.EncryptedTable TABLE = ReencryptionService.TABLES.get(0);
+
+    private JdbcTemplate jdbcTemplate;
+    private EncryptionService oldKey;
+    private EncryptionService newKey;
+    private BulkDecryptionService bulkDecryptionService;
+    private BlindIndexService blindIndexService;
+    private ReencryptionService reencryptionService;
+
+    @BeforeEach
+    void setUp() {
+        oldKey = encryptionService("k1", "old-secret", "");
+        newKey = encryptionService("k2", "new-secret", "k1:old-secret");
+        jdbcTemplate = mock(JdbcTemplate.class);
+        bulkDecryptionService = new BulkDecryptionService(2, 64, 32);
+        blindIndexService = new BlindIndexService();
+        ReflectionTestUtils.setField(blindIndexService, "blindIndexKey", "blind-index-secret");
+        blindIndexService.init();
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        reencryptionService = new ReencryptionService(jdbcTemplate, transactionManager, newKey, bulkDecryptionService,
+                blindIndexService, mock(ReencryptionCheckpointRepository.class), Runnable::run);
+        ReflectionTestUtils.setField(reencryptionService, "batchSize", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkDecryptionService.shutdown();
+    }
+
+    @Test
+    void updateOnlyAppliesWhenTheRowIsUnchanged() {
+        assertEquals("UPDATE medical_record SET diagnosis_encrypted = ?, diagnosis_cipher = ?, treatment_encrypted = ?,"
+                        + " treatment_cipher = ?, diagnosis_bidx = ? WHERE id = ?"
+                        + " AND diagnosis_encrypted IS NOT DISTINCT FROM ? AND diagnosis_cipher IS NOT DISTINCT FROM ?"
+                        + " AND treatment_encrypted IS NOT DISTINCT FROM ? AND treatment_cipher IS NOT DISTINCT FROM ?",
+                TABLE.updateSql());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchRewritesOnlyValuesNotOnTheCurrentKeyAndFillsMissingIndexes() {
+        String current = newKey.encrypt("Asthma");
+        String old = oldKey.encrypt("Hypertension");
+        List<ReencryptionService.PendingRow> rows = List.of(
+                textRow(3, null, new String[]{current, null}, blindIndexService.index("Asthma")),
+                textRow(8, null, new String[]{old, current}, null));
+        when(jdbcTemplate.query(eq(TABLE.selectSql()), any(RowMapper.class), eq(0), eq(100))).thenReturn(rows);
+
+        List<ReencryptionService.PendingRow> written = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(TABLE.updateSql()), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    written.addAll(invocation.getArgument(1));
+                    return new int[][]{{1}};
+                });
+
+        ReencryptionCheckpoint checkpoint = new ReencryptionCheckpoint();
+        assertEquals(2, reencryptionService.processBatch(TABLE, checkpoint));
+
+        assertEquals(1, written.size());
+        ReencryptionService.PendingRow row = written.get(0);
+        assertEquals(8, row.id);
+        assertTrue(newKey.isCurrent(row.updatedText[0]));
+        assertEquals("Hypertension", newKey.decrypt(row.updatedText[0]));
+        assertSame(current, row.updatedText[1]);
+        assertEquals(blindIndexService.index("hypertension"), row.updatedIndexes[0]);
+
+        assertEquals(8, checkpoint.getLastId());
+        assertEquals(2, checkpoint.getRowsScanned());
+        assertEquals(1, checkpoint.getRowsUpdated());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void masterKeyAndLegacyValuesMoveToThePatientDataKey() {
+        ReflectionTestUtils.setField(newKey, "envelopeEnabled", true);
+        SecretKey patientKey = new SecretKeySpec(new byte[32], "AES");
+        newKey.setDataKeyResolver(patientId -> patientKey);
+        String masterKey = newKey.encrypt("Asthma");
+        String underDataKey = newKey.encrypt("Migraine", 12);
+        List<ReencryptionService.PendingRow> rows = List.of(
+                textRow(5, 12, new String[]{masterKey, underDataKey}, blindIndexService.index("Asthma")));
+        when(jdbcTemplate.query(eq(TABLE.selectSql()), any(RowMapper.class), eq(0), eq(100))).thenReturn(rows);
+        List<ReencryptionService.PendingRow> written = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(TABLE.updateSql()), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    written.addAll(invocation.getArgument(1));
+                    return new int[][]{{1}};
+                });
+
+        reencryptionService.processBatch(TABLE, new ReencryptionCheckpoint());
+
+        ReencryptionService.PendingRow row = written.get(0);
+        assertTrue(newKey.isCurrent(row.updatedText[0], 12));
+        assertEquals("Asthma", newKey.decrypt(row.updatedText[0]));
+        assertSame(underDataKey, row.updatedText[1]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void byteaValuesAreRotatedInTheirOwnColumn() {
+        byte[] old = oldKey.encryptToBytes("Hypertension", null);
+        byte[] current = newKey.encryptToBytes("Asthma", null);
+        List<ReencryptionService.PendingRow> rows = List.of(new ReencryptionService.PendingRow(4, null,
+                new String[]{null, null}, new byte[][]{old, current}, new String[]{null}));
+        when(jdbcTemplate.query(eq(TABLE.selectSql()), any(RowMapper.class), eq(0), eq(100))).thenReturn(rows);
+        List<ReencryptionService.PendingRow> written = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(TABLE.updateSql()), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    written.addAll(invocation.getArgument(1));
+                    return new int[][]{{1}};
+                });
+
+        ReencryptionCheckpoint checkpoint = new ReencryptionCheckpoint();
+        reencryptionService.processBatch(TABLE, checkpoint);
+
+        assertEquals(1, written.size());
+        ReencryptionService.PendingRow row = written.get(0);
+        assertTrue(newKey.isCurrent(row.updatedBinary[0], null));
+        assertEquals("Hypertension", newKey.decrypt(row.updatedBinary[0]));
+        assertSame(current, row.updatedBinary[1]);
+        assertNull(row.updatedText[0]);
+        assertEquals(blindIndexService.index("hypertension"), row.updatedIndexes[0]);
+        assertEquals(1, checkpoint.getRowsUpdated());
+    }
+
+    private ReencryptionService.PendingRow textRow(int id, Integer patientId, String[] text, String index) {
+        return new ReencryptionService.PendingRow(id, patientId, text, new byte[text.length][], new String[]{index});
+    }
+
+    private EncryptionService encryptionService(String keyId, String secret, String previousKeys) {
+        EncryptionService service = new EncryptionService();
+        ReflectionTestUtils.setField(service, "secretKeyString", secret);
+        ReflectionTestUtils.setField(service, "currentKeyId", keyId);
+        ReflectionTestUtils.setField(service, "previousKeys", previousKeys);
+        ReflectionTestUtils.setField(service, "legacySecretKeyString", secret);
+        service.init();
+        return service;
+    }
+}
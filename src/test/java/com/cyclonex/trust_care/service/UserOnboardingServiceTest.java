@@ -0,0 +1,191 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.dto.OnboardingError;
+import com.cyclonex.trust_care.dto.OnboardingResult;
+import com.cyclonex.trust_care.dto.RegisterRequest;
+import com.cyclonex.trust_care.entity.Role;
+import com.cyclonex.trust_care.entity.User;
+import com.cyclonex.trust_care.repository.AdminRepository;
+import com.cyclonex.trust_care.repository.DoctorRepository;
+import com.cyclonex.trust_care.repository.PatientRepository;
+import com.cyclonex.trust_care.repository.RoleRepository;
+import com.cyclonex.trust_care.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class UserOnboardingServiceTest {
+
+    private UserRepository userRepository;
+    private PatientRepository patientRepository;
+    private DoctorRepository doctorRepository;
+    private EmailService emailService;
+    private ThreadPoolTaskExecutor hashExecutor;
+    private PasswordEncoder encoder;
+    private UserOnboardingService service;
+    private final Set<String> hashingThreads = ConcurrentHashMap.newKeySet();
+    private final List<Integer> userBatches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        patientRepository = mock(PatientRepository.class);
+        doctorRepository = mock(DoctorRepository.class);
+        emailService = mock(EmailService.class);
+        hashExecutor = new ThreadPoolTaskExecutor();
+        hashExecutor.setThreadNamePrefix("hash-");
+        hashExecutor.setCorePoolSize(2);
+        hashExecutor.setMaxPoolSize(2);
+        hashExecutor.initialize();
+
+        when(roleRepository.findByRoleNameIn(anyCollection())).thenReturn(List.of(role("PATIENT"), role("DOCTOR")));
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("taken@trustcare.test"));
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of());
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            userBatches.add(invocation.<List<?>>getArgument(0).size());
+            return invocation.getArgument(0);
+        });
+        encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(any())).thenAnswer(invocation -> {
+            hashingThreads.add(Thread.currentThread().getName());
+            Thread.sleep(5);
+            return "hash:" + invocation.getArgument(0);
+        });
+
+        service = new UserOnboardingService(userRepository, roleRepository, mock(AdminRepository.class), doctorRepository,
+                patientRepository, encoder, emailService, mock(PlatformTransactionManager.class), hashExecutor);
+        ReflectionTestUtils.setField(service, "maxUsers", 100);
+        ReflectionTestUtils.setField(service, "batchSize", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashExecutor.shutdown();
+    }
+
+    @Test
+    void invalidEntriesAreReportedAndTheRestAreCreated() {
+        List<RegisterRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(new RegisterRequest("user" + i, "user" + i + "@trustcare.test", "pw" + i, i % 2 == 0 ? "PATIENT" : "DOCTOR"));
+        }
+        requests.add(new RegisterRequest("taken", "taken@trustcare.test", "pw", "PATIENT"));
+        requests.add(new RegisterRequest("again", "user0@trustcare.test", "pw", "PATIENT"));
+        requests.add(new RegisterRequest("nurse", "nurse@trustcare.test", "pw", "NURSE"));
+        requests.add(new RegisterRequest("nopw", "nopw@trustcare.test", null, "PATIENT"));
+
+        OnboardingResult result = service.onboard(requests);
+
+        assertEquals(14, result.requested());
+        assertEquals(10, result.created());
+        assertEquals(List.of(10, 11, 12, 13), result.errors().stream().map(OnboardingError::index).toList());
+        assertEquals("Email already exists", result.errors().get(0).message());
+        assertEquals("Email already exists", result.errors().get(1).message());
+        assertEquals("Role not found", result.errors().get(2).message());
+        assertEquals("Password is required", result.errors().get(3).message());
+
+        // Inserted in batches of batch-size, with the role rows and one batch of welcome emails
+        assertEquals(List.of(4, 4, 2), userBatches);
+        verify(patientRepository, times(3)).saveAll(anyList());
+        verify(emailService).sendRegistrationEmails(argThat(users -> users.size() == 10
+                && users.stream().allMatch(user -> user.getPasswordHash().startsWith("hash:"))));
+        // Checked with one query each, not per user
+        verify(userRepository).findExistingEmails(anyCollection());
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    void passwordsAreHashedOnTheHashPool() {
+        List<RegisterRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            requests.add(new RegisterRequest("user" + i, "user" + i + "@trustcare.test", "pw", "PATIENT"));
+        }
+
+        service.onboard(requests);
+
+        assertFalse(hashingThreads.isEmpty());
+        assertTrue(hashingThreads.stream().allMatch(name -> name.startsWith("hash-")), "hashed on " + hashingThreads);
+    }
+
+    @Test
+    void passwordsAreHashedConcurrently() {
+        // Each hash waits until the other has started: hashed one after another, both would time out
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger overlapping = new AtomicInteger();
+        when(encoder.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            if (started.await(5, TimeUnit.SECONDS)) {
+                overlapping.incrementAndGet();
+            }
+            return "hash:" + invocation.getArgument(0);
+        });
+        List<RegisterRequest> requests = List.of(
+                new RegisterRequest("a", "a@trustcare.test", "pw", "PATIENT"),
+                new RegisterRequest("b", "b@trustcare.test", "pw", "PATIENT"));
+
+        OnboardingResult result = service.onboard(requests);
+
+        assertEquals(2, result.created());
+        assertEquals(2, overlapping.get());
+    }
+
+    @Test
+    void passwordsLongerThanBcryptAcceptsAreReportedPerEntry() {
+        List<RegisterRequest> requests = List.of(
+                new RegisterRequest("long", "long@trustcare.test", "é".repeat(37), "PATIENT"),
+                new RegisterRequest("fits", "fits@trustcare.test", "p".repeat(72), "PATIENT"));
+
+        OnboardingResult result = service.onboard(requests);
+
+        assertEquals(1, result.created());
+        assertEquals(1, result.errors().size());
+        assertEquals(0, result.errors().get(0).index());
+        assertEquals("Password must be at most 72 bytes", result.errors().get(0).message());
+    }
+
+    @Test
+    void aFailedBatchIsRetriedOneByOne() {
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            if (users.stream().anyMatch(user -> user.getEmail().startsWith("race"))) {
+                throw new IllegalStateException("duplicate key");
+            }
+            return users;
+        });
+        List<RegisterRequest> requests = List.of(
+                new RegisterRequest("a", "a@trustcare.test", "pw", "PATIENT"),
+                new RegisterRequest("race", "race@trustcare.test", "pw", "PATIENT"),
+                new RegisterRequest("b", "b@trustcare.test", "pw", "DOCTOR"));
+
+        OnboardingResult result = service.onboard(requests);
+
+        assertEquals(2, result.created());
+        assertEquals(1, result.errors().size());
+        assertEquals(1, result.errors().get(0).index());
+    }
+
+    private Role role(String name) {
+        Role role = new Role();
+        role.setRoleName(name);
+        return role;
+    }
+}
@@ -0,0 +1,68 @@
+package com.cyclonex.trust_care.service;
+
+import com.cyclonex.trust_care.entity.Role;
+import com.cyclonex.trust_care.entity.User;
+import com.cyclonex.trust_care.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class UserServiceTest {
+
+    private UserRepository userRepository;
+    private UserTokenVersionService userTokenVersionService;
+    private UserService service;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userTokenVersionService = mock(UserTokenVersionService.class);
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findById(7)).thenReturn(Optional.of(user("PATIENT", "active", "hash")));
+        service = new UserService(userRepository, mock(PaginationService.class), userTokenVersionService);
+    }
+
+    @Test
+    void roleStatusOrPasswordChangesInvalidateTokens() {
+        service.saveUser(user("DOCTOR", "active", "hash"));
+        service.saveUser(user("PATIENT", "disabled", "hash"));
+        service.saveUser(user("PATIENT", "active", "other"));
+
+        verify(userTokenVersionService, times(3)).bumpVersion(7);
+    }
+
+    @Test
+    void otherChangesKeepTokens() {
+        User renamed = user("PATIENT", "active", "hash");
+        renamed.setUsername("renamed");
+
+        service.saveUser(renamed);
+
+        verify(userTokenVersionService, never()).bumpVersion(anyInt());
+    }
+
+    @Test
+    void deletedUsersAreEvicted() {
+        service.deleteUser(7);
+
+        verify(userRepository).deleteById(7);
+        verify(userTokenVersionService).evict(7);
+    }
+
+    private User user(String roleName, String status, String passwordHash) {
+        Role role = new Role();
+        role.setId(roleName.equals("PATIENT") ? 1 : 2);
+        role.setRoleName(roleName);
+        User user = new User();
+        user.setId(7);
+        user.setRole(role);
+        user.setStatus(status);
+        user.setPasswordHash(passwordHash);
+        return user;
+    }
+}